@@ -16,7 +16,10 @@
 
 package io.github.nooshhub.concurrent;
 
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
@@ -25,7 +28,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * Thread pool factory, init and sync thread ratio is 3:1. TODO: optimize this later
+ * Thread pool factory, the threads of init, sync and fix are sized by
+ * {@link io.github.nooshhub.config.EspipeBulkheadProperties}.
  * https://stackoverflow.com/questions/1250643/how-to-wait-for-all-threads-to-finish-using-executorservice
  * https://www.baeldung.com/java-executor-wait-for-threads
  * https://stackoverflow.com/questions/50151816/is-it-possible-to-call-a-spring-scheduled-method-manually
@@ -37,8 +41,7 @@ public abstract class AbstractThreadPoolFactory {
 
     private static final Logger logger = LoggerFactory.getLogger(AbstractThreadPoolFactory.class);
 
-    public static ThreadPoolExecutor poolForInit() {
-        final int nThreads = Runtime.getRuntime().availableProcessors() / 5 + 3;
+    public static ThreadPoolExecutor poolForInit(int nThreads) {
         logger.info("number of threads {}", nThreads);
         final ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(nThreads, nThreads, 0L,
                 TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(), new CustomThreadFactory("init"));
@@ -46,13 +49,98 @@ public abstract class AbstractThreadPoolFactory {
         return threadPoolExecutor;
     }
 
-    public static ScheduledThreadPoolExecutor poolForSync() {
-        final int nThreads = Runtime.getRuntime().availableProcessors() / 5 + 1;
+    public static ThreadPoolExecutor poolForFix(int nThreads) {
+        logger.info("number of threads {}", nThreads);
+        final ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(nThreads, nThreads, 0L,
+                TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(), new CustomThreadFactory("fix"));
+        logger.info(threadPoolExecutor.toString());
+        return threadPoolExecutor;
+    }
+
+    public static ThreadPoolExecutor poolForPartition(int nThreads) {
+        logger.info("number of threads {}", nThreads);
+        final ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(nThreads, nThreads, 0L,
+                TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(), new CustomThreadFactory("partition"));
+        logger.info(threadPoolExecutor.toString());
+        return threadPoolExecutor;
+    }
+
+    /**
+     * the extension queries of init, the queue is bounded and a full pool makes the
+     * caller wait, so the chunks of the batches are not buffered without bound.
+     * @param nThreads threads
+     * @return thread pool
+     */
+    public static ThreadPoolExecutor poolForExtension(int nThreads) {
+        logger.info("number of threads {}", nThreads);
+        final ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(nThreads, nThreads, 0L,
+                TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(nThreads),
+                new CustomThreadFactory("extension"), new BlockingPolicy());
+        logger.info(threadPoolExecutor.toString());
+        return threadPoolExecutor;
+    }
+
+    /**
+     * the enrich stage of init, the queue is bounded and a full stage makes the cursor
+     * thread wait, so reading slows down instead of buffering batches, and the cursor
+     * never runs the extension queries on its own connection.
+     * @param nThreads threads
+     * @return thread pool
+     */
+    public static ThreadPoolExecutor poolForEnrich(int nThreads) {
+        logger.info("number of threads {}", nThreads);
+        final ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(nThreads, nThreads, 0L,
+                TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(nThreads), new CustomThreadFactory("enrich"),
+                new BlockingPolicy());
+        logger.info(threadPoolExecutor.toString());
+        return threadPoolExecutor;
+    }
+
+    /**
+     * the pool that resends bulk requests, the halves of a too large request and the
+     * retries after their backoff. A {@link CompletableTask} rejected by the pool, also
+     * when a delayed executor hands it over after a shutdown, completes exceptionally.
+     * @param nThreads threads
+     * @return thread pool
+     */
+    public static ThreadPoolExecutor poolForBulk(int nThreads) {
+        logger.info("number of threads {}", nThreads);
+        final ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(nThreads, nThreads, 0L,
+                TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(), new CustomThreadFactory("bulk"),
+                (task, executor) -> {
+                    if (!(task instanceof CompletableTask)) {
+                        throw new RejectedExecutionException("Task is rejected, the pool is shut down");
+                    }
+                    ((CompletableTask<?>) task).reject();
+                });
+        logger.info(threadPoolExecutor.toString());
+        return threadPoolExecutor;
+    }
+
+    public static ScheduledThreadPoolExecutor poolForSync(int nThreads) {
         logger.info("number of threads {}", nThreads);
         final ScheduledThreadPoolExecutor threadPoolExecutor = new ScheduledThreadPoolExecutor(nThreads,
                 new CustomThreadFactory("sync"));
+        // a stopped sync leaves no poll or wake behind in the queue
+        threadPoolExecutor.setRemoveOnCancelPolicy(true);
         logger.info(threadPoolExecutor.toString());
         return threadPoolExecutor;
     }
 
+    /**
+     * shut down a pool now, the tasks that never ran are completed so nobody waits for
+     * them. A {@link CompletableTask} completes exceptionally and a future is cancelled.
+     * @param executor thread pool
+     */
+    public static void shutdownNow(ThreadPoolExecutor executor) {
+        for (Runnable task : executor.shutdownNow()) {
+            if (task instanceof CompletableTask) {
+                ((CompletableTask<?>) task).reject();
+            }
+            else if (task instanceof Future) {
+                ((Future<?>) task).cancel(false);
+            }
+        }
+    }
+
 }
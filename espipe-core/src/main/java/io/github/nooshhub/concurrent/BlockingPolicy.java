@@ -0,0 +1,52 @@
+/*
+ * Copyright 2021-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.nooshhub.concurrent;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Blocking Policy makes the submitter of a full pool wait for a free slot of the bounded
+ * queue, so a fast producer slows down to the pool instead of running the task itself.
+ * A pool that is shut down rejects the task, also when it is shut down while the
+ * submitter waits.
+ *
+ * @author Neal Shan
+ * @since 10/18/2026
+ */
+public class BlockingPolicy implements RejectedExecutionHandler {
+
+    @Override
+    public void rejectedExecution(Runnable task, ThreadPoolExecutor executor) {
+        if (executor.isShutdown()) {
+            throw new RejectedExecutionException("Task is rejected, the pool is shut down");
+        }
+        try {
+            executor.getQueue().put(task);
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Task is rejected, interrupted while the pool is full", ex);
+        }
+        // shut down while waiting, the queue is drained already and nobody runs the task
+        if (executor.isShutdown() && executor.remove(task)) {
+            throw new RejectedExecutionException("Task is rejected, the pool is shut down");
+        }
+    }
+
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright 2021-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.nooshhub.concurrent;
+
+import java.util.concurrent.TimeUnit;
+
+import io.github.nooshhub.config.EspipeBulkProperties;
+
+/**
+ * Bulk Controller adapts the batch size and the bulk requests in flight of one index by
+ * additive increase and multiplicative decrease. Every bulk response under the target
+ * latency adds a step to the batch size, and one more request is allowed in flight after
+ * a full window of such responses. A rejection or a latency spike halves both, once per
+ * target latency, since the responses of the requests sent before the decrease report
+ * the same congestion.
+ *
+ * @author Neal Shan
+ * @since 10/18/2026
+ */
+public class BulkController {
+
+    private final EspipeBulkProperties properties;
+
+    private int batchSize;
+
+    private int inFlightLimit;
+
+    private int inFlight;
+
+    private int windowResponses;
+
+    private long lastDecreaseNanos;
+
+    private long lastLatencyMillis;
+
+    private long responses;
+
+    private long rejections;
+
+    private long spikes;
+
+    private long increases;
+
+    private long decreases;
+
+    /**
+     * create a controller.
+     * @param properties bounds of the controller
+     * @param batchSize batch size to start with
+     * @param inFlightLimit bulk requests in flight to start with
+     */
+    public BulkController(EspipeBulkProperties properties, int batchSize, int inFlightLimit) {
+        this.properties = properties;
+        if (properties.isAdaptive()) {
+            this.batchSize = Math.max(Math.min(batchSize, properties.getMaxBatchSize()),
+                    properties.getMinBatchSize());
+            this.inFlightLimit = Math.max(Math.min(inFlightLimit, properties.getMaxInFlight()), 1);
+        }
+        else {
+            this.batchSize = batchSize;
+            this.inFlightLimit = inFlightLimit;
+        }
+        this.lastDecreaseNanos = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(properties.getTargetLatencyMillis());
+    }
+
+    /**
+     * wait until a bulk request is allowed in flight.
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public synchronized void acquire() throws InterruptedException {
+        while (this.inFlight >= this.inFlightLimit) {
+            wait();
+        }
+        this.inFlight++;
+    }
+
+    /**
+     * allow a bulk request in flight if the limit is not reached.
+     * @return true if allowed
+     */
+    public synchronized boolean tryAcquire() {
+        if (this.inFlight >= this.inFlightLimit) {
+            return false;
+        }
+        this.inFlight++;
+        return true;
+    }
+
+    /**
+     * a bulk request in flight is done.
+     */
+    public synchronized void release() {
+        this.inFlight--;
+        notifyAll();
+    }
+
+    /**
+     * adapt to a bulk response.
+     * @param latencyMillis latency of the bulk request
+     * @param rejected true if the request or any of its items was rejected
+     */
+    public synchronized void onResponse(long latencyMillis, boolean rejected) {
+        this.responses++;
+        this.lastLatencyMillis = latencyMillis;
+        final boolean spike = latencyMillis > this.properties.getSpikeLatencyMillis();
+        if (rejected) {
+            this.rejections++;
+        }
+        if (spike) {
+            this.spikes++;
+        }
+        if (!this.properties.isAdaptive()) {
+            return;
+        }
+
+        final long now = System.nanoTime();
+        if (rejected || spike) {
+            this.windowResponses = 0;
+            if (now - this.lastDecreaseNanos >= TimeUnit.MILLISECONDS
+                    .toNanos(this.properties.getTargetLatencyMillis())) {
+                this.batchSize = Math.max(this.batchSize / 2, this.properties.getMinBatchSize());
+                this.inFlightLimit = Math.max(this.inFlightLimit / 2, 1);
+                this.lastDecreaseNanos = now;
+                this.decreases++;
+            }
+        }
+        else if (latencyMillis <= this.properties.getTargetLatencyMillis()) {
+            this.batchSize = Math.min(this.batchSize + this.properties.getBatchSizeStep(),
+                    this.properties.getMaxBatchSize());
+            if (++this.windowResponses >= this.inFlightLimit) {
+                this.windowResponses = 0;
+                if (this.inFlightLimit < this.properties.getMaxInFlight()) {
+                    this.inFlightLimit++;
+                    notifyAll();
+                }
+            }
+            this.increases++;
+        }
+    }
+
+    public synchronized int getBatchSize() {
+        return this.batchSize;
+    }
+
+    public synchronized int getInFlightLimit() {
+        return this.inFlightLimit;
+    }
+
+    public synchronized int getInFlight() {
+        return this.inFlight;
+    }
+
+    public synchronized long getLastLatencyMillis() {
+        return this.lastLatencyMillis;
+    }
+
+    public synchronized long getResponses() {
+        return this.responses;
+    }
+
+    public synchronized long getRejections() {
+        return this.rejections;
+    }
+
+    public synchronized long getSpikes() {
+        return this.spikes;
+    }
+
+    public synchronized long getIncreases() {
+        return this.increases;
+    }
+
+    public synchronized long getDecreases() {
+        return this.decreases;
+    }
+
+    public boolean isAdaptive() {
+        return this.properties.isAdaptive();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "BulkController{" + "batchSize=" + this.batchSize + ", inFlightLimit=" + this.inFlightLimit
+                + ", inFlight=" + this.inFlight + ", lastLatencyMillis=" + this.lastLatencyMillis + ", responses="
+                + this.responses + ", rejections=" + this.rejections + ", spikes=" + this.spikes + ", increases="
+                + this.increases + ", decreases=" + this.decreases + '}';
+    }
+
+}
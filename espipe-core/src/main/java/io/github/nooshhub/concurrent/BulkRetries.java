@@ -0,0 +1,68 @@
+/*
+ * Copyright 2021-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.nooshhub.concurrent;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bulk Retries counts the documents of one index resubmitted after a retryable failure,
+ * the documents that succeeded by a retry and the documents that failed for good, either
+ * by a permanent failure or after the last retry. A document is counted once however
+ * many times it is resubmitted.
+ *
+ * @author Neal Shan
+ * @since 10/18/2026
+ */
+public class BulkRetries {
+
+    private final AtomicLong retried = new AtomicLong();
+
+    private final AtomicLong recovered = new AtomicLong();
+
+    private final AtomicLong failed = new AtomicLong();
+
+    public long getRetried() {
+        return this.retried.get();
+    }
+
+    public void addRetried(long docs) {
+        this.retried.addAndGet(docs);
+    }
+
+    public long getRecovered() {
+        return this.recovered.get();
+    }
+
+    public void addRecovered(long docs) {
+        this.recovered.addAndGet(docs);
+    }
+
+    public long getFailed() {
+        return this.failed.get();
+    }
+
+    public void addFailed(long docs) {
+        this.failed.addAndGet(docs);
+    }
+
+    @Override
+    public String toString() {
+        return "BulkRetries{" + "retried=" + this.retried + ", recovered=" + this.recovered + ", failed="
+                + this.failed + '}';
+    }
+
+}
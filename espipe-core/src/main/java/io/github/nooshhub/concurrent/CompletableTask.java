@@ -0,0 +1,83 @@
+/*
+ * Copyright 2021-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.nooshhub.concurrent;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Completable Task completes a future by a supplier on a pool. Unlike
+ * {@link CompletableFuture#supplyAsync(Supplier, Executor)} the future also completes
+ * when the task never runs, exceptionally, either because the pool rejects it or because
+ * {@link AbstractThreadPoolFactory#shutdownNow(java.util.concurrent.ThreadPoolExecutor)}
+ * drains it from the queue.
+ *
+ * @param <T> result type
+ * @author Neal Shan
+ * @since 10/18/2026
+ */
+public final class CompletableTask<T> implements Runnable {
+
+    private final CompletableFuture<T> future = new CompletableFuture<>();
+
+    private final Supplier<T> supplier;
+
+    private CompletableTask(Supplier<T> supplier) {
+        this.supplier = supplier;
+    }
+
+    /**
+     * run a supplier on a pool.
+     * @param supplier supplier
+     * @param executor pool
+     * @param <T> result type
+     * @return future of the result, completed exceptionally if the task is rejected
+     */
+    public static <T> CompletableFuture<T> supplyAsync(Supplier<T> supplier, Executor executor) {
+        CompletableTask<T> task = new CompletableTask<>(supplier);
+        try {
+            executor.execute(task);
+        }
+        catch (RejectedExecutionException ex) {
+            task.future.completeExceptionally(ex);
+        }
+        return task.future;
+    }
+
+    @Override
+    public void run() {
+        if (this.future.isDone()) {
+            return;
+        }
+        try {
+            this.future.complete(this.supplier.get());
+        }
+        catch (RuntimeException | Error ex) {
+            this.future.completeExceptionally(ex);
+        }
+    }
+
+    /**
+     * the task is drained from a pool that is shut down and never runs.
+     */
+    void reject() {
+        this.future.completeExceptionally(new RejectedExecutionException("Task is rejected, the pool is shut down"));
+    }
+
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2021-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.nooshhub.concurrent;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A key range of one index that is initialized by its own connection and thread, the
+ * range is inclusive on both lower and upper key.
+ *
+ * @author Neal Shan
+ * @since 10/18/2026
+ */
+public class InitPartition {
+
+    private final String indexName;
+
+    private final int partitionNo;
+
+    private final long lowerKey;
+
+    private final long upperKey;
+
+    private final AtomicLong rowCount = new AtomicLong();
+
+    private final InitProgress progress = new InitProgress();
+
+    private volatile long lastReadKey;
+
+    private volatile Status status = Status.PENDING;
+
+    private volatile String error;
+
+    public InitPartition(String indexName, int partitionNo, long lowerKey, long upperKey) {
+        this.indexName = indexName;
+        this.partitionNo = partitionNo;
+        this.lowerKey = lowerKey;
+        this.upperKey = upperKey;
+    }
+
+    public String getIndexName() {
+        return this.indexName;
+    }
+
+    public int getPartitionNo() {
+        return this.partitionNo;
+    }
+
+    public long getLowerKey() {
+        return this.lowerKey;
+    }
+
+    public long getUpperKey() {
+        return this.upperKey;
+    }
+
+    public long getRowCount() {
+        return this.rowCount.get();
+    }
+
+    public void addRowCount(long delta) {
+        this.rowCount.addAndGet(delta);
+    }
+
+    public InitProgress getProgress() {
+        return this.progress;
+    }
+
+    public long getLastReadKey() {
+        return this.lastReadKey;
+    }
+
+    public void setLastReadKey(long lastReadKey) {
+        this.lastReadKey = lastReadKey;
+    }
+
+    public Status getStatus() {
+        return this.status;
+    }
+
+    public synchronized void setStatus(Status status) {
+        this.status = status;
+        notifyAll();
+    }
+
+    public String getError() {
+        return this.error;
+    }
+
+    public synchronized void fail(String error) {
+        this.error = error;
+        setStatus(Status.FAILED);
+    }
+
+    /**
+     * start the partition on its thread, unless it is cancelled before.
+     * @return true if started
+     */
+    public synchronized boolean start() {
+        if (this.status != Status.PENDING) {
+            return false;
+        }
+        setStatus(Status.RUNNING);
+        return true;
+    }
+
+    /**
+     * cancel the partition if it has not started yet.
+     */
+    public synchronized void cancel() {
+        if (this.status == Status.PENDING) {
+            setStatus(Status.CANCELLED);
+        }
+    }
+
+    /**
+     * wait until the thread of the partition stops.
+     * @throws InterruptedException if interrupted
+     */
+    public synchronized void awaitStopped() throws InterruptedException {
+        while (this.status == Status.RUNNING) {
+            wait();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "InitPartition{" + "indexName='" + this.indexName + '\'' + ", partitionNo=" + this.partitionNo
+                + ", lowerKey=" + this.lowerKey + ", upperKey=" + this.upperKey + ", rowCount=" + this.rowCount
+                + ", status=" + this.status + '}';
+    }
+
+    public enum Status {
+
+        /**
+         * Constant that indicates the partition is waiting for a thread.
+         */
+        PENDING,
+
+        /**
+         * Constant that indicates the partition is reading and indexing.
+         */
+        RUNNING,
+
+        /**
+         * Constant that indicates all documents of the partition are acknowledged.
+         */
+        DONE,
+
+        /**
+         * Constant that indicates the partition stopped by an error.
+         */
+        FAILED,
+
+        /**
+         * Constant that indicates the partition is stopped because the init is stopped or
+         * another partition failed.
+         */
+        CANCELLED
+
+    }
+
+}
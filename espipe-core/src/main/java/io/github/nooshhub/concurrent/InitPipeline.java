@@ -0,0 +1,109 @@
+/*
+ * Copyright 2021-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.nooshhub.concurrent;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Time spent by the stages of the init pipeline of one index. The cursor stage reads rows,
+ * the enrich stage loads extension fields and the bulk stage encodes bulk requests. The
+ * enrich wait is the time the cursor waited for a free slot of the full enrich stage,
+ * and the backpressure is the time the cursor waited for the bulk requests in flight.
+ *
+ * @author Neal Shan
+ * @since 10/18/2026
+ */
+public class InitPipeline {
+
+    private final AtomicLong batches = new AtomicLong();
+
+    private final AtomicLong enrichWaitNanos = new AtomicLong();
+
+    private final AtomicLong readNanos = new AtomicLong();
+
+    private final AtomicLong enrichNanos = new AtomicLong();
+
+    private final AtomicLong bulkNanos = new AtomicLong();
+
+    private final AtomicLong backpressureNanos = new AtomicLong();
+
+    public long getBatches() {
+        return this.batches.get();
+    }
+
+    public long getEnrichWaitMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(this.enrichWaitNanos.get());
+    }
+
+    public long getReadMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(this.readNanos.get());
+    }
+
+    public long getEnrichMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(this.enrichNanos.get());
+    }
+
+    public long getBulkMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(this.bulkNanos.get());
+    }
+
+    public long getBackpressureMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(this.backpressureNanos.get());
+    }
+
+    public void addRead(long nanos) {
+        this.readNanos.addAndGet(nanos);
+    }
+
+    /**
+     * add an enriched batch.
+     * @param nanos enrich time
+     */
+    public void addEnrich(long nanos) {
+        this.batches.incrementAndGet();
+        this.enrichNanos.addAndGet(nanos);
+    }
+
+    /**
+     * add the time the cursor waited for a free slot of the enrich stage.
+     * @param nanos wait time
+     */
+    public void addEnrichWait(long nanos) {
+        this.enrichWaitNanos.addAndGet(nanos);
+    }
+
+    public void addBulk(long nanos) {
+        this.bulkNanos.addAndGet(nanos);
+    }
+
+    /**
+     * add the time the cursor waited for a bulk request in flight to be acknowledged.
+     * @param nanos wait time
+     */
+    public void addBackpressure(long nanos) {
+        this.backpressureNanos.addAndGet(nanos);
+    }
+
+    @Override
+    public String toString() {
+        return "InitPipeline{" + "batches=" + this.batches + ", readMillis=" + getReadMillis() + ", enrichMillis="
+                + getEnrichMillis() + ", enrichWaitMillis=" + getEnrichWaitMillis() + ", bulkMillis="
+                + getBulkMillis() + ", backpressureMillis=" + getBackpressureMillis() + '}';
+    }
+
+}
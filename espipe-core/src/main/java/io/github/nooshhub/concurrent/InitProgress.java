@@ -0,0 +1,163 @@
+/*
+ * Copyright 2021-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.nooshhub.concurrent;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Progress of the init of one index or one partition. The percentage and the eta are
+ * based on the acknowledged documents against the rows estimated before init, the rate
+ * is measured over the last rate window.
+ *
+ * @author Neal Shan
+ * @since 10/18/2026
+ */
+public class InitProgress {
+
+    private static final long RATE_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private final AtomicLong rowsRead = new AtomicLong();
+
+    private final AtomicLong rowsEnriched = new AtomicLong();
+
+    private final AtomicLong docsAcked = new AtomicLong();
+
+    private final AtomicLong bytesSent = new AtomicLong();
+
+    private volatile long estimatedRows = -1;
+
+    private volatile long startNanos = System.nanoTime();
+
+    private long windowNanos = this.startNanos;
+
+    private long windowAcked;
+
+    private volatile double rowsPerSecond;
+
+    /**
+     * restart the clock of the rate, e.g. when a pending partition gets its thread.
+     */
+    public synchronized void start() {
+        this.startNanos = System.nanoTime();
+        this.windowNanos = this.startNanos;
+        this.windowAcked = this.docsAcked.get();
+    }
+
+    public long getEstimatedRows() {
+        return this.estimatedRows;
+    }
+
+    /**
+     * set the estimated rows.
+     * @param estimatedRows estimated rows, -1 if unknown
+     */
+    public void setEstimatedRows(long estimatedRows) {
+        this.estimatedRows = estimatedRows;
+    }
+
+    public long getRowsRead() {
+        return this.rowsRead.get();
+    }
+
+    public void addRead(long rows) {
+        this.rowsRead.addAndGet(rows);
+    }
+
+    public long getRowsEnriched() {
+        return this.rowsEnriched.get();
+    }
+
+    public void addEnriched(long rows) {
+        this.rowsEnriched.addAndGet(rows);
+    }
+
+    public long getBytesSent() {
+        return this.bytesSent.get();
+    }
+
+    public void addSent(long bytes) {
+        this.bytesSent.addAndGet(bytes);
+    }
+
+    public long getDocsAcked() {
+        return this.docsAcked.get();
+    }
+
+    /**
+     * add acknowledged documents, the rate is updated once per rate window.
+     * @param docs acknowledged documents
+     */
+    public void addAcked(long docs) {
+        long acked = this.docsAcked.addAndGet(docs);
+        synchronized (this) {
+            long now = System.nanoTime();
+            long elapsed = now - this.windowNanos;
+            if (elapsed >= RATE_WINDOW_NANOS) {
+                this.rowsPerSecond = (acked - this.windowAcked) * (double) TimeUnit.SECONDS.toNanos(1) / elapsed;
+                this.windowNanos = now;
+                this.windowAcked = acked;
+            }
+        }
+    }
+
+    /**
+     * acknowledged rows per second of the last rate window, or since start within the
+     * first window.
+     * @return rows per second
+     */
+    public double getRowsPerSecond() {
+        if (this.rowsPerSecond > 0) {
+            return this.rowsPerSecond;
+        }
+        long elapsed = System.nanoTime() - this.startNanos;
+        return (elapsed > 0) ? this.docsAcked.get() * (double) TimeUnit.SECONDS.toNanos(1) / elapsed : 0;
+    }
+
+    /**
+     * acknowledged documents against the estimated rows.
+     * @return percentage up to 100, -1 if the rows are not estimated
+     */
+    public double getPercent() {
+        long estimated = this.estimatedRows;
+        if (estimated < 0) {
+            return -1;
+        }
+        return (estimated != 0) ? Math.min(100, this.docsAcked.get() * 100.0 / estimated) : 100;
+    }
+
+    /**
+     * seconds to acknowledge the rest of the estimated rows at the current rate.
+     * @return eta seconds, -1 if the rows are not estimated or nothing is acknowledged yet
+     */
+    public long getEtaSeconds() {
+        long estimated = this.estimatedRows;
+        double rate = getRowsPerSecond();
+        if (estimated < 0 || rate <= 0) {
+            return -1;
+        }
+        return (long) Math.ceil(Math.max(0, estimated - this.docsAcked.get()) / rate);
+    }
+
+    @Override
+    public String toString() {
+        return "InitProgress{" + "estimatedRows=" + this.estimatedRows + ", rowsRead=" + this.rowsRead
+                + ", rowsEnriched=" + this.rowsEnriched + ", docsAcked=" + this.docsAcked + ", bytesSent="
+                + this.bytesSent + ", percent=" + getPercent() + ", etaSeconds=" + getEtaSeconds() + '}';
+    }
+
+}
@@ -16,6 +16,7 @@
 
 package io.github.nooshhub.concurrent;
 
+import java.util.List;
 import java.util.Map;
 
 import io.github.nooshhub.dao.JdbcDao;
@@ -34,19 +35,52 @@ public class InitTask implements Runnable {
 
     private final Map<String, String> idAndValueMap;
 
+    private final boolean resume;
+
+    private final List<String> sharedIndexNames;
+
     public InitTask(JdbcDao jdbcDao, String indexName) {
         this(jdbcDao, indexName, null);
     }
 
+    public InitTask(JdbcDao jdbcDao, String indexName, boolean resume) {
+        this.jdbcDao = jdbcDao;
+        this.indexName = indexName;
+        this.idAndValueMap = null;
+        this.resume = resume;
+        this.sharedIndexNames = null;
+    }
+
     public InitTask(JdbcDao jdbcDao, String indexName, Map<String, String> idAndValueMap) {
         this.jdbcDao = jdbcDao;
         this.indexName = indexName;
         this.idAndValueMap = idAndValueMap;
+        this.resume = false;
+        this.sharedIndexNames = null;
+    }
+
+    /**
+     * init the indices that share init.sql by one scan.
+     * @param jdbcDao jdbc dao
+     * @param sharedIndexNames indices of the shared scan
+     */
+    public InitTask(JdbcDao jdbcDao, List<String> sharedIndexNames) {
+        this.jdbcDao = jdbcDao;
+        this.indexName = sharedIndexNames.get(0);
+        this.idAndValueMap = null;
+        this.resume = false;
+        this.sharedIndexNames = sharedIndexNames;
     }
 
     @Override
     public void run() {
-        if (this.idAndValueMap == null) {
+        if (this.sharedIndexNames != null) {
+            this.jdbcDao.initShared(this.sharedIndexNames);
+        }
+        else if (this.resume) {
+            this.jdbcDao.resumeInit(this.indexName);
+        }
+        else if (this.idAndValueMap == null) {
             this.jdbcDao.init(this.indexName);
         }
         else {
@@ -17,27 +17,56 @@
 package io.github.nooshhub.concurrent;
 
 import io.github.nooshhub.dao.JdbcDao;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
- * Init index thread.
+ * Sync index thread, run by a poll or woken by a notification.
  *
  * @author Neal Shan
  * @since 6/12/2022
  */
 public class SyncTask implements Runnable {
 
+    private static final Logger logger = LoggerFactory.getLogger(SyncTask.class);
+
     private final JdbcDao jdbcDao;
 
     private final String indexName;
 
-    public SyncTask(JdbcDao jdbcDao, String indexName) {
+    private final SyncTrigger syncTrigger;
+
+    private final boolean wake;
+
+    private final long notifyTimeoutMillis;
+
+    public SyncTask(JdbcDao jdbcDao, String indexName, SyncTrigger syncTrigger, boolean wake,
+            long notifyTimeoutMillis) {
         this.jdbcDao = jdbcDao;
         this.indexName = indexName;
+        this.syncTrigger = syncTrigger;
+        this.wake = wake;
+        this.notifyTimeoutMillis = notifyTimeoutMillis;
     }
 
     @Override
     public void run() {
-        this.jdbcDao.sync(this.indexName);
+        if (this.wake) {
+            this.syncTrigger.wake(this::sync);
+        }
+        else {
+            this.syncTrigger.poll(this::sync, this.notifyTimeoutMillis);
+        }
+    }
+
+    private void sync() {
+        // a failed sync must not cancel the polls of the index, the next poll retries it
+        try {
+            this.jdbcDao.sync(this.indexName);
+        }
+        catch (RuntimeException ex) {
+            logger.error("Sync index {} failed", this.indexName, ex);
+        }
     }
 
     public String getIndexName() {
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2021-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.nooshhub.concurrent;
+
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sync trigger of one index, polls and notifications both run the sync of the index, one
+ * at a time. A burst of notifications wakes one sync, and polls are skipped while the
+ * notifications arrive. Nobody waits for a running sync, a poll is skipped and a wake is
+ * handed over to the running sync, which syncs once more.
+ *
+ * @author Neal Shan
+ * @since 10/18/2026
+ */
+public class SyncTrigger {
+
+    private final AtomicBoolean wakePending = new AtomicBoolean();
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private final AtomicBoolean rerun = new AtomicBoolean();
+
+    private volatile boolean stopped;
+
+    private volatile Future<?> pendingWake;
+
+    private final AtomicLong notifications = new AtomicLong();
+
+    private final AtomicLong wakes = new AtomicLong();
+
+    private final AtomicLong polls = new AtomicLong();
+
+    private final AtomicLong skippedPolls = new AtomicLong();
+
+    private volatile long lastSignalMillis;
+
+    private volatile long lastSyncMillis;
+
+    /**
+     * record a notification.
+     * @return true if a wake should be scheduled, false if one is pending already or the
+     * sync is stopped
+     */
+    public boolean notifyChange() {
+        this.notifications.incrementAndGet();
+        this.lastSignalMillis = System.currentTimeMillis();
+        return !this.stopped && this.wakePending.compareAndSet(false, true);
+    }
+
+    /**
+     * keep the scheduled wake, so it is cancelled when the sync stops.
+     * @param wake scheduled wake
+     */
+    public void setPendingWake(Future<?> wake) {
+        this.pendingWake = wake;
+        if (this.stopped) {
+            wake.cancel(true);
+        }
+    }
+
+    /**
+     * stop the trigger, the pending wake is cancelled and no other wake is scheduled.
+     */
+    public void stop() {
+        this.stopped = true;
+        final Future<?> wake = this.pendingWake;
+        if (wake != null) {
+            wake.cancel(true);
+        }
+    }
+
+    /**
+     * record that the notification source is alive without a change.
+     */
+    public void heartbeat() {
+        this.lastSignalMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * run the sync of a wake, the notifications that arrive from now on wake another sync.
+     * @param sync sync of the index
+     */
+    public void wake(Runnable sync) {
+        if (this.stopped) {
+            return;
+        }
+        this.wakePending.set(false);
+        this.wakes.incrementAndGet();
+        this.rerun.set(true);
+        runHandedOver(sync);
+    }
+
+    /**
+     * run the sync of a poll, unless the notifications are alive and the index was synced
+     * within the timeout.
+     * @param sync sync of the index
+     * @param notifyTimeoutMillis notify timeout
+     */
+    public void poll(Runnable sync, long notifyTimeoutMillis) {
+        final long now = System.currentTimeMillis();
+        if (now - this.lastSignalMillis < notifyTimeoutMillis && now - this.lastSyncMillis < notifyTimeoutMillis) {
+            this.skippedPolls.incrementAndGet();
+            return;
+        }
+        // the running sync reads the changes of this poll already
+        if (!this.running.compareAndSet(false, true)) {
+            this.skippedPolls.incrementAndGet();
+            return;
+        }
+        this.polls.incrementAndGet();
+        run(sync);
+        runHandedOver(sync);
+    }
+
+    /**
+     * run the syncs of the wakes handed over, unless another thread runs them already.
+     * @param sync sync of the index
+     */
+    private void runHandedOver(Runnable sync) {
+        while (this.rerun.get() && this.running.compareAndSet(false, true)) {
+            this.rerun.set(false);
+            run(sync);
+        }
+    }
+
+    /**
+     * run the sync while holding the running flag, and release it.
+     * @param sync sync of the index
+     */
+    private void run(Runnable sync) {
+        try {
+            sync.run();
+        }
+        finally {
+            this.lastSyncMillis = System.currentTimeMillis();
+            this.running.set(false);
+        }
+    }
+
+    public long getNotifications() {
+        return this.notifications.get();
+    }
+
+    public long getWakes() {
+        return this.wakes.get();
+    }
+
+    public long getPolls() {
+        return this.polls.get();
+    }
+
+    public long getSkippedPolls() {
+        return this.skippedPolls.get();
+    }
+
+    @Override
+    public String toString() {
+        return "SyncTrigger{" + "notifications=" + this.notifications + ", wakes=" + this.wakes + ", polls="
+                + this.polls + ", skippedPolls=" + this.skippedPolls + '}';
+    }
+
+}
@@ -16,6 +16,7 @@
 
 package io.github.nooshhub.concurrent;
 
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Future;
@@ -36,6 +37,18 @@ public final class TaskManager {
 
     private static final Map<String, ScheduledFuture> syncInProgress = new ConcurrentHashMap<>();
 
+    private static final Map<String, SyncTrigger> syncTriggers = new ConcurrentHashMap<>();
+
+    private static final Map<String, List<InitPartition>> initPartitions = new ConcurrentHashMap<>();
+
+    private static final Map<String, InitPipeline> initPipelines = new ConcurrentHashMap<>();
+
+    private static final Map<String, InitProgress> initProgresses = new ConcurrentHashMap<>();
+
+    private static final Map<String, BulkController> bulkControllers = new ConcurrentHashMap<>();
+
+    private static final Map<String, BulkRetries> bulkRetries = new ConcurrentHashMap<>();
+
     public static Map<String, Future> getInitInProgress() {
         return initInProgress;
     }
@@ -44,4 +57,28 @@ public final class TaskManager {
         return syncInProgress;
     }
 
+    public static Map<String, SyncTrigger> getSyncTriggers() {
+        return syncTriggers;
+    }
+
+    public static Map<String, List<InitPartition>> getInitPartitions() {
+        return initPartitions;
+    }
+
+    public static Map<String, InitPipeline> getInitPipelines() {
+        return initPipelines;
+    }
+
+    public static Map<String, InitProgress> getInitProgresses() {
+        return initProgresses;
+    }
+
+    public static Map<String, BulkController> getBulkControllers() {
+        return bulkControllers;
+    }
+
+    public static Map<String, BulkRetries> getBulkRetries() {
+        return bulkRetries;
+    }
+
 }
@@ -39,6 +39,11 @@ import org.springframework.context.annotation.Configuration;
 @Configuration
 public class ElasticsearchConfiguration {
 
+    /**
+     * date format of documents.
+     */
+    public static final String DATE_FORMAT = "yyyy-MM-dd'T'hh:mm:ss.SSS'Z'";
+
     /**
      * create a ElasticsearchClient java bean.
      * @param espipeElasticsearchProperties espipe elasticsearch properties from
@@ -62,7 +67,7 @@ public class ElasticsearchConfiguration {
 
         // Create the transport with a Jackson mapper
         final JacksonJsonpMapper mapper = new JacksonJsonpMapper();
-        mapper.objectMapper().setDateFormat(new SimpleDateFormat("yyyy-MM-dd'T'hh:mm:ss.SSS'Z'"));
+        mapper.objectMapper().setDateFormat(new SimpleDateFormat(DATE_FORMAT));
         ElasticsearchTransport transport = new RestClientTransport(restClient, mapper);
 
         // And create the API client
@@ -92,7 +97,7 @@ public class ElasticsearchConfiguration {
 
         // Create the transport with a Jackson mapper
         final JacksonJsonpMapper mapper = new JacksonJsonpMapper();
-        mapper.objectMapper().setDateFormat(new SimpleDateFormat("yyyy-MM-dd'T'hh:mm:ss.SSS'Z'"));
+        mapper.objectMapper().setDateFormat(new SimpleDateFormat(DATE_FORMAT));
         ElasticsearchTransport transport = new RestClientTransport(restClient, mapper);
 
         // And create the API client
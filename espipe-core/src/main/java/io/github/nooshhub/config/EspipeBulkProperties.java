@@ -0,0 +1,154 @@
+/*
+ * Copyright 2021-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.nooshhub.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Espipe Bulk Properties, the bounds of the controller that adapts the batch size and
+ * the bulk requests in flight of an index to the latency of the cluster.
+ *
+ * @author Neal Shan
+ * @since 10/18/2026
+ */
+@Component
+@ConfigurationProperties(prefix = "espipe.bulk")
+public class EspipeBulkProperties {
+
+    /**
+     * false keeps the bulk size and the in flight bound of the index as configured.
+     */
+    private boolean adaptive = true;
+
+    /**
+     * the batch size and the bulk requests in flight grow while the latency of a bulk
+     * request stays under the target.
+     */
+    private long targetLatencyMillis = 2000;
+
+    /**
+     * a bulk request slower than this is a spike, it halves the batch size and the bulk
+     * requests in flight as a rejection does.
+     */
+    private long spikeLatencyMillis = 6000;
+
+    private int minBatchSize = 1000;
+
+    private int maxBatchSize = 24000;
+
+    /**
+     * rows added to the batch size per bulk request under the target latency.
+     */
+    private int batchSizeStep = 1000;
+
+    private int maxInFlight = 16;
+
+    /**
+     * retries of a document rejected by a full write queue or an unavailable shard, 0
+     * disables the retries.
+     */
+    private int maxRetries = 3;
+
+    /**
+     * backoff of the first retry, it doubles per retry up to the max retry backoff.
+     */
+    private long retryBackoffMillis = 200;
+
+    private long maxRetryBackoffMillis = 10000;
+
+    public boolean isAdaptive() {
+        return this.adaptive;
+    }
+
+    public void setAdaptive(boolean adaptive) {
+        this.adaptive = adaptive;
+    }
+
+    public long getTargetLatencyMillis() {
+        return this.targetLatencyMillis;
+    }
+
+    public void setTargetLatencyMillis(long targetLatencyMillis) {
+        this.targetLatencyMillis = targetLatencyMillis;
+    }
+
+    public long getSpikeLatencyMillis() {
+        return this.spikeLatencyMillis;
+    }
+
+    public void setSpikeLatencyMillis(long spikeLatencyMillis) {
+        this.spikeLatencyMillis = spikeLatencyMillis;
+    }
+
+    public int getMinBatchSize() {
+        return this.minBatchSize;
+    }
+
+    public void setMinBatchSize(int minBatchSize) {
+        this.minBatchSize = minBatchSize;
+    }
+
+    public int getMaxBatchSize() {
+        return this.maxBatchSize;
+    }
+
+    public void setMaxBatchSize(int maxBatchSize) {
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    public int getBatchSizeStep() {
+        return this.batchSizeStep;
+    }
+
+    public void setBatchSizeStep(int batchSizeStep) {
+        this.batchSizeStep = batchSizeStep;
+    }
+
+    public int getMaxInFlight() {
+        return this.maxInFlight;
+    }
+
+    public void setMaxInFlight(int maxInFlight) {
+        this.maxInFlight = maxInFlight;
+    }
+
+    public int getMaxRetries() {
+        return this.maxRetries;
+    }
+
+    public void setMaxRetries(int maxRetries) {
+        this.maxRetries = maxRetries;
+    }
+
+    public long getRetryBackoffMillis() {
+        return this.retryBackoffMillis;
+    }
+
+    public void setRetryBackoffMillis(long retryBackoffMillis) {
+        this.retryBackoffMillis = retryBackoffMillis;
+    }
+
+    public long getMaxRetryBackoffMillis() {
+        return this.maxRetryBackoffMillis;
+    }
+
+    public void setMaxRetryBackoffMillis(long maxRetryBackoffMillis) {
+        this.maxRetryBackoffMillis = maxRetryBackoffMillis;
+    }
+
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2021-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.nooshhub.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Espipe Bulkhead Properties, connections and threads of the init, sync and fix
+ * workloads, a workload never borrows the connections or threads of another one.
+ *
+ * @author Neal Shan
+ * @since 10/18/2026
+ */
+@Component
+@ConfigurationProperties(prefix = "espipe.bulkhead")
+public class EspipeBulkheadProperties {
+
+    /**
+     * connections of init queries, null means the connections init may hold at once: the
+     * cursor of every init thread, two with a merge join, and one per partition, enrich
+     * and extension thread.
+     */
+    private Integer initPoolSize;
+
+    /**
+     * threads of init tasks, null means availableProcessors / 5 + 3.
+     */
+    private Integer initThreads;
+
+    /**
+     * threads of init partitions shared by all indices, null means the most
+     * init_partitions of the indices.
+     */
+    private Integer partitionThreads;
+
+    /**
+     * threads of the enrich stage of init, an enrich thread looks up the first chunk of
+     * extension ids of a batch.
+     */
+    private int enrichThreads = 2;
+
+    /**
+     * threads of the extension queries of init, they look up the other chunks of a batch.
+     */
+    private int extensionThreads = 2;
+
+    /**
+     * threads that resend the halves of a too large bulk request and the retries after
+     * their backoff.
+     */
+    private int bulkThreads = 2;
+
+    /**
+     * connections of sync queries.
+     */
+    private int syncPoolSize = 4;
+
+    /**
+     * threads of sync tasks, null means availableProcessors / 5 + 1.
+     */
+    private Integer syncThreads;
+
+    /**
+     * connections of fix queries.
+     */
+    private int fixPoolSize = 2;
+
+    /**
+     * threads of fix tasks.
+     */
+    private int fixThreads = 2;
+
+    /**
+     * max connections espipe may open to the database, the primary pool included, 0
+     * means not checked.
+     */
+    private int maxConnections;
+
+    public Integer getInitPoolSize() {
+        return this.initPoolSize;
+    }
+
+    public void setInitPoolSize(Integer initPoolSize) {
+        this.initPoolSize = initPoolSize;
+    }
+
+    public int getInitThreads() {
+        return (this.initThreads != null) ? this.initThreads : Runtime.getRuntime().availableProcessors() / 5 + 3;
+    }
+
+    public void setInitThreads(Integer initThreads) {
+        this.initThreads = initThreads;
+    }
+
+    public int getBulkThreads() {
+        return this.bulkThreads;
+    }
+
+    public void setBulkThreads(int bulkThreads) {
+        this.bulkThreads = bulkThreads;
+    }
+
+    public Integer getPartitionThreads() {
+        return this.partitionThreads;
+    }
+
+    public void setPartitionThreads(Integer partitionThreads) {
+        this.partitionThreads = partitionThreads;
+    }
+
+    public int getEnrichThreads() {
+        return this.enrichThreads;
+    }
+
+    public void setEnrichThreads(int enrichThreads) {
+        this.enrichThreads = enrichThreads;
+    }
+
+    public int getExtensionThreads() {
+        return this.extensionThreads;
+    }
+
+    public void setExtensionThreads(int extensionThreads) {
+        this.extensionThreads = extensionThreads;
+    }
+
+    public int getSyncPoolSize() {
+        return this.syncPoolSize;
+    }
+
+    public void setSyncPoolSize(int syncPoolSize) {
+        this.syncPoolSize = syncPoolSize;
+    }
+
+    public int getSyncThreads() {
+        return (this.syncThreads != null) ? this.syncThreads : Runtime.getRuntime().availableProcessors() / 5 + 1;
+    }
+
+    public void setSyncThreads(Integer syncThreads) {
+        this.syncThreads = syncThreads;
+    }
+
+    public int getFixPoolSize() {
+        return this.fixPoolSize;
+    }
+
+    public void setFixPoolSize(int fixPoolSize) {
+        this.fixPoolSize = fixPoolSize;
+    }
+
+    public int getFixThreads() {
+        return this.fixThreads;
+    }
+
+    public void setFixThreads(int fixThreads) {
+        this.fixThreads = fixThreads;
+    }
+
+    public int getMaxConnections() {
+        return this.maxConnections;
+    }
+
+    public void setMaxConnections(int maxConnections) {
+        this.maxConnections = maxConnections;
+    }
+
+}
@@ -43,6 +43,12 @@ public class EspipeElasticsearchProperties {
      */
     private int bulkSize;
 
+    /**
+     * max bytes of a bulk request body, a batch is flushed by the row or the byte limit
+     * that comes first. 0 means no byte limit.
+     */
+    private long bulkBytes = 10485760;
+
     public int getBulkSize() {
         return this.bulkSize;
     }
@@ -51,6 +57,14 @@ public class EspipeElasticsearchProperties {
         this.bulkSize = bulkSize;
     }
 
+    public long getBulkBytes() {
+        return this.bulkBytes;
+    }
+
+    public void setBulkBytes(long bulkBytes) {
+        this.bulkBytes = bulkBytes;
+    }
+
     public String getHost() {
         return this.host;
     }
@@ -0,0 +1,213 @@
+/*
+ * Copyright 2021-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.nooshhub.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Espipe JDBC Properties, override the vendor defaults of {@link FetchProfileRegistry}.
+ *
+ * @author Neal Shan
+ * @since 10/18/2026
+ */
+@Component
+@ConfigurationProperties(prefix = "espipe.jdbc")
+public class EspipeJdbcProperties {
+
+    /**
+     * fetch size of init queries, null means the vendor default.
+     */
+    private Integer initFetchSize;
+
+    /**
+     * fetch size of sync queries, null means the vendor default.
+     */
+    private Integer syncFetchSize;
+
+    /**
+     * init queries run on a read-only connection.
+     */
+    private boolean readOnly = true;
+
+    /**
+     * init queries run on an auto-commit connection, cursor fetch of some vendors needs
+     * it to be false.
+     */
+    private boolean autoCommit;
+
+    /**
+     * max bytes of the rows of one init fetch, it bounds the tuned fetch size.
+     */
+    private long fetchBufferBytes = 16 * 1024 * 1024;
+
+    /**
+     * max fetch size of init queries.
+     */
+    private int maxFetchSize = 10000;
+
+    /**
+     * number of rows sampled to tune the fetch size of an init query, 0 disables tuning.
+     */
+    private int tuneRows = 5000;
+
+    /**
+     * jdbc url of a replica for init, fix and extension queries, null means the primary.
+     */
+    private String replicaUrl;
+
+    private String replicaUsername;
+
+    private String replicaPassword;
+
+    /**
+     * replica connections are read-only by default.
+     */
+    private boolean replicaReadOnly = true;
+
+    /**
+     * sync reads from the replica too, by default sync reads from the primary because the
+     * sync window ends at the clock of the app and a lagging replica may not have the
+     * rows of its end yet.
+     */
+    private boolean replicaSync;
+
+    /**
+     * the lag the replica is allowed to have, a sync window on the replica ends this long
+     * before now.
+     */
+    private long replicaLagMillis = 5000;
+
+    /**
+     * prepare the sql files of all indices against the database at startup, enabled by
+     * the profiles with a database.
+     */
+    private boolean validateSql;
+
+    public Integer getInitFetchSize() {
+        return this.initFetchSize;
+    }
+
+    public void setInitFetchSize(Integer initFetchSize) {
+        this.initFetchSize = initFetchSize;
+    }
+
+    public Integer getSyncFetchSize() {
+        return this.syncFetchSize;
+    }
+
+    public void setSyncFetchSize(Integer syncFetchSize) {
+        this.syncFetchSize = syncFetchSize;
+    }
+
+    public boolean isReadOnly() {
+        return this.readOnly;
+    }
+
+    public void setReadOnly(boolean readOnly) {
+        this.readOnly = readOnly;
+    }
+
+    public boolean isAutoCommit() {
+        return this.autoCommit;
+    }
+
+    public void setAutoCommit(boolean autoCommit) {
+        this.autoCommit = autoCommit;
+    }
+
+    public long getFetchBufferBytes() {
+        return this.fetchBufferBytes;
+    }
+
+    public void setFetchBufferBytes(long fetchBufferBytes) {
+        this.fetchBufferBytes = fetchBufferBytes;
+    }
+
+    public int getMaxFetchSize() {
+        return this.maxFetchSize;
+    }
+
+    public void setMaxFetchSize(int maxFetchSize) {
+        this.maxFetchSize = maxFetchSize;
+    }
+
+    public int getTuneRows() {
+        return this.tuneRows;
+    }
+
+    public void setTuneRows(int tuneRows) {
+        this.tuneRows = tuneRows;
+    }
+
+    public String getReplicaUrl() {
+        return this.replicaUrl;
+    }
+
+    public void setReplicaUrl(String replicaUrl) {
+        this.replicaUrl = replicaUrl;
+    }
+
+    public String getReplicaUsername() {
+        return this.replicaUsername;
+    }
+
+    public void setReplicaUsername(String replicaUsername) {
+        this.replicaUsername = replicaUsername;
+    }
+
+    public String getReplicaPassword() {
+        return this.replicaPassword;
+    }
+
+    public void setReplicaPassword(String replicaPassword) {
+        this.replicaPassword = replicaPassword;
+    }
+
+    public boolean isReplicaReadOnly() {
+        return this.replicaReadOnly;
+    }
+
+    public void setReplicaReadOnly(boolean replicaReadOnly) {
+        this.replicaReadOnly = replicaReadOnly;
+    }
+
+    public boolean isReplicaSync() {
+        return this.replicaSync;
+    }
+
+    public void setReplicaSync(boolean replicaSync) {
+        this.replicaSync = replicaSync;
+    }
+
+    public long getReplicaLagMillis() {
+        return this.replicaLagMillis;
+    }
+
+    public void setReplicaLagMillis(long replicaLagMillis) {
+        this.replicaLagMillis = replicaLagMillis;
+    }
+
+    public boolean isValidateSql() {
+        return this.validateSql;
+    }
+
+    public void setValidateSql(boolean validateSql) {
+        this.validateSql = validateSql;
+    }
+
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2021-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.nooshhub.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Espipe Sync Properties, the polling of sync tasks and the notifications that wake them.
+ *
+ * @author Neal Shan
+ * @since 10/18/2026
+ */
+@Component
+@ConfigurationProperties(prefix = "espipe.sync")
+public class EspipeSyncProperties {
+
+    /**
+     * delay between two polls of an index.
+     */
+    private long pollMillis = 5000;
+
+    /**
+     * delay between a notification and the sync it wakes, the notifications in between
+     * are coalesced into one sync.
+     */
+    private long coalesceMillis = 100;
+
+    /**
+     * polls are skipped while notifications or heartbeats arrive within this timeout,
+     * and an index is still synced once per timeout.
+     */
+    private long notifyTimeoutMillis = 60000;
+
+    public long getPollMillis() {
+        return this.pollMillis;
+    }
+
+    public void setPollMillis(long pollMillis) {
+        this.pollMillis = pollMillis;
+    }
+
+    public long getCoalesceMillis() {
+        return this.coalesceMillis;
+    }
+
+    public void setCoalesceMillis(long coalesceMillis) {
+        this.coalesceMillis = coalesceMillis;
+    }
+
+    public long getNotifyTimeoutMillis() {
+        return this.notifyTimeoutMillis;
+    }
+
+    public void setNotifyTimeoutMillis(long notifyTimeoutMillis) {
+        this.notifyTimeoutMillis = notifyTimeoutMillis;
+    }
+
+}
@@ -0,0 +1,269 @@
+/*
+ * Copyright 2021-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.nooshhub.config;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.github.nooshhub.config.FetchProfile.Workload;
+import io.github.nooshhub.exception.EspipeException;
+import io.github.nooshhub.metric.PoolMetric;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Extraction Data Source, the init, sync and fix queries read from their own pool, so a
+ * full init can not take the connections of the sync loop or the fix endpoint. The pools
+ * connect to the replica when espipe.jdbc.replica_url is set, otherwise to the primary.
+ * The sync pool stays on the primary unless espipe.jdbc.replica_sync is set. The timer and
+ * checkpoint writes always use the primary data source.
+ * <p>
+ * The pools are not beans, a second DataSource bean would turn off the data source auto
+ * configuration of the primary.
+ *
+ * @author Neal Shan
+ * @since 10/18/2026
+ */
+@Component
+public class ExtractionDataSource {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExtractionDataSource.class);
+
+    private static final String MERGE_JOIN = "merge_join";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EspipeJdbcProperties espipeJdbcProperties;
+
+    @Autowired
+    private EspipeBulkheadProperties espipeBulkheadProperties;
+
+    @Autowired
+    private FetchProfileRegistry fetchProfileRegistry;
+
+    @Autowired
+    private IndexConfigRegistry indexConfigRegistry;
+
+    private int initPoolSize;
+
+    private final Map<Workload, HikariDataSource> dataSources = new EnumMap<>(Workload.class);
+
+    private final Map<Workload, JdbcTemplate> jdbcTemplates = new EnumMap<>(Workload.class);
+
+    @PostConstruct
+    public void init() {
+        checkBulkheads();
+
+        for (Workload workload : Workload.values()) {
+            final boolean replica = isReplica(workload);
+            if (!replica && !(this.jdbcTemplate.getDataSource() instanceof HikariDataSource)) {
+                logger.warn("Primary data source is not a Hikari pool, workload {} shares it", workload);
+                this.jdbcTemplates.put(workload, this.jdbcTemplate);
+                continue;
+            }
+
+            HikariConfig config = new HikariConfig();
+            config.setPoolName("espipe-" + workload.toString().toLowerCase());
+            if (replica) {
+                config.setJdbcUrl(this.espipeJdbcProperties.getReplicaUrl());
+                config.setUsername(this.espipeJdbcProperties.getReplicaUsername());
+                config.setPassword(this.espipeJdbcProperties.getReplicaPassword());
+            }
+            else {
+                HikariDataSource primary = (HikariDataSource) this.jdbcTemplate.getDataSource();
+                config.setJdbcUrl(primary.getJdbcUrl());
+                config.setUsername(primary.getUsername());
+                config.setPassword(primary.getPassword());
+                if (primary.getDriverClassName() != null) {
+                    config.setDriverClassName(primary.getDriverClassName());
+                }
+            }
+            // connections start in the mode of the fetch profile, no switch per query
+            FetchProfile fetchProfile = this.fetchProfileRegistry.getFetchProfile(workload);
+            config.setMaximumPoolSize(poolSize(workload));
+            config.setAutoCommit(fetchProfile.isAutoCommit());
+            config.setReadOnly(fetchProfile.isReadOnly() || (replica && this.espipeJdbcProperties.isReplicaReadOnly()));
+            // the pool is started at once, a bad bulkhead fails the startup
+            HikariDataSource ds = new HikariDataSource(config);
+            this.dataSources.put(workload, ds);
+
+            // same statement settings as the primary template
+            JdbcTemplate template = new JdbcTemplate(ds);
+            template.setFetchSize(this.jdbcTemplate.getFetchSize());
+            template.setMaxRows(this.jdbcTemplate.getMaxRows());
+            template.setQueryTimeout(this.jdbcTemplate.getQueryTimeout());
+            this.jdbcTemplates.put(workload, template);
+            logger.info("Workload {} reads from pool {} of {} connections", workload, ds.getPoolName(),
+                    ds.getMaximumPoolSize());
+        }
+    }
+
+    /**
+     * every thread that reads holds one connection of its workload, so a workload must
+     * have at least as many connections as the connections its threads may hold at once,
+     * and all pools must fit in the max connections of the database. The init pool is
+     * sized to the init demand unless it is configured.
+     */
+    private void checkBulkheads() {
+        final EspipeBulkheadProperties bulkhead = this.espipeBulkheadProperties;
+        if (getPartitionThreads() < 1 || bulkhead.getEnrichThreads() < 1 || bulkhead.getExtensionThreads() < 1) {
+            throw new EspipeException("Bulkhead INIT needs at least one partition, enrich and extension thread");
+        }
+        final int initDemand = initDemand();
+        this.initPoolSize = (bulkhead.getInitPoolSize() != null) ? bulkhead.getInitPoolSize() : initDemand;
+        checkBulkhead(Workload.INIT, this.initPoolSize, initDemand);
+        checkBulkhead(Workload.SYNC, bulkhead.getSyncPoolSize(), bulkhead.getSyncThreads());
+        checkBulkhead(Workload.FIX, bulkhead.getFixPoolSize(), bulkhead.getFixThreads());
+
+        final int total = this.initPoolSize + bulkhead.getSyncPoolSize() + bulkhead.getFixPoolSize()
+                + ((this.jdbcTemplate.getDataSource() instanceof HikariDataSource)
+                        ? ((HikariDataSource) this.jdbcTemplate.getDataSource()).getMaximumPoolSize() : 0);
+        if (bulkhead.getMaxConnections() > 0 && total > bulkhead.getMaxConnections()) {
+            throw new EspipeException(String.format("Bulkhead pools need %d connections, more than max connections %d",
+                    total, bulkhead.getMaxConnections()));
+        }
+    }
+
+    private static void checkBulkhead(Workload workload, int poolSize, int demand) {
+        if (demand < 1 || poolSize < demand) {
+            throw new EspipeException(String.format(
+                    "Bulkhead %s has %d connections for %d readers, it needs at least one connection per reader",
+                    workload, poolSize, demand));
+        }
+    }
+
+    /**
+     * the connections init may hold at once. An init thread holds its cursor, and the
+     * extension cursor too with a merge join, a partition thread holds the cursor of its
+     * partition, an enrich thread looks up the first chunk of a batch and an extension
+     * thread one of the other chunks.
+     * @return connections
+     */
+    int initDemand() {
+        final EspipeBulkheadProperties bulkhead = this.espipeBulkheadProperties;
+        final boolean mergeJoin = this.indexConfigRegistry.getIndexConfigs().values().stream()
+                .anyMatch((config) -> MERGE_JOIN.equals(config.getExtensionStrategy()));
+        return bulkhead.getInitThreads() * (mergeJoin ? 2 : 1) + getPartitionThreads() + bulkhead.getEnrichThreads()
+                + bulkhead.getExtensionThreads();
+    }
+
+    /**
+     * threads of init partitions, the most init_partitions of the indices if not
+     * configured, so the partitions of one index are read at once.
+     * @return threads
+     */
+    public int getPartitionThreads() {
+        if (this.espipeBulkheadProperties.getPartitionThreads() != null) {
+            return this.espipeBulkheadProperties.getPartitionThreads();
+        }
+        return Math.max(this.indexConfigRegistry.getIndexConfigs().values().stream()
+                .mapToInt(IndexConfig::getInitPartitions).max().orElse(1), 1);
+    }
+
+    private int poolSize(Workload workload) {
+        switch (workload) {
+            case SYNC:
+                return this.espipeBulkheadProperties.getSyncPoolSize();
+            case FIX:
+                return this.espipeBulkheadProperties.getFixPoolSize();
+            default:
+                return this.initPoolSize;
+        }
+    }
+
+    /**
+     * jdbc template of the queries of a workload.
+     * @param workload workload
+     * @return jdbc template of the pool of the workload
+     */
+    public JdbcTemplate getJdbcTemplate(Workload workload) {
+        return this.jdbcTemplates.get(workload);
+    }
+
+    public boolean isReplica() {
+        return this.espipeJdbcProperties.getReplicaUrl() != null;
+    }
+
+    /**
+     * the queries of a workload read from the replica.
+     * @param workload workload
+     * @return true if they read from the replica
+     */
+    public boolean isReplica(Workload workload) {
+        return isReplica() && (workload != Workload.SYNC || this.espipeJdbcProperties.isReplicaSync());
+    }
+
+    /**
+     * the lag of the sync window, the window ends this long before now when sync reads
+     * from the replica.
+     * @return lag in millis, 0 on the primary
+     */
+    public long getSyncLagMillis() {
+        return isReplica(Workload.SYNC) ? Math.max(this.espipeJdbcProperties.getReplicaLagMillis(), 0) : 0;
+    }
+
+    /**
+     * pool metrics of the primary and every workload.
+     * @return pool metrics
+     */
+    public List<PoolMetric> poolMetrics() {
+        List<PoolMetric> poolMetrics = new ArrayList<>(this.dataSources.size() + 1);
+        addPoolMetric(poolMetrics, this.jdbcTemplate.getDataSource());
+        this.dataSources.values().forEach((ds) -> addPoolMetric(poolMetrics, ds));
+        return poolMetrics;
+    }
+
+    private static void addPoolMetric(List<PoolMetric> poolMetrics, DataSource dataSource) {
+        if (!(dataSource instanceof HikariDataSource)) {
+            return;
+        }
+        HikariDataSource ds = (HikariDataSource) dataSource;
+        PoolMetric metric = new PoolMetric();
+        metric.setPoolName(ds.getPoolName());
+        metric.setReadOnly(ds.isReadOnly());
+        metric.setMaxPoolSize(ds.getMaximumPoolSize());
+        HikariPoolMXBean pool = ds.getHikariPoolMXBean();
+        if (pool != null) {
+            metric.setActiveConnections(pool.getActiveConnections());
+            metric.setIdleConnections(pool.getIdleConnections());
+            metric.setTotalConnections(pool.getTotalConnections());
+            metric.setThreadsAwaitingConnection(pool.getThreadsAwaitingConnection());
+        }
+        poolMetrics.add(metric);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        this.dataSources.values().forEach(HikariDataSource::close);
+    }
+
+}
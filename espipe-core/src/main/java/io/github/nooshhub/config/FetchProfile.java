@@ -0,0 +1,133 @@
+/*
+ * Copyright 2021-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.nooshhub.config;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Fetch profile, how a query of one workload reads rows from the database vendor.
+ *
+ * @author Neal Shan
+ * @since 10/18/2026
+ */
+public class FetchProfile {
+
+    private final String vendor;
+
+    private final Workload workload;
+
+    private final int fetchSize;
+
+    private final boolean readOnly;
+
+    private final boolean autoCommit;
+
+    public FetchProfile(String vendor, Workload workload, int fetchSize, boolean readOnly, boolean autoCommit) {
+        this.vendor = vendor;
+        this.workload = workload;
+        this.fetchSize = fetchSize;
+        this.readOnly = readOnly;
+        this.autoCommit = autoCommit;
+    }
+
+    /**
+     * prepare a forward only and read only statement, the connection is set to the read
+     * only and auto commit mode of the profile, the pool resets them when the connection
+     * is returned.
+     * @param conn connection
+     * @param sql sql
+     * @return prepared statement
+     * @throws SQLException all sql exception
+     */
+    public PreparedStatement prepareStatement(Connection conn, String sql) throws SQLException {
+        if (conn.getAutoCommit() != this.autoCommit) {
+            conn.setAutoCommit(this.autoCommit);
+        }
+        if (conn.isReadOnly() != this.readOnly) {
+            conn.setReadOnly(this.readOnly);
+        }
+        return conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+    }
+
+    /**
+     * apply the fetch size, it must be called after the jdbc template applied its own
+     * statement settings.
+     * @param statement statement
+     * @throws SQLException all sql exception
+     */
+    public void applyFetchSize(Statement statement) throws SQLException {
+        statement.setFetchSize(this.fetchSize);
+    }
+
+    public String getVendor() {
+        return this.vendor;
+    }
+
+    public Workload getWorkload() {
+        return this.workload;
+    }
+
+    public int getFetchSize() {
+        return this.fetchSize;
+    }
+
+    /**
+     * mysql streams a result set row by row when the fetch size is Integer.MIN_VALUE.
+     * @return true if the result set is streamed row by row
+     */
+    public boolean isStreaming() {
+        return this.fetchSize == Integer.MIN_VALUE;
+    }
+
+    public boolean isReadOnly() {
+        return this.readOnly;
+    }
+
+    public boolean isAutoCommit() {
+        return this.autoCommit;
+    }
+
+    @Override
+    public String toString() {
+        return "FetchProfile{" + "vendor='" + this.vendor + '\'' + ", workload=" + this.workload + ", fetchSize="
+                + this.fetchSize + ", readOnly=" + this.readOnly + ", autoCommit=" + this.autoCommit + '}';
+    }
+
+    public enum Workload {
+
+        /**
+         * Constant that indicates long scans of init queries.
+         */
+        INIT,
+
+        /**
+         * Constant that indicates short queries of sync.
+         */
+        SYNC,
+
+        /**
+         * Constant that indicates queries of the rows to fix by id.
+         */
+        FIX
+
+    }
+
+}
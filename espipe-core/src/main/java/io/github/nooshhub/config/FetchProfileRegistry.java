@@ -0,0 +1,114 @@
+/*
+ * Copyright 2021-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.nooshhub.config;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.PostConstruct;
+
+import io.github.nooshhub.config.FetchProfile.Workload;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+/**
+ * Fetch Profile Registry, pick the streaming settings of init and sync queries by the
+ * database vendor of the active profile.
+ * <p>
+ * 1. h2, rows are fetched in pages of the fetch size.
+ * <p>
+ * 2. mysql, Connector/J reads the whole result set into heap unless the fetch size is
+ * Integer.MIN_VALUE, then rows are streamed one by one. A positive init fetch size is a
+ * cursor fetch, it needs useCursorFetch=true in the jdbc url.
+ * <p>
+ * 3. oracle, the fetch size is the row prefetch, the driver default is 10.
+ *
+ * @author Neal Shan
+ * @since 10/18/2026
+ */
+@Service
+public class FetchProfileRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(FetchProfileRegistry.class);
+
+    private static final int INIT_FETCH_SIZE = 1000;
+
+    @Value("${spring.profiles.active:h2}")
+    private String profile;
+
+    @Autowired
+    private EspipeJdbcProperties espipeJdbcProperties;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final Map<Workload, FetchProfile> fetchProfiles = new EnumMap<>(Workload.class);
+
+    /**
+     * get fetch profile of a workload.
+     * @param workload workload
+     * @return fetch profile
+     */
+    public FetchProfile getFetchProfile(Workload workload) {
+        return this.fetchProfiles.get(workload);
+    }
+
+    public List<FetchProfile> getFetchProfiles() {
+        return new ArrayList<>(this.fetchProfiles.values());
+    }
+
+    @PostConstruct
+    public void init() {
+        final int syncFetchSize = Math.max(this.jdbcTemplate.getFetchSize(), 0);
+        final int initFetchSize;
+        switch (this.profile) {
+            case "mysql":
+                initFetchSize = Integer.MIN_VALUE;
+                break;
+            case "h2":
+            case "oracle":
+                initFetchSize = INIT_FETCH_SIZE;
+                break;
+            default:
+                initFetchSize = syncFetchSize;
+        }
+
+        this.fetchProfiles.put(Workload.INIT,
+                new FetchProfile(this.profile, Workload.INIT,
+                        orDefault(this.espipeJdbcProperties.getInitFetchSize(), initFetchSize),
+                        this.espipeJdbcProperties.isReadOnly(), this.espipeJdbcProperties.isAutoCommit()));
+        // sync queries are short, keep the connection defaults
+        this.fetchProfiles.put(Workload.SYNC, new FetchProfile(this.profile, Workload.SYNC,
+                orDefault(this.espipeJdbcProperties.getSyncFetchSize(), syncFetchSize), false, true));
+        this.fetchProfiles.put(Workload.FIX, new FetchProfile(this.profile, Workload.FIX,
+                orDefault(this.espipeJdbcProperties.getSyncFetchSize(), syncFetchSize), false, true));
+
+        this.fetchProfiles.values().forEach((fetchProfile) -> logger.info("Using {}", fetchProfile));
+    }
+
+    private static int orDefault(Integer value, int defaultValue) {
+        return (value != null) ? value : defaultValue;
+    }
+
+}
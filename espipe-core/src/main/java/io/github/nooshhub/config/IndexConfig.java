@@ -16,6 +16,9 @@
 
 package io.github.nooshhub.config;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Index configuration for init index script and sync sql.
  *
@@ -38,12 +41,62 @@ public class IndexConfig {
 
     private String deleteSql;
 
+    private String estimateSql;
+
     private String extensionSql;
 
+    private String extensionAllSql;
+
+    private String extensionSyncSql;
+
+    // sql templates, parsed once
+    private SqlTemplate initTemplate;
+
+    private SqlTemplate syncTemplate;
+
+    private SqlTemplate deleteTemplate;
+
+    private SqlTemplate estimateTemplate;
+
+    private SqlTemplate extensionTemplate;
+
+    private SqlTemplate extensionAllTemplate;
+
+    private SqlTemplate extensionSyncTemplate;
+
     private String idColumns;
 
     private String extensionColumn;
 
+    private String extensionStrategy = "lookup";
+
+    // init
+    private int initPartitions = 1;
+
+    private int initPageSize;
+
+    private String initEstimate = "none";
+
+    private String sharedScan;
+
+    private int initMaxInFlight = 4;
+
+    // sync
+    private String watermarkColumn;
+
+    private long watermarkOverlap;
+
+    private int syncPageSize;
+
+    private String outboxTable;
+
+    private int outboxBatchSize;
+
+    // write
+    private String writeMode = "create";
+
+    private String[] versionColumns = {"mod_date"};
+
     public String getIndexName() {
         return this.indexName;
     }
@@ -100,6 +153,22 @@ public class IndexConfig {
         this.extensionSql = extensionSql;
     }
 
+    public String getExtensionAllSql() {
+        return this.extensionAllSql;
+    }
+
+    public void setExtensionAllSql(String extensionAllSql) {
+        this.extensionAllSql = extensionAllSql;
+    }
+
+    public String getExtensionSyncSql() {
+        return this.extensionSyncSql;
+    }
+
+    public void setExtensionSyncSql(String extensionSyncSql) {
+        this.extensionSyncSql = extensionSyncSql;
+    }
+
     public String getIdColumns() {
         return this.idColumns;
     }
@@ -116,4 +185,198 @@ public class IndexConfig {
         this.extensionColumn = extensionColumn;
     }
 
+    public String getExtensionStrategy() {
+        return this.extensionStrategy;
+    }
+
+    public void setExtensionStrategy(String extensionStrategy) {
+        this.extensionStrategy = extensionStrategy;
+    }
+
+    public int getInitPartitions() {
+        return this.initPartitions;
+    }
+
+    public void setInitPartitions(int initPartitions) {
+        this.initPartitions = initPartitions;
+    }
+
+    public int getInitPageSize() {
+        return this.initPageSize;
+    }
+
+    public void setInitPageSize(int initPageSize) {
+        this.initPageSize = initPageSize;
+    }
+
+    public String getWatermarkColumn() {
+        return this.watermarkColumn;
+    }
+
+    public void setWatermarkColumn(String watermarkColumn) {
+        this.watermarkColumn = watermarkColumn;
+    }
+
+    public long getWatermarkOverlap() {
+        return this.watermarkOverlap;
+    }
+
+    public void setWatermarkOverlap(long watermarkOverlap) {
+        this.watermarkOverlap = watermarkOverlap;
+    }
+
+    public int getSyncPageSize() {
+        return this.syncPageSize;
+    }
+
+    public void setSyncPageSize(int syncPageSize) {
+        this.syncPageSize = syncPageSize;
+    }
+
+    public String getOutboxTable() {
+        return this.outboxTable;
+    }
+
+    public void setOutboxTable(String outboxTable) {
+        this.outboxTable = outboxTable;
+    }
+
+    public String getEstimateSql() {
+        return this.estimateSql;
+    }
+
+    public void setEstimateSql(String estimateSql) {
+        this.estimateSql = estimateSql;
+    }
+
+    public String getInitEstimate() {
+        return this.initEstimate;
+    }
+
+    public void setInitEstimate(String initEstimate) {
+        this.initEstimate = initEstimate;
+    }
+
+    public int getInitMaxInFlight() {
+        return this.initMaxInFlight;
+    }
+
+    public void setInitMaxInFlight(int initMaxInFlight) {
+        this.initMaxInFlight = initMaxInFlight;
+    }
+
+    public String getSharedScan() {
+        return this.sharedScan;
+    }
+
+    public void setSharedScan(String sharedScan) {
+        this.sharedScan = sharedScan;
+    }
+
+    public int getOutboxBatchSize() {
+        return this.outboxBatchSize;
+    }
+
+    public void setOutboxBatchSize(int outboxBatchSize) {
+        this.outboxBatchSize = outboxBatchSize;
+    }
+
+    public String getWriteMode() {
+        return this.writeMode;
+    }
+
+    public void setWriteMode(String writeMode) {
+        this.writeMode = writeMode;
+    }
+
+    /**
+     * documents are indexed with an external version from the version columns, a write of
+     * a lower version is rejected by elasticsearch as a version conflict and a write of the
+     * same version is applied.
+     * @return true if the write mode is external
+     */
+    public boolean isExternalVersion() {
+        return "external".equals(this.writeMode);
+    }
+
+    public String[] getVersionColumns() {
+        return this.versionColumns;
+    }
+
+    public void setVersionColumns(String[] versionColumns) {
+        this.versionColumns = versionColumns;
+    }
+
+    public SqlTemplate getInitTemplate() {
+        return this.initTemplate;
+    }
+
+    public void setInitTemplate(SqlTemplate initTemplate) {
+        this.initTemplate = initTemplate;
+    }
+
+    public SqlTemplate getSyncTemplate() {
+        return this.syncTemplate;
+    }
+
+    public void setSyncTemplate(SqlTemplate syncTemplate) {
+        this.syncTemplate = syncTemplate;
+    }
+
+    public SqlTemplate getDeleteTemplate() {
+        return this.deleteTemplate;
+    }
+
+    public void setDeleteTemplate(SqlTemplate deleteTemplate) {
+        this.deleteTemplate = deleteTemplate;
+    }
+
+    public SqlTemplate getEstimateTemplate() {
+        return this.estimateTemplate;
+    }
+
+    public void setEstimateTemplate(SqlTemplate estimateTemplate) {
+        this.estimateTemplate = estimateTemplate;
+    }
+
+    public SqlTemplate getExtensionTemplate() {
+        return this.extensionTemplate;
+    }
+
+    public void setExtensionTemplate(SqlTemplate extensionTemplate) {
+        this.extensionTemplate = extensionTemplate;
+    }
+
+    public SqlTemplate getExtensionAllTemplate() {
+        return this.extensionAllTemplate;
+    }
+
+    public void setExtensionAllTemplate(SqlTemplate extensionAllTemplate) {
+        this.extensionAllTemplate = extensionAllTemplate;
+    }
+
+    public SqlTemplate getExtensionSyncTemplate() {
+        return this.extensionSyncTemplate;
+    }
+
+    public void setExtensionSyncTemplate(SqlTemplate extensionSyncTemplate) {
+        this.extensionSyncTemplate = extensionSyncTemplate;
+    }
+
+    /**
+     * the sql templates of the sql files that exist and are not blank.
+     * @return sql templates
+     */
+    public List<SqlTemplate> getSqlTemplates() {
+        List<SqlTemplate> templates = new ArrayList<>();
+        for (SqlTemplate template : new SqlTemplate[] { this.initTemplate, this.syncTemplate, this.deleteTemplate,
+                this.estimateTemplate, this.extensionTemplate, this.extensionAllTemplate,
+                this.extensionSyncTemplate }) {
+            if (template != null && !template.getSql().isBlank()) {
+                templates.add(template);
+            }
+        }
+        return templates;
+    }
+
 }
@@ -19,20 +19,29 @@ package io.github.nooshhub.config;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.sql.ParameterMetaData;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 
 import javax.annotation.PostConstruct;
 
+import io.github.nooshhub.config.SqlTemplate.Role;
 import io.github.nooshhub.exception.EspipeException;
 import io.github.nooshhub.support.IOUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 
 /**
@@ -66,23 +75,79 @@ public class IndexConfigRegistry {
 
     private static final String DELETE_SQL_NAME = "/sql/delete.sql";
 
+    private static final String ESTIMATE_SQL_NAME = "/sql/estimate.sql";
+
     private static final String EXTENSION_SQL_NAME = "/sql/extension.sql";
 
+    private static final String EXTENSION_ALL_SQL_NAME = "/sql/extension_all.sql";
+
+    private static final String EXTENSION_SYNC_SQL_NAME = "/sql/extension_sync.sql";
+
     private static final String SQL_PROPERTIES_NAME = "/sql/sql.properties";
 
     private static final String ID_COLUMNS_NAME = "id_columns";
 
     private static final String EXTENSION_COLUMN_NAME = "extension_column";
 
+    private static final String EXTENSION_STRATEGY_NAME = "extension_strategy";
+
+    private static final String MERGE_JOIN = "merge_join";
+
+    private static final String NONE = "none";
+
+    private static final String STATISTICS = "statistics";
+
+    private static final String COUNT = "count";
+
+    private static final String INIT_PARTITIONS_NAME = "init_partitions";
+
+    private static final String INIT_PAGE_SIZE_NAME = "init_page_size";
+
+    private static final String INIT_ESTIMATE_NAME = "init_estimate";
+
+    private static final String SHARED_SCAN_NAME = "shared_scan";
+
+    private static final String INIT_MAX_IN_FLIGHT_NAME = "init_max_in_flight";
+
+    private static final String WATERMARK_COLUMN_NAME = "watermark_column";
+
+    private static final String WATERMARK_OVERLAP_NAME = "watermark_overlap";
+
+    private static final String SYNC_PAGE_SIZE_NAME = "sync_page_size";
+
+    private static final String OUTBOX_TABLE_NAME = "outbox_table";
+
+    private static final String OUTBOX_BATCH_SIZE_NAME = "outbox_batch_size";
+
+    private static final String WRITE_MODE_NAME = "write_mode";
+
+    private static final String VERSION_COLUMN_NAME = "version_column";
+
     @Value("${spring.profiles.active:h2}")
     private String profile;
 
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EspipeJdbcProperties espipeJdbcProperties;
+
     private final Map<String, IndexConfig> configs = new HashMap<>();
 
+    private final List<List<String>> sharedScans = new ArrayList<>();
+
     public Map<String, IndexConfig> getIndexConfigs() {
         return this.configs;
     }
 
+    /**
+     * indices that share the scan of init.sql.
+     * @return index names of every shared scan
+     */
+    public List<List<String>> getSharedScans() {
+        return this.sharedScans;
+    }
+
     /**
      * get index config.
      * @param indexName index Name
@@ -100,6 +165,10 @@ public class IndexConfigRegistry {
     @PostConstruct
     public void init() {
         scanIndexConfigs();
+        findSharedScans();
+        if (this.espipeJdbcProperties.isValidateSql()) {
+            validateSqlTemplates();
+        }
     }
 
     private void scanIndexConfigs() {
@@ -122,8 +191,20 @@ public class IndexConfigRegistry {
             // add sql
             config.setInitSql(IOUtils.getContent(rootDir + indexName + INIT_SQL_NAME));
             config.setSyncSql(IOUtils.getContent(rootDir + indexName + SYNC_SQL_NAME));
-            config.setDeleteSql(IOUtils.getContent(rootDir + indexName + DELETE_SQL_NAME));
+            // deleted rows are synced only if delete.sql is not empty
+            String deleteSql = IOUtils.getContent(rootDir + indexName + DELETE_SQL_NAME);
+            if (!deleteSql.isBlank()) {
+                config.setDeleteSql(deleteSql);
+            }
+            // rows of init are estimated by statistics if estimate.sql exists
+            if (new File(rootDir + indexName + ESTIMATE_SQL_NAME).exists()) {
+                config.setEstimateSql(IOUtils.getContent(rootDir + indexName + ESTIMATE_SQL_NAME));
+            }
             config.setExtensionSql(IOUtils.getContent(rootDir + indexName + EXTENSION_SQL_NAME));
+            // extension fields are cached only if their changes can be found
+            if (new File(rootDir + indexName + EXTENSION_SYNC_SQL_NAME).exists()) {
+                config.setExtensionSyncSql(IOUtils.getContent(rootDir + indexName + EXTENSION_SYNC_SQL_NAME));
+            }
 
             // add sql.properties
             String sqlPropertiesPath = rootDir + indexName + SQL_PROPERTIES_NAME;
@@ -136,11 +217,170 @@ public class IndexConfigRegistry {
             }
             config.setIdColumns(sqlProperties.getProperty(ID_COLUMNS_NAME));
             config.setExtensionColumn(sqlProperties.getProperty(EXTENSION_COLUMN_NAME));
+            config.setExtensionStrategy(sqlProperties.getProperty(EXTENSION_STRATEGY_NAME, "lookup").trim());
+            if (MERGE_JOIN.equals(config.getExtensionStrategy())) {
+                config.setExtensionAllSql(IOUtils.getContent(rootDir + indexName + EXTENSION_ALL_SQL_NAME));
+            }
+            config.setInitPartitions(Integer.parseInt(sqlProperties.getProperty(INIT_PARTITIONS_NAME, "1").trim()));
+            config.setInitPageSize(Integer.parseInt(sqlProperties.getProperty(INIT_PAGE_SIZE_NAME, "0").trim()));
+            if (sqlProperties.getProperty(SHARED_SCAN_NAME, "").trim().length() > 0) {
+                config.setSharedScan(sqlProperties.getProperty(SHARED_SCAN_NAME).trim());
+            }
+            config.setInitMaxInFlight(
+                    Integer.parseInt(sqlProperties.getProperty(INIT_MAX_IN_FLIGHT_NAME, "4").trim()));
+            if (config.getInitMaxInFlight() < 1) {
+                throw new EspipeException(String.format("%s of index %s must be at least 1", INIT_MAX_IN_FLIGHT_NAME,
+                        indexName));
+            }
+            config.setInitEstimate(sqlProperties
+                    .getProperty(INIT_ESTIMATE_NAME, (config.getEstimateSql() != null) ? STATISTICS : NONE).trim());
+            if (!List.of(NONE, STATISTICS, COUNT).contains(config.getInitEstimate())) {
+                throw new EspipeException(String.format("%s of index %s must be one of %s, %s or %s",
+                        INIT_ESTIMATE_NAME, indexName, NONE, STATISTICS, COUNT));
+            }
+            if (STATISTICS.equals(config.getInitEstimate()) && config.getEstimateSql() == null) {
+                throw new EspipeException(String.format("%s of index %s needs %s", INIT_ESTIMATE_NAME, indexName,
+                        ESTIMATE_SQL_NAME));
+            }
+            if (sqlProperties.getProperty(WATERMARK_COLUMN_NAME) != null) {
+                config.setWatermarkColumn(sqlProperties.getProperty(WATERMARK_COLUMN_NAME).trim());
+            }
+            config.setWatermarkOverlap(
+                    Long.parseLong(sqlProperties.getProperty(WATERMARK_OVERLAP_NAME, "0").trim()));
+            if (config.getWatermarkOverlap() < 0) {
+                throw new EspipeException(String.format("%s of index %s must not be negative",
+                        WATERMARK_OVERLAP_NAME, indexName));
+            }
+            config.setSyncPageSize(Integer.parseInt(sqlProperties.getProperty(SYNC_PAGE_SIZE_NAME, "0").trim()));
+            if (sqlProperties.getProperty(OUTBOX_TABLE_NAME) != null) {
+                config.setOutboxTable(sqlProperties.getProperty(OUTBOX_TABLE_NAME).trim());
+            }
+            config.setOutboxBatchSize(
+                    Integer.parseInt(sqlProperties.getProperty(OUTBOX_BATCH_SIZE_NAME, "0").trim()));
+            config.setWriteMode(sqlProperties.getProperty(WRITE_MODE_NAME, "create").trim());
+            if (!"create".equals(config.getWriteMode()) && !config.isExternalVersion()) {
+                throw new EspipeException(String.format("%s of index %s must be create or external",
+                        WRITE_MODE_NAME, indexName));
+            }
+            if (sqlProperties.getProperty(VERSION_COLUMN_NAME) != null) {
+                config.setVersionColumns(
+                        sqlProperties.getProperty(VERSION_COLUMN_NAME).trim().toLowerCase().split("\\s*,\\s*"));
+            }
 
+            parseSqlTemplates(config);
             this.configs.put(indexName, config);
         }
     }
 
+    /**
+     * group the indices by their shared_scan group, so init all reads the rows once for
+     * them. The indices of a group must have the same init.sql, ignoring whitespace, and
+     * must not be partitioned, paged or merge joined.
+     */
+    private void findSharedScans() {
+        this.sharedScans.clear();
+        Map<String, List<IndexConfig>> configsByGroup = new LinkedHashMap<>();
+        this.configs.values().stream().filter((config) -> config.getSharedScan() != null)
+                .sorted((a, b) -> a.getIndexName().compareTo(b.getIndexName()))
+                .forEach((config) -> configsByGroup.computeIfAbsent(config.getSharedScan(), (key) -> new ArrayList<>())
+                        .add(config));
+        configsByGroup.forEach((group, groupConfigs) -> {
+            final String initSql = normalize(groupConfigs.get(0).getInitSql());
+            List<String> indexNames = new ArrayList<>(groupConfigs.size());
+            for (IndexConfig config : groupConfigs) {
+                if (!initSql.equals(normalize(config.getInitSql()))) {
+                    throw new EspipeException(String.format("Index %s of shared scan %s has another init.sql than %s",
+                            config.getIndexName(), group, groupConfigs.get(0).getIndexName()));
+                }
+                if (config.getInitPartitions() > 1 || config.getInitPageSize() > 0
+                        || MERGE_JOIN.equals(config.getExtensionStrategy())) {
+                    throw new EspipeException(String.format(
+                            "Index %s of shared scan %s must not be partitioned, paged or merge joined",
+                            config.getIndexName(), group));
+                }
+                indexNames.add(config.getIndexName());
+            }
+            if (indexNames.size() > 1) {
+                logger.info("Indices {} share the scan {} of init.sql", indexNames, group);
+                this.sharedScans.add(indexNames);
+            }
+        });
+    }
+
+    private static String normalize(String sql) {
+        return sql.trim().replaceAll("\\s+", " ");
+    }
+
+    /**
+     * parse the sql files once, the placeholders of init.sql and estimate.sql are the
+     * init cutoff, sync.sql, delete.sql and extension_sync.sql take pairs of start and
+     * end timestamp, or the watermark in sync.sql, and extension.sql takes the ids.
+     * @param config index config
+     */
+    private void parseSqlTemplates(IndexConfig config) {
+        final String dir = config.getIndexName() + "/sql/";
+        config.setInitTemplate(SqlTemplate.parse(dir + "init.sql", config.getInitSql(), Role.CUTOFF));
+        if (config.getWatermarkColumn() != null) {
+            config.setSyncTemplate(SqlTemplate.parse(dir + "sync.sql", config.getSyncSql(), Role.WATERMARK));
+        }
+        else {
+            config.setSyncTemplate(SqlTemplate.parse(dir + "sync.sql", config.getSyncSql(), Role.START, Role.END));
+        }
+        if (config.getDeleteSql() != null) {
+            config.setDeleteTemplate(
+                    SqlTemplate.parse(dir + "delete.sql", config.getDeleteSql(), Role.START, Role.END));
+        }
+        if (config.getEstimateSql() != null) {
+            config.setEstimateTemplate(SqlTemplate.parse(dir + "estimate.sql", config.getEstimateSql(), Role.CUTOFF));
+        }
+        config.setExtensionTemplate(SqlTemplate.parse(dir + "extension.sql", config.getExtensionSql(), Role.IDS));
+        if (config.getExtensionAllSql() != null) {
+            config.setExtensionAllTemplate(SqlTemplate.parse(dir + "extension_all.sql", config.getExtensionAllSql()));
+        }
+        if (config.getExtensionSyncSql() != null) {
+            config.setExtensionSyncTemplate(SqlTemplate.parse(dir + "extension_sync.sql",
+                    config.getExtensionSyncSql(), Role.START, Role.END));
+        }
+    }
+
+    /**
+     * prepare every sql template against the database, a bad sql or a parameter count
+     * that differs from the driver stops the startup. Drivers that prepare lazily may
+     * only find the parameter count.
+     */
+    private void validateSqlTemplates() {
+        this.jdbcTemplate.execute((ConnectionCallback<Object>) (conn) -> {
+            for (IndexConfig config : this.configs.values()) {
+                for (SqlTemplate template : config.getSqlTemplates()) {
+                    try (PreparedStatement ps = conn.prepareStatement(template.expand(1))) {
+                        int expected = template.getRoles().contains(Role.IDS) ? 1 : template.getParameterCount();
+                        int actual = parameterCount(ps);
+                        if (actual >= 0 && actual != expected) {
+                            throw new EspipeException(String.format("%s has %d parameters, the database found %d",
+                                    template.getName(), expected, actual));
+                        }
+                    }
+                    catch (SQLException ex) {
+                        throw new EspipeException(
+                                String.format("%s is invalid, %s", template.getName(), ex.getMessage()));
+                    }
+                }
+            }
+            return null;
+        });
+        logger.info("Validated the sql of {} indices", this.configs.size());
+    }
+
+    private static int parameterCount(PreparedStatement ps) throws SQLException {
+        try {
+            ParameterMetaData parameterMetaData = ps.getParameterMetaData();
+            return parameterMetaData.getParameterCount();
+        }
+        catch (SQLFeatureNotSupportedException ex) {
+            return -1;
+        }
+    }
+
     private List<String> findIndexNames(String rootDir) {
         File indexConfigRootDir = new File(rootDir);
 
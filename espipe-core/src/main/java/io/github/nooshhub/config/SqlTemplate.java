@@ -0,0 +1,199 @@
+/*
+ * Copyright 2021-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.nooshhub.config;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import io.github.nooshhub.exception.EspipeException;
+
+/**
+ * Sql Template is a sql file parsed once when the index configs are loaded. Every
+ * placeholder gets a role by the kind of the file, so the statements are bound without
+ * asking the driver for the parameter metadata, and the sql text of a run is always the
+ * same for the statement cache of the driver.
+ *
+ * @author Neal Shan
+ * @since 10/18/2026
+ */
+public final class SqlTemplate {
+
+    private final String name;
+
+    private final String sql;
+
+    private final List<Role> roles;
+
+    private final List<Integer> positions;
+
+    private final Map<Integer, String> expandedSqls = new ConcurrentHashMap<>();
+
+    private SqlTemplate(String name, String sql, List<Role> roles, List<Integer> positions) {
+        this.name = name;
+        this.sql = sql;
+        this.roles = Collections.unmodifiableList(roles);
+        this.positions = positions;
+    }
+
+    /**
+     * parse the placeholders of a sql, the placeholders in quotes and comments are
+     * skipped. The roles are given to the placeholders in turn, e.g. start and end for a
+     * window.
+     * @param name file name, used in errors
+     * @param sql sql
+     * @param cycle roles given in turn
+     * @return sql template
+     */
+    public static SqlTemplate parse(String name, String sql, Role... cycle) {
+        List<Integer> positions = new ArrayList<>();
+        int i = 0;
+        while (i < sql.length()) {
+            char c = sql.charAt(i);
+            if (c == '\'' || c == '"') {
+                int end = sql.indexOf(c, i + 1);
+                i = (end < 0) ? sql.length() : end + 1;
+            }
+            else if (c == '-' && sql.startsWith("--", i)) {
+                int end = sql.indexOf('\n', i);
+                i = (end < 0) ? sql.length() : end + 1;
+            }
+            else if (c == '/' && sql.startsWith("/*", i)) {
+                int end = sql.indexOf("*/", i + 2);
+                i = (end < 0) ? sql.length() : end + 2;
+            }
+            else {
+                if (c == '?') {
+                    positions.add(i);
+                }
+                i++;
+            }
+        }
+
+        List<Role> roles = new ArrayList<>(positions.size());
+        for (int p = 0; p < positions.size(); p++) {
+            if (cycle.length == 0) {
+                throw new EspipeException(String.format("%s must not have parameters", name));
+            }
+            roles.add(cycle[p % cycle.length]);
+        }
+        if (cycle.length > 1 && positions.size() % cycle.length != 0) {
+            throw new EspipeException(
+                    String.format("%s has %d parameters, they should be in groups of %s", name, positions.size(),
+                            List.of(cycle)));
+        }
+        if (roles.contains(Role.IDS) && roles.size() != 1) {
+            throw new EspipeException(String.format("%s should have exactly one parameter for the ids", name));
+        }
+        return new SqlTemplate(name, sql, roles, positions);
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    public String getSql() {
+        return this.sql;
+    }
+
+    public List<Role> getRoles() {
+        return this.roles;
+    }
+
+    public int getParameterCount() {
+        return this.roles.size();
+    }
+
+    /**
+     * the sql with the ids placeholder expanded to a list of placeholders, the sql of a
+     * size is built once.
+     * @param size number of ids
+     * @return sql
+     */
+    public String expand(int size) {
+        if (!this.roles.contains(Role.IDS)) {
+            return this.sql;
+        }
+        return this.expandedSqls.computeIfAbsent(size, (key) -> {
+            int position = this.positions.get(0);
+            return this.sql.substring(0, position) + String.join(",", Collections.nCopies(key, "?"))
+                    + this.sql.substring(position + 1);
+        });
+    }
+
+    /**
+     * bind every placeholder by its role.
+     * @param ps prepared statement
+     * @param offset index of the first placeholder of this template in the statement
+     * @param values values by role
+     * @return index of the placeholder after this template
+     * @throws SQLException all sql exception
+     */
+    public int bind(PreparedStatement ps, int offset, Map<Role, ?> values) throws SQLException {
+        int index = offset;
+        for (Role role : this.roles) {
+            if (!values.containsKey(role)) {
+                throw new EspipeException(String.format("%s has no value for parameter %d %s", this.name,
+                        index - offset + 1, role));
+            }
+            ps.setObject(index++, values.get(role));
+        }
+        return index;
+    }
+
+    @Override
+    public String toString() {
+        return "SqlTemplate{" + "name='" + this.name + '\'' + ", roles=" + this.roles + '}';
+    }
+
+    /**
+     * role of a placeholder.
+     */
+    public enum Role {
+
+        /**
+         * Constant that indicates the cutoff timestamp of init.
+         */
+        CUTOFF,
+
+        /**
+         * Constant that indicates the start timestamp of a sync window.
+         */
+        START,
+
+        /**
+         * Constant that indicates the end timestamp of a sync window.
+         */
+        END,
+
+        /**
+         * Constant that indicates the last synced watermark.
+         */
+        WATERMARK,
+
+        /**
+         * Constant that indicates a list of ids, expanded to one placeholder per id.
+         */
+        IDS
+
+    }
+
+}
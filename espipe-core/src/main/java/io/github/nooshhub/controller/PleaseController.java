@@ -56,6 +56,11 @@ public class PleaseController {
         return this.initIndexService.init(indexName);
     }
 
+    @GetMapping("please/resume/init/{indexName}")
+    public String resumeInitOne(@PathVariable("indexName") String indexName) {
+        return this.initIndexService.resume(indexName);
+    }
+
     @GetMapping("please/stop/init/all")
     public String stopInitAll() {
         return this.initIndexService.stop();
@@ -86,6 +91,19 @@ public class PleaseController {
         return this.syncIndexService.stop(indexName);
     }
 
+    @GetMapping("please/notify/sync/{indexName}")
+    public String notifySyncOne(@PathVariable("indexName") String indexName) {
+        return this.syncIndexService.notifyChange(indexName)
+                ? String.format("Sync index %s is woken", indexName)
+                : String.format("Index %s is not in sync in progress", indexName);
+    }
+
+    @GetMapping("please/heartbeat/sync/{indexName}")
+    public String heartbeatSyncOne(@PathVariable("indexName") String indexName) {
+        this.syncIndexService.heartbeat(indexName);
+        return String.format("Heartbeat of index %s", indexName);
+    }
+
     // TODO: how do i know the columns, there is suppose to be a page that load the index
     // with id columns first,
     // and then you can input the ids that you get from database, and call this api to fix
@@ -0,0 +1,248 @@
+/*
+ * Copyright 2021-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.nooshhub.dao;
+
+import java.io.IOException;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.nooshhub.exception.EspipeException;
+
+/**
+ * Bulk request encoder writes the action line and the document of every operation as
+ * ndjson into a byte buffer, the buffer is reused by the next bulk request after
+ * {@link #toByteArray()}. It is not thread safe.
+ *
+ * @author Neal Shan
+ * @since 10/18/2026
+ */
+public class BulkRequestEncoder {
+
+    private static final SerializedString NEW_LINE = new SerializedString("\n");
+
+    private final ObjectMapper objectMapper;
+
+    private final ByteArrayBuilder buffer = new ByteArrayBuilder();
+
+    private JsonGenerator generator;
+
+    private int operations;
+
+    public BulkRequestEncoder(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * append a create operation.
+     * @param indexName index name
+     * @param documentId document id
+     * @param flattenMap document
+     */
+    public void create(String indexName, String documentId, Map<String, Object> flattenMap) {
+        try {
+            JsonGenerator gen = generator();
+            writeAction(gen, "create", indexName, documentId);
+            this.objectMapper.writeValue(gen, flattenMap);
+            this.operations++;
+        }
+        catch (IOException ex) {
+            throw new EspipeException(ex.getMessage());
+        }
+    }
+
+    /**
+     * append an index operation, the document is replaced if it exists.
+     * @param indexName index name
+     * @param documentId document id
+     * @param flattenMap document
+     */
+    public void index(String indexName, String documentId, Map<String, Object> flattenMap) {
+        try {
+            JsonGenerator gen = generator();
+            writeAction(gen, "index", indexName, documentId);
+            this.objectMapper.writeValue(gen, flattenMap);
+            this.operations++;
+        }
+        catch (IOException ex) {
+            throw new EspipeException(ex.getMessage());
+        }
+    }
+
+    /**
+     * append an index operation with an external version, the document is replaced
+     * unless the indexed document has a higher version. An equal version replaces it, so
+     * a change of the extension fields only, or a second change of the row in the same
+     * millisecond, is not rejected as a conflict.
+     * @param indexName index name
+     * @param documentId document id
+     * @param flattenMap document
+     * @param version external version
+     */
+    public void index(String indexName, String documentId, Map<String, Object> flattenMap, long version) {
+        try {
+            JsonGenerator gen = generator();
+            writeAction(gen, "index", indexName, documentId, version);
+            this.objectMapper.writeValue(gen, flattenMap);
+            this.operations++;
+        }
+        catch (IOException ex) {
+            throw new EspipeException(ex.getMessage());
+        }
+    }
+
+    /**
+     * append a delete operation, it has no document line.
+     * @param indexName index name
+     * @param documentId document id
+     */
+    public void delete(String indexName, String documentId) {
+        try {
+            writeAction(generator(), "delete", indexName, documentId);
+            this.operations++;
+        }
+        catch (IOException ex) {
+            throw new EspipeException(ex.getMessage());
+        }
+    }
+
+    /**
+     * append a delete operation with an external version, the document is deleted unless
+     * it has a higher version, and a write of a lower version is rejected while the
+     * tombstone of the delete is kept by elasticsearch.
+     * @param indexName index name
+     * @param documentId document id
+     * @param version external version
+     */
+    public void delete(String indexName, String documentId, long version) {
+        try {
+            writeAction(generator(), "delete", indexName, documentId, version);
+            this.operations++;
+        }
+        catch (IOException ex) {
+            throw new EspipeException(ex.getMessage());
+        }
+    }
+
+    /**
+     * number of operations in the buffer.
+     * @return number of operations
+     */
+    public int getOperations() {
+        return this.operations;
+    }
+
+    /**
+     * bytes of the operations in the buffer.
+     * @return bytes
+     */
+    public int getBytes() {
+        try {
+            if (this.generator != null) {
+                this.generator.flush();
+            }
+            return this.buffer.size();
+        }
+        catch (IOException ex) {
+            throw new EspipeException(ex.getMessage());
+        }
+    }
+
+    /**
+     * rough ndjson size of a document before it is encoded, the names and the values of
+     * the fields are counted as characters.
+     * @param flattenMap document
+     * @return bytes
+     */
+    public static long estimateBytes(Map<String, Object> flattenMap) {
+        long bytes = 64;
+        for (Map.Entry<String, Object> entry : flattenMap.entrySet()) {
+            Object value = entry.getValue();
+            bytes += entry.getKey().length() + 6;
+            if (value instanceof CharSequence) {
+                bytes += ((CharSequence) value).length();
+            }
+            else if (value != null) {
+                bytes += 16;
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * copy the ndjson body out and reset the buffer for the next bulk request.
+     * @return ndjson body ends with a new line
+     */
+    public byte[] toByteArray() {
+        try {
+            if (this.generator != null) {
+                this.generator.writeRaw('\n');
+                this.generator.close();
+            }
+            return this.buffer.toByteArray();
+        }
+        catch (IOException ex) {
+            throw new EspipeException(ex.getMessage());
+        }
+        finally {
+            reset();
+        }
+    }
+
+    /**
+     * discard the operations in the buffer, e.g. when a batch fails before it is sent.
+     */
+    public void reset() {
+        this.buffer.reset();
+        this.generator = null;
+        this.operations = 0;
+    }
+
+    private JsonGenerator generator() throws IOException {
+        if (this.generator == null) {
+            // every root value is a line of the bulk body
+            this.generator = this.objectMapper.getFactory().createGenerator(this.buffer);
+            this.generator.setRootValueSeparator(NEW_LINE);
+        }
+        return this.generator;
+    }
+
+    private static void writeAction(JsonGenerator gen, String action, String indexName, String documentId)
+            throws IOException {
+        gen.writeStartObject();
+        gen.writeObjectFieldStart(action);
+        gen.writeStringField("_index", indexName);
+        gen.writeStringField("_id", documentId);
+        gen.writeEndObject();
+        gen.writeEndObject();
+    }
+
+    private static void writeAction(JsonGenerator gen, String action, String indexName, String documentId,
+            long version) throws IOException {
+        gen.writeStartObject();
+        gen.writeObjectFieldStart(action);
+        gen.writeStringField("_index", indexName);
+        gen.writeStringField("_id", documentId);
+        gen.writeNumberField("version", version);
+        gen.writeStringField("version_type", "external_gte");
+        gen.writeEndObject();
+        gen.writeEndObject();
+    }
+
+}
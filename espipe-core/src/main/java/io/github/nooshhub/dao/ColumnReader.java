@@ -0,0 +1,215 @@
+/*
+ * Copyright 2021-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.nooshhub.dao;
+
+import java.io.IOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * Column reader is chosen once per column by its jdbc type, numeric and boolean values
+ * are kept in a primitive slot of {@link FlattenMap} and written to json without boxing.
+ *
+ * @author Neal Shan
+ * @since 10/18/2026
+ */
+enum ColumnReader {
+
+    /**
+     * Constant that indicates integer columns, read by getLong.
+     */
+    LONG {
+        @Override
+        void read(ResultSet rs, int column, FlattenMap flattenMap, int slot) throws SQLException {
+            long value = rs.getLong(column);
+            if (rs.wasNull()) {
+                flattenMap.setValue(slot, null);
+            }
+            else {
+                flattenMap.setPrimitive(slot, value);
+            }
+        }
+
+        @Override
+        Object box(long primitive) {
+            return primitive;
+        }
+
+        @Override
+        void write(JsonGenerator gen, long primitive) throws IOException {
+            gen.writeNumber(primitive);
+        }
+    },
+
+    /**
+     * Constant that indicates double precision columns, read by getDouble.
+     */
+    DOUBLE {
+        @Override
+        void read(ResultSet rs, int column, FlattenMap flattenMap, int slot) throws SQLException {
+            double value = rs.getDouble(column);
+            if (rs.wasNull()) {
+                flattenMap.setValue(slot, null);
+            }
+            else {
+                flattenMap.setPrimitive(slot, Double.doubleToRawLongBits(value));
+            }
+        }
+
+        @Override
+        Object box(long primitive) {
+            return Double.longBitsToDouble(primitive);
+        }
+
+        @Override
+        void write(JsonGenerator gen, long primitive) throws IOException {
+            gen.writeNumber(Double.longBitsToDouble(primitive));
+        }
+    },
+
+    /**
+     * Constant that indicates boolean columns, read by getBoolean.
+     */
+    BOOLEAN {
+        @Override
+        void read(ResultSet rs, int column, FlattenMap flattenMap, int slot) throws SQLException {
+            boolean value = rs.getBoolean(column);
+            if (rs.wasNull()) {
+                flattenMap.setValue(slot, null);
+            }
+            else {
+                flattenMap.setPrimitive(slot, value ? 1L : 0L);
+            }
+        }
+
+        @Override
+        Object box(long primitive) {
+            return primitive != 0L;
+        }
+
+        @Override
+        void write(JsonGenerator gen, long primitive) throws IOException {
+            gen.writeBoolean(primitive != 0L);
+        }
+    },
+
+    /**
+     * Constant that indicates character columns, read by getString.
+     */
+    STRING {
+        @Override
+        void read(ResultSet rs, int column, FlattenMap flattenMap, int slot) throws SQLException {
+            flattenMap.setValue(slot, rs.getString(column));
+        }
+    },
+
+    /**
+     * Constant that indicates timestamp columns, read by getTimestamp instead of a driver
+     * specific object.
+     */
+    TIMESTAMP {
+        @Override
+        void read(ResultSet rs, int column, FlattenMap flattenMap, int slot) throws SQLException {
+            flattenMap.setValue(slot, rs.getTimestamp(column));
+        }
+    },
+
+    /**
+     * Constant that indicates any other columns, read by getObject.
+     */
+    OBJECT {
+        @Override
+        void read(ResultSet rs, int column, FlattenMap flattenMap, int slot) throws SQLException {
+            flattenMap.setValue(slot, rs.getObject(column));
+        }
+    };
+
+    /**
+     * read one column of the current row to the slot.
+     * @param rs result set
+     * @param column column index starts from 1
+     * @param flattenMap flatten map
+     * @param slot slot of the field
+     * @throws SQLException all sql exception
+     */
+    abstract void read(ResultSet rs, int column, FlattenMap flattenMap, int slot) throws SQLException;
+
+    /**
+     * box a primitive slot, only for readers that keep primitive values.
+     * @param primitive primitive value
+     * @return boxed value
+     */
+    Object box(long primitive) {
+        throw new IllegalStateException(name() + " does not keep primitive values");
+    }
+
+    /**
+     * write a primitive slot, only for readers that keep primitive values.
+     * @param gen json generator
+     * @param primitive primitive value
+     * @throws IOException if the value could not be written
+     */
+    void write(JsonGenerator gen, long primitive) throws IOException {
+        throw new IllegalStateException(name() + " does not keep primitive values");
+    }
+
+    /**
+     * choose the reader by column metadata, only columns whose values always fit in a long
+     * are read as long. An unsigned bigint goes up to 2^64-1 and a decimal of 19 digits
+     * or more can exceed Long.MAX_VALUE, they are read by getObject.
+     * @param jdbcType jdbc type defined in {@link Types}
+     * @param precision column precision
+     * @param scale column scale
+     * @param signed true if the column is signed
+     * @return column reader
+     */
+    static ColumnReader of(int jdbcType, int precision, int scale, boolean signed) {
+        switch (jdbcType) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+                return LONG;
+            case Types.BIGINT:
+                return signed ? LONG : OBJECT;
+            case Types.DECIMAL:
+            case Types.NUMERIC:
+                return (scale == 0 && precision > 0 && precision <= 18) ? LONG : OBJECT;
+            case Types.DOUBLE:
+            case Types.FLOAT:
+                return DOUBLE;
+            case Types.BOOLEAN:
+                return BOOLEAN;
+            case Types.CHAR:
+            case Types.VARCHAR:
+            case Types.LONGVARCHAR:
+            case Types.NCHAR:
+            case Types.NVARCHAR:
+            case Types.LONGNVARCHAR:
+            case Types.CLOB:
+            case Types.NCLOB:
+                return STRING;
+            case Types.TIMESTAMP:
+                return TIMESTAMP;
+            default:
+                return OBJECT;
+        }
+    }
+
+}
@@ -18,27 +18,58 @@ package io.github.nooshhub.dao;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.LongConsumer;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 
 import co.elastic.clients.elasticsearch.ElasticsearchAsyncClient;
 import co.elastic.clients.elasticsearch.ElasticsearchClient;
 import co.elastic.clients.elasticsearch._types.AcknowledgedResponse;
 import co.elastic.clients.elasticsearch._types.ElasticsearchException;
-import co.elastic.clients.elasticsearch.core.BulkRequest;
 import co.elastic.clients.elasticsearch.core.BulkResponse;
-import co.elastic.clients.elasticsearch.core.bulk.BulkOperation;
+import co.elastic.clients.elasticsearch.core.bulk.BulkResponseItem;
 import co.elastic.clients.elasticsearch.indices.CreateIndexRequest;
 import co.elastic.clients.elasticsearch.indices.DeleteIndexRequest;
 import co.elastic.clients.elasticsearch.indices.PutIndicesSettingsRequest;
 import co.elastic.clients.elasticsearch.indices.PutMappingRequest;
+import co.elastic.clients.json.JsonpMapper;
+import co.elastic.clients.json.jackson.JacksonJsonpMapper;
+import co.elastic.clients.transport.rest_client.RestClientTransport;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.nooshhub.concurrent.AbstractThreadPoolFactory;
+import io.github.nooshhub.concurrent.BulkController;
+import io.github.nooshhub.concurrent.BulkRetries;
+import io.github.nooshhub.concurrent.CompletableTask;
+import io.github.nooshhub.concurrent.TaskManager;
+import io.github.nooshhub.config.EspipeBulkProperties;
+import io.github.nooshhub.config.EspipeBulkheadProperties;
+import io.github.nooshhub.config.EspipeElasticsearchProperties;
 import io.github.nooshhub.config.IndexConfig;
 import io.github.nooshhub.config.IndexConfigRegistry;
 import io.github.nooshhub.exception.EspipeException;
 import io.github.nooshhub.support.IOUtils;
+import jakarta.json.stream.JsonParser;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.elasticsearch.client.Request;
+import org.elasticsearch.client.Response;
+import org.elasticsearch.client.ResponseException;
+import org.elasticsearch.client.ResponseListener;
+import org.elasticsearch.client.RestClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -66,6 +97,16 @@ public class ElasticsearchDao {
 
     private static final Logger logger = LoggerFactory.getLogger(ElasticsearchDao.class);
 
+    private static final ContentType NDJSON = ContentType.create("application/x-ndjson", StandardCharsets.UTF_8);
+
+    private static final Set<Integer> RETRYABLE_STATUSES = Set.of(HttpStatus.TOO_MANY_REQUESTS.value(),
+            HttpStatus.BAD_GATEWAY.value(), HttpStatus.SERVICE_UNAVAILABLE.value(),
+            HttpStatus.GATEWAY_TIMEOUT.value());
+
+    private static final Set<String> RETRYABLE_ERRORS = Set.of("es_rejected_execution_exception",
+            "unavailable_shards_exception", "no_shard_available_action_exception", "node_not_connected_exception",
+            "node_closed_exception", "circuit_breaking_exception");
+
     @Autowired
     private ElasticsearchClient esClient;
 
@@ -75,6 +116,39 @@ public class ElasticsearchDao {
     @Autowired
     private IndexConfigRegistry indexConfigRegistry;
 
+    @Autowired
+    private EspipeElasticsearchProperties espipeElasticsearchProperties;
+
+    @Autowired
+    private EspipeBulkheadProperties espipeBulkheadProperties;
+
+    @Autowired
+    private EspipeBulkProperties espipeBulkProperties;
+
+    private RestClient restClient;
+
+    private JsonpMapper jsonpMapper;
+
+    private ThreadLocal<BulkRequestEncoder> bulkRequestEncoder;
+
+    private ThreadPoolExecutor bulkExecutor;
+
+    @PostConstruct
+    public void init() {
+        // share the connection pool and the json mapper of the async client
+        RestClientTransport transport = (RestClientTransport) this.esAsyncClient._transport();
+        this.restClient = transport.restClient();
+        this.jsonpMapper = transport.jsonpMapper();
+        ObjectMapper objectMapper = ((JacksonJsonpMapper) this.jsonpMapper).objectMapper();
+        this.bulkRequestEncoder = ThreadLocal.withInitial(() -> new BulkRequestEncoder(objectMapper));
+        this.bulkExecutor = AbstractThreadPoolFactory.poolForBulk(this.espipeBulkheadProperties.getBulkThreads());
+    }
+
+    @PreDestroy
+    public void destroy() {
+        AbstractThreadPoolFactory.shutdownNow(this.bulkExecutor);
+    }
+
     /**
      * create index.
      * @param indexName index name
@@ -207,59 +281,506 @@ public class ElasticsearchDao {
      * @return bulk response completable future
      */
     public CompletableFuture<BulkResponse> createDocument(String indexName, List<Map<String, Object>> flattenMapList) {
-        List<BulkOperation> bulkOperations = new ArrayList<>();
+        return createDocument(indexName, flattenMapList, (bytes) -> {
+        });
+    }
+
+    /**
+     * create multiple document and report the size of the bulk request. With the external
+     * write mode the documents are indexed with their versions instead, so a changed row
+     * replaces an older document.
+     * @param indexName index name
+     * @param flattenMapList flatten Map list
+     * @param bytesSent accepts the bytes of the bulk body
+     * @return bulk response completable future
+     */
+    public CompletableFuture<BulkResponse> createDocument(String indexName, List<Map<String, Object>> flattenMapList,
+            LongConsumer bytesSent) {
+        final IndexConfig indexConfig = this.indexConfigRegistry.getIndexConfig(indexName);
+        if (indexConfig.isExternalVersion()) {
+            return write(indexName, flattenMapList, (encoder, documentId, flattenMap) -> encoder.index(indexName,
+                    documentId, flattenMap, getVersion(indexConfig, flattenMap)), bytesSent);
+        }
+        return write(indexName, flattenMapList,
+                (encoder, documentId, flattenMap) -> encoder.create(indexName, documentId, flattenMap), bytesSent);
+    }
+
+    /**
+     * index multiple document, the existing documents are replaced. With the external
+     * write mode only the documents of a higher version replace them.
+     * @param indexName index name
+     * @param flattenMapList flatten Map list
+     * @return bulk response completable future
+     */
+    public CompletableFuture<BulkResponse> indexDocument(String indexName, List<Map<String, Object>> flattenMapList) {
+        final IndexConfig indexConfig = this.indexConfigRegistry.getIndexConfig(indexName);
+        if (indexConfig.isExternalVersion()) {
+            return write(indexName, flattenMapList, (encoder, documentId, flattenMap) -> encoder.index(indexName,
+                    documentId, flattenMap, getVersion(indexConfig, flattenMap)), (bytes) -> {
+                    });
+        }
+        return write(indexName, flattenMapList,
+                (encoder, documentId, flattenMap) -> encoder.index(indexName, documentId, flattenMap), (bytes) -> {
+                });
+    }
+
+    /**
+     * delete multiple document, a document that is not in the index is not a failure.
+     * With the external write mode a row that has a version column is deleted with its
+     * version, so a stale write of a lower version does not bring the document back.
+     * @param indexName index name
+     * @param flattenMapList flatten Map list with the id columns
+     * @return bulk response completable future
+     */
+    public CompletableFuture<BulkResponse> deleteDocument(String indexName, List<Map<String, Object>> flattenMapList) {
+        final IndexConfig indexConfig = this.indexConfigRegistry.getIndexConfig(indexName);
+        if (indexConfig.isExternalVersion()) {
+            return write(indexName, flattenMapList, (encoder, documentId, flattenMap) -> {
+                if (hasVersion(indexConfig, flattenMap)) {
+                    encoder.delete(indexName, documentId, getVersion(indexConfig, flattenMap));
+                }
+                else {
+                    encoder.delete(indexName, documentId);
+                }
+            }, (bytes) -> {
+            });
+        }
+        return write(indexName, flattenMapList, (encoder, documentId, flattenMap) -> encoder.delete(indexName,
+                documentId), (bytes) -> {
+                });
+    }
+
+    /**
+     * write the documents, the documents that fail after the retries are counted.
+     * @param indexName index name
+     * @param flattenMapList flatten Map list
+     * @param operation appends the operation of a document
+     * @param bytesSent accepts the bytes of every bulk body
+     * @return bulk response completable future
+     */
+    private CompletableFuture<BulkResponse> write(String indexName, List<Map<String, Object>> flattenMapList,
+            Operation operation, LongConsumer bytesSent) {
+        final int size = flattenMapList.size();
+        return bulk(indexName, flattenMapList, operation, bytesSent, 0).whenComplete((bulkRes, ex) -> {
+            long failed = (ex != null) ? size
+                    : bulkRes.items().stream().filter((item) -> item.error() != null
+                            && !("version_conflict_engine_exception").equals(item.error().type())).count();
+            if (failed > 0) {
+                getBulkRetries(indexName).addFailed(failed);
+            }
+        });
+    }
+
+    /**
+     * encode the documents into bulk requests of at most bulk bytes, the responses of
+     * the requests are merged into one.
+     * @param indexName index name
+     * @param flattenMapList flatten Map list
+     * @param operation appends the operation of a document
+     * @param bytesSent accepts the bytes of every bulk body
+     * @param attempt retries of the documents before
+     * @return bulk response completable future
+     */
+    private CompletableFuture<BulkResponse> bulk(String indexName, List<Map<String, Object>> flattenMapList,
+            Operation operation, LongConsumer bytesSent, int attempt) {
+        final long bulkBytes = this.espipeElasticsearchProperties.getBulkBytes();
+        BulkRequestEncoder encoder = this.bulkRequestEncoder.get();
+        List<CompletableFuture<BulkResponse>> futures = new ArrayList<>(1);
+        int from = 0;
+        try {
+            for (int i = 0; i < flattenMapList.size(); i++) {
+                Map<String, Object> flattenMap = flattenMapList.get(i);
+                operation.encode(encoder, getDocumentId(indexName, flattenMap), flattenMap);
+                if (i == flattenMapList.size() - 1 || (bulkBytes > 0 && encoder.getBytes() >= bulkBytes)) {
+                    // the documents are copied, the caller may clear the list for the next batch
+                    List<Map<String, Object>> documents = new ArrayList<>(flattenMapList.subList(from, i + 1));
+                    futures.add(send(indexName, documents, encoder.toByteArray(), operation, bytesSent, attempt));
+                    from = i + 1;
+                }
+            }
+        }
+        finally {
+            // a document that fails to encode must not leak into the next bulk request of the thread
+            encoder.reset();
+        }
+        return merge(futures);
+    }
+
+    /**
+     * get the bulk controller of an index, it starts with the bulk size and the in
+     * flight bound of init configured for the index. One controller bounds all bulk
+     * requests of the index, those of all init partitions, sync and fix together.
+     * @param indexName index name
+     * @return bulk controller
+     */
+    public BulkController getBulkController(String indexName) {
+        return TaskManager.getBulkControllers().computeIfAbsent(indexName,
+                (key) -> new BulkController(this.espipeBulkProperties,
+                        this.espipeElasticsearchProperties.getBulkSize(),
+                        this.indexConfigRegistry.getIndexConfig(indexName).getInitMaxInFlight()));
+    }
+
+    /**
+     * get the retry counters of an index.
+     * @param indexName index name
+     * @return bulk retries
+     */
+    public BulkRetries getBulkRetries(String indexName) {
+        return TaskManager.getBulkRetries().computeIfAbsent(indexName, (key) -> new BulkRetries());
+    }
+
+    /**
+     * send a bulk body, a body rejected as too large is split in halves and resent. A
+     * rejected body or the retryable items of a response are resent after a backoff, the
+     * halves and the retries are encoded and sent by the bulk pool. The latency and the
+     * rejections of the request are reported to the bulk controller.
+     * @param indexName index name
+     * @param documents documents of the body
+     * @param body ndjson body
+     * @param operation appends the operation of a document
+     * @param bytesSent accepts the bytes of every bulk body
+     * @param attempt retries of the documents before
+     * @return bulk response completable future
+     */
+    private CompletableFuture<BulkResponse> send(String indexName, List<Map<String, Object>> documents, byte[] body,
+            Operation operation, LongConsumer bytesSent, int attempt) {
+        bytesSent.accept(body.length);
+        final long start = System.nanoTime();
+        return bulk(body).handle((bulkRes, ex) -> {
+            final long latencyMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            if (ex == null) {
+                getBulkController(indexName).onResponse(latencyMillis, isRejected(bulkRes));
+                return retryItems(indexName, documents, bulkRes, operation, bytesSent, attempt);
+            }
+            if (hasStatus(ex, HttpStatus.TOO_MANY_REQUESTS)) {
+                getBulkController(indexName).onResponse(latencyMillis, true);
+            }
+            if (isRetryable(ex) && attempt < this.espipeBulkProperties.getMaxRetries()) {
+                // a document is counted once, by the first level of its retries
+                if (attempt == 0) {
+                    getBulkRetries(indexName).addRetried(documents.size());
+                }
+                return retry(indexName, documents, operation, bytesSent, attempt).thenApply((retried) -> {
+                    if (attempt == 0) {
+                        getBulkRetries(indexName)
+                                .addRecovered(retried.items().stream().filter((item) -> item.error() == null).count());
+                    }
+                    return retried;
+                });
+            }
+            if (!hasStatus(ex, HttpStatus.PAYLOAD_TOO_LARGE) || documents.size() < 2) {
+                return CompletableFuture.<BulkResponse>failedFuture(ex);
+            }
+            logger.warn("Bulk request of {} bytes for index {} is too large, split {} documents in halves",
+                    body.length, indexName, documents.size());
+            int half = documents.size() / 2;
+            return merge(List.of(
+                    CompletableTask.supplyAsync(() -> bulk(indexName, documents.subList(0, half), operation,
+                            bytesSent, attempt), this.bulkExecutor).thenCompose(Function.identity()),
+                    CompletableTask.supplyAsync(() -> bulk(indexName,
+                            documents.subList(half, documents.size()), operation, bytesSent, attempt),
+                            this.bulkExecutor).thenCompose(Function.identity())));
+        }).thenCompose(Function.identity());
+    }
+
+    /**
+     * resend the retryable items of a bulk response, the responses of the retries replace
+     * the failed items. The other failed items are permanent and kept.
+     * @param indexName index name
+     * @param documents documents of the bulk request
+     * @param bulkRes bulk response
+     * @param operation appends the operation of a document
+     * @param bytesSent accepts the bytes of every bulk body
+     * @param attempt retries of the documents before
+     * @return bulk response completable future
+     */
+    private CompletableFuture<BulkResponse> retryItems(String indexName, List<Map<String, Object>> documents,
+            BulkResponse bulkRes, Operation operation, LongConsumer bytesSent, int attempt) {
+        if (!bulkRes.errors() || attempt >= this.espipeBulkProperties.getMaxRetries()) {
+            return CompletableFuture.completedFuture(bulkRes);
+        }
+        final List<Integer> positions = new ArrayList<>();
+        for (int i = 0; i < bulkRes.items().size(); i++) {
+            if (isRetryable(bulkRes.items().get(i))) {
+                positions.add(i);
+            }
+        }
+        if (positions.isEmpty()) {
+            return CompletableFuture.completedFuture(bulkRes);
+        }
 
-        for (Map<String, Object> flattenMap : flattenMapList) {
-            final String documentId = getDocumentId(indexName, flattenMap);
+        if (attempt == 0) {
+            getBulkRetries(indexName).addRetried(positions.size());
+        }
+        List<Map<String, Object>> retryDocuments = new ArrayList<>(positions.size());
+        positions.forEach((position) -> retryDocuments.add(documents.get(position)));
+        return retry(indexName, retryDocuments, operation, bytesSent, attempt).handle((retried, ex) -> {
+            if (ex != null) {
+                logger.error("Retry of {} documents of index {} failed, {}", positions.size(), indexName,
+                        ex.getMessage());
+                return bulkRes;
+            }
+            List<BulkResponseItem> items = new ArrayList<>(bulkRes.items());
+            long recovered = 0;
+            for (int i = 0; i < positions.size(); i++) {
+                BulkResponseItem item = retried.items().get(i);
+                items.set(positions.get(i), item);
+                if (item.error() == null) {
+                    recovered++;
+                }
+            }
+            if (attempt == 0) {
+                // only the first level counts, the deeper retries are merged into it
+                getBulkRetries(indexName).addRecovered(recovered);
+            }
+            final boolean errors = items.stream().anyMatch((item) -> item.error() != null);
+            return BulkResponse.of((builder) -> builder.items(items).errors(errors)
+                    .took(bulkRes.took() + retried.took()));
+        });
+    }
+
+    /**
+     * resend documents after a backoff that doubles per attempt, the backoff is jittered
+     * between its half and its full length so the retries of the indices do not align.
+     * @param indexName index name
+     * @param documents documents to resend
+     * @param operation appends the operation of a document
+     * @param bytesSent accepts the bytes of every bulk body
+     * @param attempt retries of the documents before
+     * @return bulk response completable future
+     */
+    private CompletableFuture<BulkResponse> retry(String indexName, List<Map<String, Object>> documents,
+            Operation operation, LongConsumer bytesSent, int attempt) {
+        long backoff = Math.min(this.espipeBulkProperties.getRetryBackoffMillis() << Math.min(attempt, 20),
+                this.espipeBulkProperties.getMaxRetryBackoffMillis());
+        long delay = backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+        if (logger.isDebugEnabled()) {
+            logger.debug("retry {} documents of index {} in {} ms, attempt {}", documents.size(), indexName, delay,
+                    attempt + 1);
+        }
+        return CompletableTask
+                .supplyAsync(() -> bulk(indexName, documents, operation, bytesSent, attempt + 1),
+                        CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS, this.bulkExecutor))
+                .thenCompose(Function.identity());
+    }
+
+    /**
+     * a rejected request or a request that did not reach a node is retryable.
+     * @param ex failure of a bulk request
+     * @return true if retryable
+     */
+    private static boolean isRetryable(Throwable ex) {
+        Throwable cause = (ex instanceof CompletionException && ex.getCause() != null) ? ex.getCause() : ex;
+        if (cause instanceof ResponseException) {
+            return RETRYABLE_STATUSES.contains(
+                    ((ResponseException) cause).getResponse().getStatusLine().getStatusCode());
+        }
+        return cause instanceof IOException;
+    }
 
-            BulkOperation bulkOperation = BulkOperation
-                    .of((b) -> b.create((c) -> c.index(indexName).id(documentId).document(flattenMap)));
-            bulkOperations.add(bulkOperation);
+    /**
+     * an item rejected by a full write queue or an unavailable shard is retryable, a
+     * mapping or a parsing failure is permanent.
+     * @param item bulk response item
+     * @return true if retryable
+     */
+    private static boolean isRetryable(BulkResponseItem item) {
+        if (item.error() == null) {
+            return false;
         }
+        return RETRYABLE_STATUSES.contains(item.status()) || RETRYABLE_ERRORS.contains(item.error().type());
+    }
 
-        BulkRequest bulkRequest = BulkRequest.of((b) -> b.operations(bulkOperations));
+    private static boolean hasStatus(Throwable ex, HttpStatus status) {
+        Throwable cause = (ex instanceof CompletionException && ex.getCause() != null) ? ex.getCause() : ex;
+        return cause instanceof ResponseException
+                && ((ResponseException) cause).getResponse().getStatusLine().getStatusCode() == status.value();
+    }
 
-        return this.esAsyncClient.bulk(bulkRequest);
+    /**
+     * a bulk request is rejected when any item is rejected by a full write queue.
+     * @param bulkRes bulk response
+     * @return true if rejected
+     */
+    private static boolean isRejected(BulkResponse bulkRes) {
+        if (!bulkRes.errors()) {
+            return false;
+        }
+        for (BulkResponseItem item : bulkRes.items()) {
+            if (item.status() == HttpStatus.TOO_MANY_REQUESTS.value() || (item.error() != null
+                    && ("es_rejected_execution_exception").equals(item.error().type()))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * merge the responses of the bulk requests of one batch.
+     * @param futures bulk response completable futures
+     * @return bulk response completable future of all items
+     */
+    private static CompletableFuture<BulkResponse> merge(List<CompletableFuture<BulkResponse>> futures) {
+        if (futures.size() == 1) {
+            return futures.get(0);
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).thenApply((result) -> {
+            List<BulkResponseItem> items = new ArrayList<>();
+            boolean errors = false;
+            long took = 0;
+            for (CompletableFuture<BulkResponse> future : futures) {
+                BulkResponse bulkRes = future.join();
+                items.addAll(bulkRes.items());
+                errors = errors || bulkRes.errors();
+                took += bulkRes.took();
+            }
+            final boolean mergedErrors = errors;
+            final long mergedTook = took;
+            return BulkResponse.of((builder) -> builder.items(items).errors(mergedErrors).took(mergedTook));
+        });
+    }
+
+    /**
+     * send the ndjson body to the _bulk endpoint by the low-level rest client, the
+     * response is parsed as the elasticsearch java client does.
+     * @param body ndjson body
+     * @return bulk response completable future
+     */
+    private CompletableFuture<BulkResponse> bulk(byte[] body) {
+        Request request = new Request("POST", "/_bulk");
+        request.setEntity(new ByteArrayEntity(body, NDJSON));
+
+        CompletableFuture<BulkResponse> future = new CompletableFuture<>();
+        this.restClient.performRequestAsync(request, new ResponseListener() {
+
+            @Override
+            public void onSuccess(Response response) {
+                try (InputStream content = response.getEntity().getContent();
+                        JsonParser parser = ElasticsearchDao.this.jsonpMapper.jsonProvider().createParser(content)) {
+                    future.complete(BulkResponse._DESERIALIZER.deserialize(parser, ElasticsearchDao.this.jsonpMapper));
+                }
+                catch (Exception ex) {
+                    future.completeExceptionally(ex);
+                }
+            }
+
+            @Override
+            public void onFailure(Exception ex) {
+                future.completeExceptionally(ex);
+            }
+
+        });
+        return future;
     }
 
     /**
      * process single bulk response completable future.
      * @param indexName index name
      * @param future completable future
+     * @return true if the bulk request is acknowledged without failed items
      */
-    public void processCompletableFuture(String indexName, CompletableFuture<BulkResponse> future) {
-        processCompletableFutures(indexName, List.of(future));
+    public boolean processCompletableFuture(String indexName, CompletableFuture<BulkResponse> future) {
+        return processCompletableFutures(indexName, List.of(future));
     }
 
     /**
      * process a list of bulk response completable future.
      * @param indexName index name
      * @param futures a list of completable future
+     * @return true if all bulk requests are acknowledged without failed items, a version
+     * conflict is not a failure since the document is already indexed
      */
-    public void processCompletableFutures(String indexName, List<CompletableFuture<BulkResponse>> futures) {
+    public boolean processCompletableFutures(String indexName, List<CompletableFuture<BulkResponse>> futures) {
         logger.info("Bulk requests (size: {}) for index {}", futures.size(), indexName);
-        futures.forEach((bulkResFuture) -> {
+        boolean success = true;
+        for (CompletableFuture<BulkResponse> bulkResFuture : futures) {
             try {
-                BulkResponse bulkRes = bulkResFuture.get();
-                if (bulkRes.errors()) {
-                    bulkRes.items().forEach((bulkResponseItem) -> {
-                        if (bulkResponseItem.error() != null) {
-                            if (("version_conflict_engine_exception").equals(bulkResponseItem.error().type())) {
-                                logger.warn(bulkResponseItem.error().reason());
-                            }
-                            else {
-                                logger.error(bulkResponseItem.error().reason());
-                            }
-                        }
-                    });
+                if (!processBulkResponse(bulkResFuture.get())) {
+                    success = false;
                 }
             }
-            catch (InterruptedException | ExecutionException ex) {
+            catch (ExecutionException ex) {
+                logger.error("Bulk request for index {} failed, {}", indexName, ex.getCause().getMessage());
+                success = false;
+            }
+            catch (InterruptedException ex) {
                 logger.warn("Interrupted!");
                 // Restore interrupted state...
                 Thread.currentThread().interrupt();
+                return false;
             }
-        });
+        }
+        return success;
+    }
+
+    /**
+     * process a bulk response, the failed items are logged.
+     * @param bulkRes bulk response
+     * @return true if the bulk request has no failed items, a version conflict is not a
+     * failure since the document is already indexed
+     */
+    public boolean processBulkResponse(BulkResponse bulkRes) {
+        boolean success = true;
+        if (bulkRes.errors()) {
+            for (BulkResponseItem bulkResponseItem : bulkRes.items()) {
+                if (bulkResponseItem.error() != null) {
+                    if (("version_conflict_engine_exception").equals(bulkResponseItem.error().type())) {
+                        logger.warn(bulkResponseItem.error().reason());
+                    }
+                    else {
+                        logger.error(bulkResponseItem.error().reason());
+                        success = false;
+                    }
+                }
+            }
+        }
+        return success;
+    }
+
+    /**
+     * the external version of a document is the first version column that is not null,
+     * a timestamp is taken in epoch milliseconds. A row without any version is version
+     * 0, it replaces only a document without version and any versioned write replaces it.
+     * @param indexConfig index config
+     * @param flattenMap flatten Map
+     * @return version
+     */
+    static long getVersion(IndexConfig indexConfig, Map<String, Object> flattenMap) {
+        boolean found = false;
+        for (String versionColumn : indexConfig.getVersionColumns()) {
+            Object value = flattenMap.get(versionColumn);
+            if (value instanceof Date) {
+                return ((Date) value).getTime();
+            }
+            if (value instanceof Number) {
+                return ((Number) value).longValue();
+            }
+            if (value != null) {
+                throw new EspipeException(String.format("Version column %s of index %s must be a timestamp or a "
+                        + "number", versionColumn, indexConfig.getIndexName()));
+            }
+            found = found || flattenMap.containsKey(versionColumn);
+        }
+        if (!found) {
+            throw new EspipeException(String.format("Version columns %s are not in the rows of index %s",
+                    String.join(",", indexConfig.getVersionColumns()), indexConfig.getIndexName()));
+        }
+        return 0;
+    }
+
+    /**
+     * a row has a version if one of the version columns is not null.
+     * @param indexConfig index config
+     * @param flattenMap flatten Map
+     * @return true if the row has a version
+     */
+    static boolean hasVersion(IndexConfig indexConfig, Map<String, Object> flattenMap) {
+        for (String versionColumn : indexConfig.getVersionColumns()) {
+            if (flattenMap.get(versionColumn) != null) {
+                return true;
+            }
+        }
+        return false;
     }
 
     /**
@@ -290,4 +811,14 @@ public class ElasticsearchDao {
         return documentId;
     }
 
+    /**
+     * appends the bulk operation of a document.
+     */
+    @FunctionalInterface
+    private interface Operation {
+
+        void encode(BulkRequestEncoder encoder, String documentId, Map<String, Object> flattenMap);
+
+    }
+
 }
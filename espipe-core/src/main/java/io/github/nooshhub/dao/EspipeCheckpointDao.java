@@ -0,0 +1,109 @@
+/*
+ * Copyright 2021-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.nooshhub.dao;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import io.github.nooshhub.concurrent.InitPartition;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+/**
+ * Espipe Checkpoint DAO is using to log the last acknowledged key of every init
+ * partition, so an init can be resumed from a crash instead of starting over.
+ *
+ * @author Neal Shan
+ * @since 10/18/2026
+ */
+@Service
+public class EspipeCheckpointDao {
+
+    private static final String FIND_UNFINISHED_SQL = "select partition_no, last_key, upper_key from espipe_checkpoint where index_name = ? and last_key < upper_key order by partition_no";
+
+    private static final String FIND_REFRESH_TIME_SQL = "select max(last_refresh_time) from espipe_checkpoint where index_name = ?";
+
+    private static final String INSERT = "insert into espipe_checkpoint values (?,?,?,?,?)";
+
+    private static final String UPDATE = "update espipe_checkpoint set last_key = ? where index_name = ? and partition_no = ?";
+
+    private static final String DELETE = "delete from espipe_checkpoint where index_name = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * create checkpoints for all partitions, nothing of the partition is acknowledged.
+     * @param partitions partitions of one index
+     * @param currentRefreshTime the cutoff shared by all partitions
+     */
+    public void create(List<InitPartition> partitions, LocalDateTime currentRefreshTime) {
+        List<Object[]> data = new ArrayList<>(partitions.size());
+        for (InitPartition partition : partitions) {
+            data.add(new Object[] { partition.getIndexName(), partition.getPartitionNo(),
+                    partition.getLowerKey() - 1, partition.getUpperKey(), currentRefreshTime });
+        }
+        this.jdbcTemplate.batchUpdate(INSERT, data);
+    }
+
+    /**
+     * move the checkpoint of one partition forward.
+     * @param partition partition
+     * @param lastKey the last acknowledged key
+     */
+    public void save(InitPartition partition, long lastKey) {
+        this.jdbcTemplate.update(UPDATE, lastKey, partition.getIndexName(), partition.getPartitionNo());
+    }
+
+    /**
+     * delete the checkpoints by index name.
+     * @param indexName index name
+     */
+    public void delete(String indexName) {
+        this.jdbcTemplate.update(DELETE, indexName);
+    }
+
+    /**
+     * find the partitions which are not finished, the lower key starts after the last
+     * acknowledged key.
+     * @param indexName index name
+     * @return unfinished partitions
+     */
+    public List<InitPartition> findUnfinished(String indexName) {
+        return this.jdbcTemplate.query(FIND_UNFINISHED_SQL, (rs, rowNum) -> new InitPartition(indexName,
+                rs.getInt("partition_no"), rs.getLong("last_key") + 1, rs.getLong("upper_key")), indexName);
+    }
+
+    /**
+     * find the cutoff of the checkpoints by index name.
+     * @param indexName index name
+     * @return last refresh time, null if there is no checkpoint
+     */
+    public LocalDateTime findRefreshTime(String indexName) {
+        try {
+            return this.jdbcTemplate.queryForObject(FIND_REFRESH_TIME_SQL, LocalDateTime.class, indexName);
+        }
+        catch (EmptyResultDataAccessException ex) {
+            return null;
+        }
+    }
+
+}
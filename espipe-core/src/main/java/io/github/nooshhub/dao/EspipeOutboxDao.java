@@ -0,0 +1,150 @@
+/*
+ * Copyright 2021-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.nooshhub.dao;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Espipe Outbox DAO drains the changes that triggers or the application write into
+ * espipe_outbox as (table, pk, op) rows, for tables without a reliable modify date.
+ *
+ * @author Neal Shan
+ * @since 10/18/2026
+ */
+@Service
+public class EspipeOutboxDao {
+
+    /**
+     * delete operation of a change, other operations re-read the row.
+     */
+    public static final String DELETE_OP = "D";
+
+    private static final String DRAIN_SQL = "select outbox_id, pk, op, create_date from espipe_outbox where table_name = ? order by outbox_id";
+
+    private static final String INSERT = "insert into espipe_outbox (table_name, pk, op, create_date) values (?, ?, ?, current_timestamp)";
+
+    private static final String DELETE = "delete from espipe_outbox where outbox_id = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * read the oldest changes of a table, the changes of the same pk are de-duplicated
+     * and the last operation wins.
+     * @param tableName table name
+     * @param batchSize max changes to read
+     * @return outbox batch
+     */
+    public OutboxBatch drain(String tableName, int batchSize) {
+        final OutboxBatch batch = new OutboxBatch();
+        // max rows is set after the fetch size of the template, some drivers reject a
+        // fetch size larger than max rows
+        this.jdbcTemplate.query(DRAIN_SQL, (ps) -> {
+            ps.setString(1, tableName);
+            ps.setMaxRows(batchSize);
+        }, (RowCallbackHandler) (rs) -> batch.add(rs.getLong(1), rs.getString(2), rs.getString(3),
+                rs.getTimestamp(4)));
+        return batch;
+    }
+
+    /**
+     * write a change, triggers and the application may write it by sql as well.
+     * @param tableName table name
+     * @param pk primary key
+     * @param op operation, I, U or D
+     */
+    public void create(String tableName, String pk, String op) {
+        this.jdbcTemplate.update(INSERT, tableName, pk, op);
+    }
+
+    /**
+     * delete the drained changes in one transaction, after their documents are
+     * acknowledged.
+     * @param batch outbox batch
+     */
+    public void delete(OutboxBatch batch) {
+        final List<Object[]> data = new ArrayList<>(batch.getOutboxIds().size());
+        batch.getOutboxIds().forEach((outboxId) -> data.add(new Object[] { outboxId }));
+        new TransactionTemplate(this.transactionManager)
+                .executeWithoutResult((status) -> this.jdbcTemplate.batchUpdate(DELETE, data));
+    }
+
+    /**
+     * changes drained from the outbox.
+     */
+    public static class OutboxBatch {
+
+        private final List<Long> outboxIds = new ArrayList<>();
+
+        private final Map<String, String> changes = new LinkedHashMap<>();
+
+        private final Map<String, Timestamp> changeDates = new HashMap<>();
+
+        void add(long outboxId, String pk, String op, Timestamp changeDate) {
+            this.outboxIds.add(outboxId);
+            // keep the order of the first change and the operation of the last one
+            this.changes.put(pk, op);
+            this.changeDates.put(pk, changeDate);
+        }
+
+        public List<Long> getOutboxIds() {
+            return this.outboxIds;
+        }
+
+        /**
+         * last operation by pk.
+         * @return changes
+         */
+        public Map<String, String> getChanges() {
+            return this.changes;
+        }
+
+        /**
+         * time of the last change by pk, the version of a delete.
+         * @param pk primary key
+         * @return change time, null if not known
+         */
+        public Timestamp getChangeDate(String pk) {
+            return this.changeDates.get(pk);
+        }
+
+        public boolean isEmpty() {
+            return this.outboxIds.isEmpty();
+        }
+
+        public int size() {
+            return this.outboxIds.size();
+        }
+
+    }
+
+}
@@ -34,10 +34,14 @@ public class EspipeTimerDao {
 
     private static final String FIND_LAST_REFRESH_TIME_SQL = "select last_refresh_time from espipe_timer where index_name = ? ";
 
-    private static final String INSERT = "insert into espipe_timer values (?,?)";
+    private static final String FIND_LAST_WATERMARK_SQL = "select last_watermark from espipe_timer where index_name = ? ";
+
+    private static final String INSERT = "insert into espipe_timer (index_name, last_refresh_time) values (?,?)";
 
     private static final String UPDATE = "update espipe_timer set last_refresh_time = ? where index_name = ?";
 
+    private static final String UPDATE_WATERMARK = "update espipe_timer set last_watermark = ? where index_name = ?";
+
     private static final String DELETE = "delete from espipe_timer where index_name = ?";
 
     @Autowired
@@ -58,6 +62,29 @@ public class EspipeTimerDao {
         }
     }
 
+    /**
+     * save the last watermark of an index, the timer of the index must exist.
+     * @param indexName index name
+     * @param watermark the highest value of the watermark column that is indexed
+     */
+    public void saveWatermark(String indexName, long watermark) {
+        this.jdbcTemplate.update(UPDATE_WATERMARK, watermark, indexName);
+    }
+
+    /**
+     * find last watermark by index name.
+     * @param indexName index name
+     * @return last watermark, null if the index is not synced by watermark
+     */
+    public Long findLastWatermark(String indexName) {
+        try {
+            return this.jdbcTemplate.queryForObject(FIND_LAST_WATERMARK_SQL, Long.class, indexName);
+        }
+        catch (EmptyResultDataAccessException ex) {
+            return null;
+        }
+    }
+
     /**
      * delete the last refresh time by index name.
      * @param indexName index name
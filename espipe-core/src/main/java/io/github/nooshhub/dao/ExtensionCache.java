@@ -0,0 +1,205 @@
+/*
+ * Copyright 2021-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.nooshhub.dao;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import io.github.nooshhub.config.EspipeCacheProperties;
+import io.github.nooshhub.metric.CacheMetric;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Extension cache, the custom fields of an extension id, a flatten map or a custom_fields
+ * string, shared by init and sync. The least recently used ids are evicted when the
+ * number of ids or the estimated heap bytes exceed the bounds. Every invalidation moves the
+ * generation of the index, and a value loaded before that is not cached, so a load racing
+ * with a change never keeps the old custom fields.
+ *
+ * @author Neal Shan
+ * @since 10/18/2026
+ */
+@Component
+public class ExtensionCache {
+
+    /**
+     * cached value of an extension id without custom fields.
+     */
+    public static final Object NONE = new Object();
+
+    @Autowired
+    private EspipeCacheProperties espipeCacheProperties;
+
+    private final LinkedHashMap<String, CacheEntry> entries = new LinkedHashMap<>(1024, 0.75f, true);
+
+    private final Map<String, Long> generations = new HashMap<>();
+
+    private long weightBytes;
+
+    private long hits;
+
+    private long misses;
+
+    private long evictions;
+
+    private long invalidations;
+
+    /**
+     * get custom fields of an extension id.
+     * @param indexName index name
+     * @param extensionId extension id
+     * @return custom fields, {@link #NONE} if the id has no custom fields, null if the id
+     * is not cached
+     */
+    public synchronized Object get(String indexName, String extensionId) {
+        CacheEntry entry = this.entries.get(key(indexName, extensionId));
+        if (entry == null) {
+            this.misses++;
+            return null;
+        }
+        this.hits++;
+        return entry.value;
+    }
+
+    /**
+     * get the generation of an index, read it before loading the values to put.
+     * @param indexName index name
+     * @return generation
+     */
+    public synchronized long generation(String indexName) {
+        return this.generations.getOrDefault(indexName, 0L);
+    }
+
+    /**
+     * put custom fields of an extension id, the least recently used ids are evicted. The
+     * value is dropped if the index is invalidated since the load started.
+     * @param indexName index name
+     * @param extensionId extension id
+     * @param value custom fields, null if the id has no custom fields
+     * @param generation generation of the index when the load started
+     */
+    public synchronized void put(String indexName, String extensionId, Object value, long generation) {
+        if (generation != generation(indexName)) {
+            return;
+        }
+        String key = key(indexName, extensionId);
+        CacheEntry entry = new CacheEntry((value != null) ? value : NONE, weigh(key, value));
+        CacheEntry old = this.entries.put(key, entry);
+        if (old != null) {
+            this.weightBytes -= old.weightBytes;
+        }
+        this.weightBytes += entry.weightBytes;
+
+        Iterator<CacheEntry> eldest = this.entries.values().iterator();
+        while (eldest.hasNext() && (this.entries.size() > this.espipeCacheProperties.getMaxEntries()
+                || this.weightBytes > this.espipeCacheProperties.getMaxWeightBytes())) {
+            this.weightBytes -= eldest.next().weightBytes;
+            eldest.remove();
+            this.evictions++;
+        }
+    }
+
+    /**
+     * invalidate extension ids changed in the extension table.
+     * @param indexName index name
+     * @param extensionIds extension ids
+     */
+    public synchronized void invalidate(String indexName, Collection<String> extensionIds) {
+        this.generations.merge(indexName, 1L, Long::sum);
+        for (String extensionId : extensionIds) {
+            CacheEntry entry = this.entries.remove(key(indexName, extensionId));
+            if (entry != null) {
+                this.weightBytes -= entry.weightBytes;
+                this.invalidations++;
+            }
+        }
+    }
+
+    /**
+     * remove all extension ids of an index.
+     * @param indexName index name
+     */
+    public synchronized void clear(String indexName) {
+        this.generations.merge(indexName, 1L, Long::sum);
+        final String prefix = key(indexName, "");
+        Iterator<Map.Entry<String, CacheEntry>> iterator = this.entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, CacheEntry> entry = iterator.next();
+            if (entry.getKey().startsWith(prefix)) {
+                this.weightBytes -= entry.getValue().weightBytes;
+                iterator.remove();
+            }
+        }
+    }
+
+    public synchronized CacheMetric cacheMetric() {
+        CacheMetric metric = new CacheMetric();
+        metric.setHits(this.hits);
+        metric.setMisses(this.misses);
+        metric.setHitRate((this.hits + this.misses > 0) ? (double) this.hits / (this.hits + this.misses) : 0);
+        metric.setEvictions(this.evictions);
+        metric.setInvalidations(this.invalidations);
+        metric.setSize(this.entries.size());
+        metric.setWeightBytes(this.weightBytes);
+        metric.setMaxWeightBytes(this.espipeCacheProperties.getMaxWeightBytes());
+        return metric;
+    }
+
+    private static String key(String indexName, String extensionId) {
+        return indexName + '\u0000' + extensionId;
+    }
+
+    /**
+     * rough heap size of an entry, strings are two bytes per char and other values are a
+     * boxed word.
+     * @param key key
+     * @param value custom fields
+     * @return bytes
+     */
+    private static long weigh(String key, Object value) {
+        long bytes = 96 + 2L * key.length();
+        if (value instanceof String) {
+            bytes += 40 + 2L * ((String) value).length();
+        }
+        else if (value instanceof Map) {
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                bytes += 72 + 2L * String.valueOf(entry.getKey()).length();
+                bytes += (entry.getValue() instanceof String) ? 40 + 2L * ((String) entry.getValue()).length() : 16;
+            }
+        }
+        return bytes;
+    }
+
+    private static final class CacheEntry {
+
+        private final Object value;
+
+        private final long weightBytes;
+
+        private CacheEntry(Object value, long weightBytes) {
+            this.value = value;
+            this.weightBytes = weightBytes;
+        }
+
+    }
+
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2021-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.nooshhub.dao;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+import io.github.nooshhub.exception.EspipeException;
+
+/**
+ * Extension cursor, merge joins the rows of an init query with the rows of
+ * extension_all.sql, both ordered by the numeric extension id. Only the extension rows
+ * of the current id are kept in memory. It is not thread safe.
+ *
+ * @author Neal Shan
+ * @since 10/18/2026
+ */
+public class ExtensionCursor {
+
+    private final ResultSet rs;
+
+    private final String extensionColumn;
+
+    private final boolean flatten;
+
+    private final int columnCount;
+
+    private boolean started;
+
+    private boolean hasRow;
+
+    private long rowId;
+
+    private boolean hasGroup;
+
+    private long groupId;
+
+    private Map<String, Object> customFlattenMap;
+
+    private String customFields;
+
+    ExtensionCursor(ResultSet rs, String extensionColumn, boolean flatten) throws SQLException {
+        this.rs = rs;
+        this.extensionColumn = extensionColumn;
+        this.flatten = flatten;
+        this.columnCount = rs.getMetaData().getColumnCount();
+    }
+
+    /**
+     * put custom fields in flattenMap, rows must come in ascending order of the extension
+     * id.
+     * @param flattenMap flatten map
+     * @throws SQLException all sql exception
+     */
+    public void extend(Map<String, Object> flattenMap) throws SQLException {
+        Object extensionId = flattenMap.get(this.extensionColumn);
+        if (extensionId == null) {
+            return;
+        }
+        long id = ((Number) extensionId).longValue();
+        if (!this.hasGroup || id != this.groupId) {
+            if (this.hasGroup && id < this.groupId) {
+                throw new EspipeException(String.format("Init rows are not ordered by %s, %d is after %d",
+                        this.extensionColumn, id, this.groupId));
+            }
+            load(id);
+        }
+
+        if (this.customFlattenMap != null) {
+            flattenMap.putAll(this.customFlattenMap);
+        }
+        else if (this.customFields != null) {
+            flattenMap.put("custom_fields", this.customFields);
+        }
+    }
+
+    private void load(long id) throws SQLException {
+        if (!this.started) {
+            this.started = true;
+            next();
+        }
+        while (this.hasRow && this.rowId < id) {
+            next();
+        }
+
+        Map<String, Object> map = null;
+        StringBuilder sb = null;
+        while (this.hasRow && this.rowId == id) {
+            String key = this.rs.getString(2).toLowerCase();
+            Object value = this.rs.getObject(3);
+            if (this.flatten) {
+                map = (map != null) ? map : new HashMap<>();
+                map.put(key, value);
+            }
+            else {
+                sb = (sb != null) ? sb : new StringBuilder();
+                ExtensionDao.appendCustomField(sb, key, value, this.columnCount);
+            }
+            next();
+        }
+
+        this.hasGroup = true;
+        this.groupId = id;
+        this.customFlattenMap = map;
+        this.customFields = (sb != null) ? sb.toString() : null;
+    }
+
+    /**
+     * move to the next extension row with an id.
+     * @throws SQLException all sql exception
+     */
+    private void next() throws SQLException {
+        while (this.rs.next()) {
+            this.rowId = this.rs.getLong(1);
+            if (!this.rs.wasNull()) {
+                this.hasRow = true;
+                return;
+            }
+        }
+        this.hasRow = false;
+    }
+
+}
@@ -0,0 +1,442 @@
+/*
+ * Copyright 2021-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.nooshhub.dao;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.function.Consumer;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import io.github.nooshhub.concurrent.AbstractThreadPoolFactory;
+import io.github.nooshhub.config.EspipeBulkheadProperties;
+import io.github.nooshhub.config.EspipeElasticsearchProperties;
+import io.github.nooshhub.config.ExtractionDataSource;
+import io.github.nooshhub.config.FetchProfile;
+import io.github.nooshhub.config.FetchProfile.Workload;
+import io.github.nooshhub.config.FetchProfileRegistry;
+import io.github.nooshhub.config.IndexConfig;
+import io.github.nooshhub.config.IndexConfigRegistry;
+import io.github.nooshhub.config.SqlTemplate;
+import io.github.nooshhub.exception.EspipeException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+
+/**
+ * Extension DAO, load custom or extension fields of a batch of rows by extension.sql.
+ * <p>
+ * The extension ids are bound to a prepared statement in chunks of fixed sizes, so the
+ * database reuses the plan of every chunk size, and the chunks are queried in parallel.
+ * The last chunk is padded with its last id. The custom fields of indices with
+ * extension_sync.sql are cached by {@link ExtensionCache}.
+ *
+ * @author Neal Shan
+ * @since 10/18/2026
+ */
+@Service
+public class ExtensionDao {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExtensionDao.class);
+
+    /**
+     * chunk sizes in ascending order, 512 keeps the IN list under the oracle limit 1000.
+     */
+    private static final int[] CHUNK_SIZES = { 1, 16, 128, 512 };
+
+    private static final String MERGE_JOIN = "merge_join";
+
+    private static final String ORDER_BY_EXTENSION_SQL = "select * from (%s) espipe_t order by espipe_t.%s";
+
+    private static final String EXTENSION_ALL_SQL = "select * from (%s) espipe_e order by 1";
+
+    @Autowired
+    private ExtractionDataSource extractionDataSource;
+
+    @Autowired
+    private EspipeElasticsearchProperties espipeElasticsearchProperties;
+
+    @Autowired
+    private IndexConfigRegistry indexConfigRegistry;
+
+    @Autowired
+    private FetchProfileRegistry fetchProfileRegistry;
+
+    @Autowired
+    private ExtensionCache extensionCache;
+
+    @Autowired
+    private EspipeBulkheadProperties espipeBulkheadProperties;
+
+    private ThreadPoolExecutor extensionExecutor;
+
+    @PostConstruct
+    public void initPool() {
+        this.extensionExecutor = AbstractThreadPoolFactory
+                .poolForExtension(this.espipeBulkheadProperties.getExtensionThreads());
+    }
+
+    /**
+     * put custom fields in flattenMap.
+     * @param workload workload of the rows, the extension queries use its pool
+     * @param indexName index name
+     * @param flattenMapList flatten Map List
+     */
+    public void extend(Workload workload, String indexName, List<Map<String, Object>> flattenMapList) {
+        IndexConfig indexConfig = this.indexConfigRegistry.getIndexConfig(indexName);
+        if (indexConfig.getExtensionColumn() == null) {
+            return;
+        }
+        final String extensionColumn = indexConfig.getExtensionColumn().toLowerCase();
+        final String fieldsMode = this.espipeElasticsearchProperties.getFieldsMode();
+        final boolean flatten = FieldsMode.FLATTEN.toString().equals(fieldsMode);
+        if (!flatten && !FieldsMode.CUSTOM_IN_ONE.toString().equals(fieldsMode)) {
+            return;
+        }
+
+        // distinct ids by the string the rows are matched with, the value keeps its type
+        Map<String, Object> extensionIds = new LinkedHashMap<>();
+        for (Map<String, Object> flattenMap : flattenMapList) {
+            Object extensionId = flattenMap.get(extensionColumn);
+            if (extensionId != null) {
+                extensionIds.putIfAbsent(String.valueOf(extensionId), extensionId);
+            }
+        }
+        if (extensionIds.isEmpty()) {
+            return;
+        }
+
+        // ids without a change query are not cached, the cache could never be refreshed
+        final boolean cached = indexConfig.getExtensionSyncSql() != null;
+        Map<String, Object> customIdToCustom = new HashMap<>();
+        Map<String, Object> missingIds = extensionIds;
+        if (cached) {
+            missingIds = new LinkedHashMap<>();
+            for (Map.Entry<String, Object> extensionId : extensionIds.entrySet()) {
+                Object custom = this.extensionCache.get(indexName, extensionId.getKey());
+                if (custom == null) {
+                    missingIds.put(extensionId.getKey(), extensionId.getValue());
+                }
+                else if (custom != ExtensionCache.NONE) {
+                    customIdToCustom.put(extensionId.getKey(), custom);
+                }
+            }
+        }
+
+        if (!missingIds.isEmpty()) {
+            final long generation = this.extensionCache.generation(indexName);
+            Map<String, Object> loaded = load(workload, indexConfig.getExtensionTemplate(),
+                    new ArrayList<>(missingIds.values()), flatten);
+            customIdToCustom.putAll(loaded);
+            if (cached) {
+                missingIds.keySet().forEach((id) -> this.extensionCache.put(indexName, id, loaded.get(id),
+                        generation));
+            }
+        }
+
+        for (Map<String, Object> flattenMap : flattenMapList) {
+            if (flattenMap.get(extensionColumn) != null) {
+                final Object custom = customIdToCustom.get(String.valueOf(flattenMap.get(extensionColumn)));
+                if (custom instanceof Map) {
+                    @SuppressWarnings("unchecked")
+                    final Map<String, Object> customFlattenMap = (Map<String, Object>) custom;
+                    flattenMap.putAll(customFlattenMap);
+                }
+                else if (custom != null) {
+                    flattenMap.put("custom_fields", custom);
+                }
+            }
+        }
+    }
+
+    /**
+     * load custom fields of extension ids by extension.sql.
+     * @param workload workload
+     * @param extensionTemplate extension.sql with one placeholder for the ids
+     * @param extensionIds distinct extension ids
+     * @param flatten true for a flatten map per id, otherwise a custom_fields string
+     * @return custom fields by the id string of the extension query
+     */
+    private Map<String, Object> load(Workload workload, SqlTemplate extensionTemplate, List<Object> extensionIds,
+            boolean flatten) {
+        Map<String, Object> customIdToCustom = new HashMap<>();
+        List<ExtensionRows> chunks = query(workload, extensionTemplate, extensionIds);
+        if (flatten) {
+            for (ExtensionRows chunk : chunks) {
+                for (Object[] row : chunk.rows) {
+                    @SuppressWarnings("unchecked")
+                    Map<String, Object> customFlattenMap = (Map<String, Object>) customIdToCustom
+                            .computeIfAbsent((String) row[0], (k) -> new HashMap<>());
+                    customFlattenMap.put((String) row[1], row[2]);
+                }
+            }
+        }
+        else {
+            Map<String, StringBuilder> customIdToSbMap = new HashMap<>();
+            for (ExtensionRows chunk : chunks) {
+                for (Object[] row : chunk.rows) {
+                    appendCustomField(customIdToSbMap.computeIfAbsent((String) row[0], (k) -> new StringBuilder()),
+                            (String) row[1], row[2], chunk.columnCount);
+                }
+            }
+            customIdToSbMap.forEach((id, sb) -> customIdToCustom.put(id, sb.toString()));
+        }
+        return customIdToCustom;
+    }
+
+    /**
+     * invalidate the cached custom fields of the extension ids changed in a sync window,
+     * found by extension_sync.sql.
+     * @param indexName index name
+     * @param from start of the window
+     * @param to end of the window
+     */
+    public void invalidate(String indexName, LocalDateTime from, LocalDateTime to) {
+        final SqlTemplate extensionSyncTemplate = this.indexConfigRegistry.getIndexConfig(indexName)
+                .getExtensionSyncTemplate();
+        if (extensionSyncTemplate == null) {
+            return;
+        }
+
+        List<String> changedIds = new ArrayList<>();
+        // a pair of start and end timestamp, the same as sync.sql
+        this.extractionDataSource.getJdbcTemplate(Workload.SYNC).query(extensionSyncTemplate.getSql(),
+                (ps) -> extensionSyncTemplate.bind(ps, 1, JdbcDao.window(from, to)),
+                (RowCallbackHandler) (rs) -> changedIds.add(rs.getString(1)));
+        if (!changedIds.isEmpty()) {
+            logger.debug("Invalidate {} extension ids of index {}", changedIds.size(), indexName);
+            this.extensionCache.invalidate(indexName, changedIds);
+        }
+    }
+
+    /**
+     * remove the cached custom fields of an index, init reloads all of them.
+     * @param indexName index name
+     */
+    public void clearCache(String indexName) {
+        this.extensionCache.clear(indexName);
+    }
+
+    /**
+     * check if init merge joins the extension fields by extension_all.sql.
+     * @param indexConfig index config
+     * @return true if the extension strategy is merge_join
+     */
+    public boolean isMergeJoin(IndexConfig indexConfig) {
+        final String fieldsMode = this.espipeElasticsearchProperties.getFieldsMode();
+        return MERGE_JOIN.equals(indexConfig.getExtensionStrategy()) && indexConfig.getExtensionColumn() != null
+                && (FieldsMode.FLATTEN.toString().equals(fieldsMode)
+                        || FieldsMode.CUSTOM_IN_ONE.toString().equals(fieldsMode));
+    }
+
+    /**
+     * order a query of the index by the extension column for merge join.
+     * @param indexConfig index config
+     * @param sql query
+     * @return ordered query
+     */
+    public String orderByExtension(IndexConfig indexConfig, String sql) {
+        return String.format(ORDER_BY_EXTENSION_SQL, sql, indexConfig.getExtensionColumn());
+    }
+
+    /**
+     * stream extension_all.sql ordered by the extension id on its own connection, the
+     * action reads the rows of the init query ordered by
+     * {@link #orderByExtension(IndexConfig, String)} and extends them by the cursor.
+     * @param indexConfig index config
+     * @param action action with the extension cursor
+     */
+    public void mergeJoin(IndexConfig indexConfig, Consumer<ExtensionCursor> action) {
+        final FetchProfile fetchProfile = this.fetchProfileRegistry.getFetchProfile(Workload.INIT);
+        final boolean flatten = FieldsMode.FLATTEN.toString()
+                .equals(this.espipeElasticsearchProperties.getFieldsMode());
+        this.extractionDataSource.getJdbcTemplate(Workload.INIT).execute((ConnectionCallback<Object>) (conn) -> {
+            try (PreparedStatement ps = fetchProfile.prepareStatement(conn,
+                    String.format(EXTENSION_ALL_SQL, indexConfig.getExtensionAllSql()))) {
+                fetchProfile.applyFetchSize(ps);
+                try (ResultSet rs = ps.executeQuery()) {
+                    action.accept(
+                            new ExtensionCursor(rs, indexConfig.getExtensionColumn().toLowerCase(), flatten));
+                }
+            }
+            return null;
+        });
+    }
+
+    /**
+     * append one extension row to the custom fields, a row is appended once per column
+     * of the extension query.
+     * @param sb custom fields
+     * @param key lowercase attribute key
+     * @param value attribute value
+     * @param columnCount column count of the extension query
+     */
+    static void appendCustomField(StringBuilder sb, String key, Object value, int columnCount) {
+        for (int i = 1; i <= columnCount; i++) {
+            sb.append(key);
+            sb.append(" ");
+            sb.append(value);
+            sb.append(" ");
+        }
+    }
+
+    /**
+     * query all chunks, the first chunk is queried by the caller and the others by the
+     * extension pool. The queue of the pool is bounded, the caller waits for a free slot
+     * before it takes a connection for the first chunk. Sync and fix query all chunks by
+     * the caller, the extension pool belongs to init.
+     * @param workload workload
+     * @param extensionTemplate extension.sql with one placeholder for the ids
+     * @param extensionIds distinct extension ids
+     * @return rows of every chunk in the order of the ids
+     */
+    private List<ExtensionRows> query(Workload workload, SqlTemplate extensionTemplate, List<Object> extensionIds) {
+        List<List<Object>> chunks = chunk(extensionIds);
+        if (chunks.size() == 1) {
+            return Collections.singletonList(queryChunk(workload, extensionTemplate, chunks.get(0)));
+        }
+        if (workload != Workload.INIT) {
+            List<ExtensionRows> result = new ArrayList<>(chunks.size());
+            chunks.forEach((chunk) -> result.add(queryChunk(workload, extensionTemplate, chunk)));
+            return result;
+        }
+
+        List<Future<ExtensionRows>> futures = new ArrayList<>(chunks.size() - 1);
+        List<ExtensionRows> result = new ArrayList<>(chunks.size());
+        try {
+            for (int i = 1; i < chunks.size(); i++) {
+                final List<Object> chunk = chunks.get(i);
+                futures.add(this.extensionExecutor.submit(() -> queryChunk(workload, extensionTemplate, chunk)));
+            }
+            result.add(queryChunk(workload, extensionTemplate, chunks.get(0)));
+            for (Future<ExtensionRows> future : futures) {
+                result.add(future.get());
+            }
+        }
+        catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw new EspipeException(ex.getCause().getMessage());
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new EspipeException("Extension query is interrupted");
+        }
+        finally {
+            futures.forEach((future) -> future.cancel(true));
+        }
+        return result;
+    }
+
+    private ExtensionRows queryChunk(Workload workload, SqlTemplate extensionTemplate, List<Object> chunk) {
+        final String sql = extensionTemplate.expand(chunk.size());
+        final ExtensionRows extensionRows = new ExtensionRows();
+        this.extractionDataSource.getJdbcTemplate(workload).query(sql, (ps) -> {
+            for (int i = 0; i < chunk.size(); i++) {
+                ps.setObject(i + 1, chunk.get(i));
+            }
+        }, (prs) -> {
+            if (extensionRows.columnCount == 0) {
+                extensionRows.columnCount = prs.getMetaData().getColumnCount();
+            }
+            extensionRows.rows
+                    .add(new Object[] { prs.getString(1), prs.getString(2).toLowerCase(), prs.getObject(3) });
+        });
+        return extensionRows;
+    }
+
+    /**
+     * split ids into chunks of the fixed sizes, the last chunk takes the smallest size
+     * that fits the rest and is padded with its last id.
+     * @param extensionIds distinct extension ids
+     * @return chunks
+     */
+    static List<List<Object>> chunk(List<Object> extensionIds) {
+        final int maxChunkSize = CHUNK_SIZES[CHUNK_SIZES.length - 1];
+        List<List<Object>> chunks = new ArrayList<>(extensionIds.size() / maxChunkSize + 1);
+        int from = 0;
+        while (from < extensionIds.size()) {
+            int rest = extensionIds.size() - from;
+            int chunkSize = maxChunkSize;
+            for (int size : CHUNK_SIZES) {
+                if (size >= rest) {
+                    chunkSize = size;
+                    break;
+                }
+            }
+
+            int to = Math.min(from + chunkSize, extensionIds.size());
+            List<Object> chunk = new ArrayList<>(chunkSize);
+            chunk.addAll(extensionIds.subList(from, to));
+            while (chunk.size() < chunkSize) {
+                chunk.add(extensionIds.get(to - 1));
+            }
+            chunks.add(chunk);
+            from = to;
+        }
+        return chunks;
+    }
+
+    @PreDestroy
+    public void destroy() {
+        AbstractThreadPoolFactory.shutdownNow(this.extensionExecutor);
+    }
+
+    private static class ExtensionRows {
+
+        private int columnCount;
+
+        private final List<Object[]> rows = new ArrayList<>();
+
+    }
+
+    enum FieldsMode {
+
+        /**
+         * Constant that indicates convert standard fields to a flatten map.
+         */
+        FLATTEN,
+
+        /**
+         * Constant that indicates aggregate standard and custom fields to a string.
+         */
+        ALL_IN_ONE,
+
+        /**
+         * Constant that indicates aggregate custom fields to a string.
+         */
+        CUSTOM_IN_ONE
+
+    }
+
+}
@@ -0,0 +1,229 @@
+/*
+ * Copyright 2021-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.nooshhub.dao;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Fetch size tuner, it samples the first rows of a query to measure the average row
+ * bytes and the time spent waiting for whole fetches of the result set. The wait of a
+ * fetch is spread over its rows, a fetch that is cut by the start of the query or by a
+ * change of the fetch size is not measured. The fetch size is doubled while the wait per
+ * row keeps falling by more than 5 percent, and halved instead when the first doubling
+ * does not help. The fetch size never exceeds the rows fitting in the fetch buffer or the
+ * max fetch size. One tuner is created per query and it is not thread safe.
+ *
+ * @author Neal Shan
+ * @since 10/18/2026
+ */
+public class FetchSizeTuner {
+
+    private static final int MIN_WINDOW_ROWS = 500;
+
+    private static final int MIN_FETCH_SIZE = 10;
+
+    private final long fetchBufferBytes;
+
+    private final int maxFetchSize;
+
+    private final int tuneRows;
+
+    private final int startFetchSize;
+
+    private int fetchSize;
+
+    private int bestFetchSize;
+
+    private double bestWaitPerRow = Double.MAX_VALUE;
+
+    private boolean growing = true;
+
+    private boolean tuning;
+
+    private int rows;
+
+    private long rowBytes;
+
+    private int fetchRows;
+
+    private int rowsInFetch;
+
+    private long fetchWaitNanos;
+
+    private boolean wholeFetch;
+
+    private int windowRows;
+
+    private long windowWaitNanos;
+
+    private long lastRowEnd;
+
+    private final LongSupplier nanoClock;
+
+    /**
+     * create a tuner.
+     * @param fetchSize the fetch size the query starts with
+     * @param fetchBufferBytes max bytes of the rows of one fetch
+     * @param maxFetchSize max fetch size
+     * @param tuneRows number of rows to sample, 0 disables tuning
+     */
+    public FetchSizeTuner(int fetchSize, long fetchBufferBytes, int maxFetchSize, int tuneRows) {
+        this(fetchSize, fetchBufferBytes, maxFetchSize, tuneRows, System::nanoTime);
+    }
+
+    /**
+     * create a tuner that measures the waits by a clock.
+     * @param fetchSize the fetch size the query starts with
+     * @param fetchBufferBytes max bytes of the rows of one fetch
+     * @param maxFetchSize max fetch size
+     * @param tuneRows number of rows to sample, 0 disables tuning
+     * @param nanoClock clock in nanoseconds
+     */
+    FetchSizeTuner(int fetchSize, long fetchBufferBytes, int maxFetchSize, int tuneRows, LongSupplier nanoClock) {
+        this.nanoClock = nanoClock;
+        this.startFetchSize = fetchSize;
+        this.fetchSize = fetchSize;
+        this.bestFetchSize = fetchSize;
+        this.fetchBufferBytes = fetchBufferBytes;
+        this.maxFetchSize = maxFetchSize;
+        this.tuneRows = tuneRows;
+        this.tuning = fetchSize > 0 && tuneRows > 0;
+        // the first row starts a fetch
+        this.fetchRows = fetchSize;
+        this.rowsInFetch = fetchSize;
+    }
+
+    /**
+     * call when a row is fetched and before it is processed.
+     */
+    public void beforeRow() {
+        if (!this.tuning) {
+            return;
+        }
+        if (this.rowsInFetch >= this.fetchRows) {
+            // the first fetch is read by the query, its wait is unknown
+            this.fetchRows = this.fetchSize;
+            this.rowsInFetch = 0;
+            this.fetchWaitNanos = 0;
+            this.wholeFetch = this.lastRowEnd > 0;
+        }
+        if (this.lastRowEnd > 0) {
+            this.fetchWaitNanos += this.nanoClock.getAsLong() - this.lastRowEnd;
+        }
+        this.rowsInFetch++;
+    }
+
+    /**
+     * call after a row is processed, the fetch size of the result set is changed at the
+     * end of the fetch that ends a sample window.
+     * @param rs result set
+     * @param flattenMap the mapped row
+     * @throws SQLException all sql exception
+     */
+    public void afterRow(ResultSet rs, Map<String, Object> flattenMap) throws SQLException {
+        if (!this.tuning) {
+            return;
+        }
+        this.rows++;
+        this.rowBytes += estimateBytes(flattenMap);
+
+        if (this.rowsInFetch == this.fetchRows && this.wholeFetch && this.fetchRows == this.fetchSize) {
+            this.windowWaitNanos += this.fetchWaitNanos;
+            this.windowRows += this.fetchRows;
+        }
+        if (this.windowRows >= Math.max(this.fetchSize * 2, MIN_WINDOW_ROWS)) {
+            tune(rs);
+        }
+        else if (this.rows >= this.tuneRows) {
+            finish(rs);
+        }
+        this.lastRowEnd = this.nanoClock.getAsLong();
+    }
+
+    /**
+     * get the fetch size, it is the best one found when tuning is finished.
+     * @return fetch size
+     */
+    public int getFetchSize() {
+        return this.tuning ? this.fetchSize : this.bestFetchSize;
+    }
+
+    private void tune(ResultSet rs) throws SQLException {
+        double waitPerRow = (double) this.windowWaitNanos / this.windowRows;
+        this.windowRows = 0;
+        this.windowWaitNanos = 0;
+
+        if (waitPerRow < this.bestWaitPerRow * 0.95) {
+            // keep going while the wait per row keeps falling
+            this.bestWaitPerRow = waitPerRow;
+            this.bestFetchSize = this.fetchSize;
+        }
+        else if (this.growing && this.bestFetchSize == this.startFetchSize) {
+            // a larger fetch does not help, try a smaller one
+            this.growing = false;
+            this.fetchSize = this.startFetchSize;
+        }
+        else {
+            finish(rs);
+            return;
+        }
+        int next = this.growing ? Math.min(this.fetchSize * 2, boundedFetchSize())
+                : Math.max(this.fetchSize / 2, Math.min(MIN_FETCH_SIZE, this.startFetchSize));
+        if (next != this.fetchSize && this.rows < this.tuneRows) {
+            this.fetchSize = next;
+            rs.setFetchSize(next);
+            return;
+        }
+        finish(rs);
+    }
+
+    private void finish(ResultSet rs) throws SQLException {
+        this.tuning = false;
+        this.bestFetchSize = Math.min(this.bestFetchSize, boundedFetchSize());
+        if (this.bestFetchSize != this.fetchSize) {
+            rs.setFetchSize(this.bestFetchSize);
+        }
+    }
+
+    private int boundedFetchSize() {
+        long avgRowBytes = Math.max(this.rowBytes / Math.max(this.rows, 1), 1);
+        return (int) Math.max(Math.min(this.fetchBufferBytes / avgRowBytes, this.maxFetchSize), 1);
+    }
+
+    /**
+     * rough heap size of a row, strings are two bytes per char and other values are a
+     * boxed word.
+     * @param flattenMap the mapped row
+     * @return bytes
+     */
+    private static long estimateBytes(Map<String, Object> flattenMap) {
+        long bytes = 0;
+        for (Object value : flattenMap.values()) {
+            if (value instanceof CharSequence) {
+                bytes += 40 + 2L * ((CharSequence) value).length();
+            }
+            else if (value != null) {
+                bytes += 16;
+            }
+        }
+        return bytes;
+    }
+
+}
@@ -0,0 +1,247 @@
+/*
+ * Copyright 2021-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.nooshhub.dao;
+
+import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+/**
+ * Flatten map of one row, standard fields are kept in an array indexed by the field
+ * names shared with all rows of the same query, custom fields added later are kept in
+ * a small map. Numeric and boolean fields stay in a primitive slot until they are read
+ * by {@link #get(Object)}.
+ *
+ * @author Neal Shan
+ * @since 10/18/2026
+ */
+@JsonSerialize(using = FlattenMapSerializer.class)
+public class FlattenMap extends AbstractMap<String, Object> {
+
+    /**
+     * marks a slot whose value is kept in the primitive array.
+     */
+    private static final Object PRIMITIVE = new Object();
+
+    private final FlattenRowMapper rowMapper;
+
+    private final Object[] values;
+
+    private final long[] primitives;
+
+    private Map<String, Object> customFields;
+
+    FlattenMap(FlattenRowMapper rowMapper, int size) {
+        this.rowMapper = rowMapper;
+        this.values = new Object[size];
+        this.primitives = new long[size];
+    }
+
+    void setValue(int slot, Object value) {
+        this.values[slot] = value;
+    }
+
+    void setPrimitive(int slot, long primitive) {
+        this.values[slot] = PRIMITIVE;
+        this.primitives[slot] = primitive;
+    }
+
+    private Object valueAt(int slot) {
+        Object value = this.values[slot];
+        if (value == PRIMITIVE) {
+            return this.rowMapper.getColumnReaders()[slot].box(this.primitives[slot]);
+        }
+        return value;
+    }
+
+    @Override
+    public Object get(Object key) {
+        Integer slot = this.rowMapper.getFieldIndex().get(key);
+        if (slot != null) {
+            return valueAt(slot);
+        }
+        return (this.customFields != null) ? this.customFields.get(key) : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return this.rowMapper.getFieldIndex().containsKey(key)
+                || (this.customFields != null && this.customFields.containsKey(key));
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        Integer slot = this.rowMapper.getFieldIndex().get(key);
+        if (slot != null) {
+            Object old = valueAt(slot);
+            this.values[slot] = value;
+            return old;
+        }
+        if (this.customFields == null) {
+            this.customFields = new HashMap<>();
+        }
+        return this.customFields.put(key, value);
+    }
+
+    /**
+     * copy the row, the copy shares the field names and has its own values and custom
+     * fields.
+     * @return copy
+     */
+    FlattenMap copy() {
+        FlattenMap copy = new FlattenMap(this.rowMapper, this.values.length);
+        System.arraycopy(this.values, 0, copy.values, 0, this.values.length);
+        System.arraycopy(this.primitives, 0, copy.primitives, 0, this.primitives.length);
+        if (this.customFields != null) {
+            copy.customFields = new HashMap<>(this.customFields);
+        }
+        return copy;
+    }
+
+    @Override
+    public int size() {
+        return this.values.length + ((this.customFields != null) ? this.customFields.size() : 0);
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return new AbstractSet<>() {
+
+            @Override
+            public Iterator<Entry<String, Object>> iterator() {
+                return new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+                return FlattenMap.this.size();
+            }
+
+        };
+    }
+
+    /**
+     * write all fields as json object fields, primitive slots are written directly.
+     * @param gen json generator
+     * @param provider serializer provider
+     * @param suppressNulls skip the fields with null value
+     * @throws IOException if the value could not be written
+     */
+    void writeFields(JsonGenerator gen, SerializerProvider provider, boolean suppressNulls) throws IOException {
+        final String[] fieldNames = this.rowMapper.getFieldNames();
+        final ColumnReader[] readers = this.rowMapper.getColumnReaders();
+        for (int slot = 0; slot < this.values.length; slot++) {
+            Object value = this.values[slot];
+            if (value == null) {
+                if (!suppressNulls) {
+                    gen.writeFieldName(fieldNames[slot]);
+                    gen.writeNull();
+                }
+            }
+            else if (value == PRIMITIVE) {
+                gen.writeFieldName(fieldNames[slot]);
+                readers[slot].write(gen, this.primitives[slot]);
+            }
+            else {
+                gen.writeFieldName(fieldNames[slot]);
+                writeValue(gen, provider, value);
+            }
+        }
+
+        if (this.customFields != null) {
+            for (Entry<String, Object> entry : this.customFields.entrySet()) {
+                if (entry.getValue() == null) {
+                    if (!suppressNulls) {
+                        gen.writeFieldName(entry.getKey());
+                        gen.writeNull();
+                    }
+                }
+                else {
+                    gen.writeFieldName(entry.getKey());
+                    writeValue(gen, provider, entry.getValue());
+                }
+            }
+        }
+    }
+
+    private static void writeValue(JsonGenerator gen, SerializerProvider provider, Object value) throws IOException {
+        if (value instanceof String) {
+            gen.writeString((String) value);
+        }
+        else if (value instanceof Date) {
+            provider.defaultSerializeDateValue((Date) value, gen);
+        }
+        else {
+            provider.defaultSerializeValue(value, gen);
+        }
+    }
+
+    private class EntryIterator implements Iterator<Entry<String, Object>> {
+
+        private int slot;
+
+        private Iterator<Entry<String, Object>> customIterator;
+
+        @Override
+        public boolean hasNext() {
+            if (this.slot < FlattenMap.this.values.length) {
+                return true;
+            }
+            return FlattenMap.this.customFields != null && customIterator().hasNext();
+        }
+
+        @Override
+        public Entry<String, Object> next() {
+            if (this.slot < FlattenMap.this.values.length) {
+                final int current = this.slot++;
+                return new SimpleEntry<>(FlattenMap.this.rowMapper.getFieldNames()[current],
+                        FlattenMap.this.valueAt(current)) {
+
+                    @Override
+                    public Object setValue(Object value) {
+                        FlattenMap.this.values[current] = value;
+                        return super.setValue(value);
+                    }
+
+                };
+            }
+            if (FlattenMap.this.customFields == null) {
+                throw new NoSuchElementException();
+            }
+            return customIterator().next();
+        }
+
+        private Iterator<Entry<String, Object>> customIterator() {
+            if (this.customIterator == null) {
+                this.customIterator = FlattenMap.this.customFields.entrySet().iterator();
+            }
+            return this.customIterator;
+        }
+
+    }
+
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2021-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.nooshhub.dao;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+/**
+ * Flatten map serializer writes the primitive slots of {@link FlattenMap} without
+ * boxing, null fields are skipped like a map when the mapper does not include nulls.
+ *
+ * @author Neal Shan
+ * @since 10/18/2026
+ */
+public class FlattenMapSerializer extends StdSerializer<FlattenMap> {
+
+    public FlattenMapSerializer() {
+        super(FlattenMap.class);
+    }
+
+    @Override
+    public void serialize(FlattenMap flattenMap, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        JsonInclude.Include inclusion = provider.getConfig().getDefaultPropertyInclusion().getContentInclusion();
+        boolean suppressNulls = inclusion != JsonInclude.Include.ALWAYS
+                && inclusion != JsonInclude.Include.USE_DEFAULTS;
+
+        gen.writeStartObject(flattenMap);
+        flattenMap.writeFields(gen, provider, suppressNulls);
+        gen.writeEndObject();
+    }
+
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2021-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.nooshhub.dao;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.jdbc.core.RowMapper;
+
+/**
+ * Flatten row mapper, the result set metadata is read once when the first row is
+ * mapped, then every row is copied to a {@link FlattenMap} sharing the lowercase field
+ * names by a {@link ColumnReader} chosen for every column. One mapper is created per
+ * query and it is not thread safe.
+ *
+ * @author Neal Shan
+ * @since 10/18/2026
+ */
+public class FlattenRowMapper implements RowMapper<Map<String, Object>> {
+
+    private String[] fieldNames;
+
+    private int[] columnTypes;
+
+    private int[] columnIndexes;
+
+    private ColumnReader[] columnReaders;
+
+    private Map<String, Integer> fieldIndex;
+
+    @Override
+    public Map<String, Object> mapRow(ResultSet rs, int rowNum) throws SQLException {
+        if (this.fieldNames == null) {
+            compile(rs.getMetaData());
+        }
+
+        FlattenMap flattenMap = new FlattenMap(this, this.fieldNames.length);
+        for (int i = 0; i < this.columnIndexes.length; i++) {
+            this.columnReaders[i].read(rs, this.columnIndexes[i], flattenMap, i);
+        }
+        return flattenMap;
+    }
+
+    /**
+     * get the jdbc types of the fields, the order is same as the field names.
+     * @return jdbc types defined in {@link java.sql.Types}
+     */
+    public int[] getColumnTypes() {
+        return this.columnTypes;
+    }
+
+    String[] getFieldNames() {
+        return this.fieldNames;
+    }
+
+    ColumnReader[] getColumnReaders() {
+        return this.columnReaders;
+    }
+
+    Map<String, Integer> getFieldIndex() {
+        return this.fieldIndex;
+    }
+
+    private void compile(ResultSetMetaData rsMetaData) throws SQLException {
+        int count = rsMetaData.getColumnCount();
+
+        // a duplicated column name is kept once, the last column wins like a map
+        Map<String, Integer> nameToColumn = new HashMap<>(count * 2);
+        for (int i = 1; i <= count; i++) {
+            nameToColumn.put(rsMetaData.getColumnName(i).toLowerCase().intern(), i);
+        }
+
+        String[] names = new String[nameToColumn.size()];
+        int[] types = new int[names.length];
+        int[] indexes = new int[names.length];
+        ColumnReader[] readers = new ColumnReader[names.length];
+        Map<String, Integer> index = new HashMap<>(names.length * 2);
+        int slot = 0;
+        for (int i = 1; i <= count; i++) {
+            String name = rsMetaData.getColumnName(i).toLowerCase().intern();
+            if (nameToColumn.get(name) == i) {
+                names[slot] = name;
+                types[slot] = rsMetaData.getColumnType(i);
+                indexes[slot] = i;
+                readers[slot] = ColumnReader.of(types[slot], rsMetaData.getPrecision(i), rsMetaData.getScale(i),
+                        rsMetaData.isSigned(i));
+                index.put(name, slot);
+                slot++;
+            }
+        }
+
+        this.fieldNames = names;
+        this.columnTypes = types;
+        this.columnIndexes = indexes;
+        this.columnReaders = readers;
+        this.fieldIndex = index;
+    }
+
+}
@@ -16,33 +16,65 @@
 
 package io.github.nooshhub.dao;
 
-import java.sql.JDBCType;
-import java.sql.ParameterMetaData;
 import java.sql.PreparedStatement;
-import java.sql.ResultSet;
-import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiFunction;
+import java.util.stream.Collectors;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 
 import co.elastic.clients.elasticsearch.core.BulkResponse;
 import com.zaxxer.hikari.HikariDataSource;
+import io.github.nooshhub.concurrent.AbstractThreadPoolFactory;
+import io.github.nooshhub.concurrent.BulkController;
+import io.github.nooshhub.concurrent.CompletableTask;
+import io.github.nooshhub.concurrent.InitPartition;
+import io.github.nooshhub.concurrent.InitPipeline;
+import io.github.nooshhub.concurrent.InitProgress;
+import io.github.nooshhub.concurrent.TaskManager;
+import io.github.nooshhub.config.EspipeBulkheadProperties;
 import io.github.nooshhub.config.EspipeElasticsearchProperties;
+import io.github.nooshhub.config.EspipeJdbcProperties;
+import io.github.nooshhub.config.ExtractionDataSource;
+import io.github.nooshhub.config.FetchProfile;
+import io.github.nooshhub.config.FetchProfile.Workload;
+import io.github.nooshhub.config.FetchProfileRegistry;
 import io.github.nooshhub.config.IndexConfig;
 import io.github.nooshhub.config.IndexConfigRegistry;
+import io.github.nooshhub.config.SqlTemplate;
+import io.github.nooshhub.config.SqlTemplate.Role;
+import io.github.nooshhub.exception.EspipeException;
 import io.github.nooshhub.metric.JdbcMetric;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StopWatch;
 
@@ -57,26 +89,81 @@ public class JdbcDao {
 
     private static final Logger logger = LoggerFactory.getLogger(JdbcDao.class);
 
+    private static final String KEY_RANGE_SQL = "select min(espipe_t.%s), max(espipe_t.%s) from (%s) espipe_t";
+
+    private static final String PARTITION_SQL = "select * from (%s) espipe_t where espipe_t.%s > ? and espipe_t.%s <= ?";
+
+    private static final String PAGE_SQL = PARTITION_SQL + " order by espipe_t.%s";
+
+    private static final String COUNT_SQL = "select count(*) from (%s) espipe_c";
+
+    private static final String MAX_WATERMARK_SQL = "select max(espipe_t.%s) from (%s) espipe_t";
+
+    private static final String WATERMARK_PAGE_SQL = "select * from (%s) espipe_w order by espipe_w.%s";
+
+    private static final String KEYED_SQL = "select * from (%s) espipe_t where espipe_t.%s in (%s)";
+
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
     @Autowired
     private ElasticsearchDao elasticsearchDao;
 
+    @Autowired
+    private ExtensionDao extensionDao;
+
     @Autowired
     private EspipeTimerDao espipeTimerDao;
 
+    @Autowired
+    private EspipeCheckpointDao espipeCheckpointDao;
+
     @Autowired
     private EspipeElasticsearchProperties espipeElasticsearchProperties;
 
     @Autowired
     private IndexConfigRegistry indexConfigRegistry;
 
+    @Autowired
+    private FetchProfileRegistry fetchProfileRegistry;
+
+    @Autowired
+    private EspipeJdbcProperties espipeJdbcProperties;
+
+    @Autowired
+    private ExtractionDataSource extractionDataSource;
+
+    @Autowired
+    private EspipeOutboxDao espipeOutboxDao;
+
+    @Autowired
+    private EspipeBulkheadProperties espipeBulkheadProperties;
+
+    /**
+     * tuned fetch size of init queries per index, the next query of the index starts with
+     * it.
+     */
+    private final Map<String, Integer> fetchSizes = new ConcurrentHashMap<>();
+
+    private ThreadPoolExecutor partitionExecutor;
+
+    private ThreadPoolExecutor enrichExecutor;
+
+    @PostConstruct
+    public void initPools() {
+        this.partitionExecutor = AbstractThreadPoolFactory
+                .poolForPartition(this.extractionDataSource.getPartitionThreads());
+        this.enrichExecutor = AbstractThreadPoolFactory.poolForEnrich(this.espipeBulkheadProperties.getEnrichThreads());
+    }
+
     public JdbcMetric jdbcMetrics() {
         JdbcMetric metric = new JdbcMetric();
         metric.setFetchSize(this.jdbcTemplate.getFetchSize());
         metric.setMaxRows(this.jdbcTemplate.getMaxRows());
         metric.setQueryTimeout(this.jdbcTemplate.getQueryTimeout());
+        metric.setFetchProfiles(this.fetchProfileRegistry.getFetchProfiles());
+        metric.setFetchSizes(new HashMap<>(this.fetchSizes));
+        metric.setPools(this.extractionDataSource.poolMetrics());
 
         // connection size and status
         HikariDataSource ds = (HikariDataSource) this.jdbcTemplate.getDataSource();
@@ -101,59 +188,499 @@ public class JdbcDao {
 
         jdbcMetrics();
 
-        this.espipeTimerDao.delete(indexName);
-        this.elasticsearchDao.createIndex(indexName);
+        prepareInit(indexName);
 
         StopWatch sw = new StopWatch();
         sw.start();
 
         IndexConfig indexConfig = this.indexConfigRegistry.getIndexConfig(indexName);
         LocalDateTime currentRefreshTime = LocalDateTime.now(ZoneId.systemDefault());
-        List<CompletableFuture<BulkResponse>> futures = new ArrayList<>();
-        List<Map<String, Object>> flattenMapList = new ArrayList<>(this.jdbcTemplate.getFetchSize());
-        this.jdbcTemplate.query(indexConfig.getInitSql(), new Object[] { currentRefreshTime },
-                new int[] { JDBCType.TIMESTAMP.getVendorTypeNumber() }, (rs) -> {
-                    Map<String, Object> flattenMap = createStandardFlattenMap(rs);
-                    flattenMapList.add(flattenMap);
-
-                    // send per jdbcTemplate.getFetchSize()
-                    boolean isSend = (rs.getRow() % this.espipeElasticsearchProperties.getBulkSize() == 0);
-                    if (isSend) {
-                        if (logger.isDebugEnabled()) {
-                            logger.debug("index data size {}", flattenMapList.size());
-                        }
-                        extendFlattenMap(indexName, flattenMapList);
-                        futures.add(this.elasticsearchDao.createDocument(indexName, flattenMapList));
-                        flattenMapList.clear();
-                    }
 
-                });
-
-        // process the rest of data, like we have total 12038, the above will process
-        // 12000, the rest 38 will be processed here
-        if (!flattenMapList.isEmpty()) {
-            if (logger.isDebugEnabled()) {
-                logger.debug("index data size {}", flattenMapList.size());
+        List<InitPartition> partitions = createPartitions(indexConfig, currentRefreshTime);
+        estimateInit(indexConfig, currentRefreshTime, partitions, false);
+        final Map<Role, Timestamp> cutoff = Map.of(Role.CUTOFF, Timestamp.valueOf(currentRefreshTime));
+        final PreparedStatementSetter pss = (ps) -> indexConfig.getInitTemplate().bind(ps, 1, cutoff);
+        if (partitions.isEmpty() && this.extensionDao.isMergeJoin(indexConfig)) {
+            final InitStage initStage = new InitStage(indexName, null, false);
+            this.extensionDao.mergeJoin(indexConfig,
+                    (extensionCursor) -> initByQuery(indexName,
+                            this.extensionDao.orderByExtension(indexConfig, indexConfig.getInitSql()), pss, 0,
+                            initStage, extensionCursor));
+        }
+        else if (partitions.isEmpty()) {
+            final InitStage initStage = new InitStage(indexName, null, true);
+            initByQuery(indexName, indexConfig.getInitSql(), pss, 0, initStage, null);
+        }
+        else {
+            if (this.extensionDao.isMergeJoin(indexConfig)) {
+                logger.warn("Index {} is partitioned, extension fields are looked up per batch", indexName);
             }
-            extendFlattenMap(indexName, flattenMapList);
-            futures.add(this.elasticsearchDao.createDocument(indexName, flattenMapList));
-            flattenMapList.clear();
+            this.espipeCheckpointDao.create(partitions, currentRefreshTime);
+            initPartitions(indexName, indexConfig, currentRefreshTime, partitions);
+        }
+
+        finishInit(indexName, currentRefreshTime, sw);
+    }
+
+    /**
+     * forget the timer, cache and checkpoints of an index and recreate it.
+     * @param indexName index name
+     */
+    private void prepareInit(String indexName) {
+        this.espipeTimerDao.delete(indexName);
+        this.extensionDao.clearCache(indexName);
+        this.espipeCheckpointDao.delete(indexName);
+        TaskManager.getInitPartitions().remove(indexName);
+        TaskManager.getInitPipelines().put(indexName, new InitPipeline());
+        TaskManager.getInitProgresses().put(indexName, new InitProgress());
+        this.elasticsearchDao.createIndex(indexName);
+    }
+
+    /**
+     * resume init from the checkpoints, the index is not recreated and only the keys
+     * after the last acknowledged key of every partition are read.
+     * @param indexName index name
+     */
+    public void resumeInit(String indexName) {
+        if (!this.elasticsearchDao.isIndexExist(indexName)) {
+            logger.error("Index {} not exist, please init index manually.", indexName);
+            return;
+        }
+
+        LocalDateTime currentRefreshTime = this.espipeCheckpointDao.findRefreshTime(indexName);
+        if (currentRefreshTime == null) {
+            logger.warn("Checkpoint is null, please init index {} manually.", indexName);
+            return;
+        }
+
+        StopWatch sw = new StopWatch();
+        sw.start();
+
+        IndexConfig indexConfig = this.indexConfigRegistry.getIndexConfig(indexName);
+        List<InitPartition> partitions = this.espipeCheckpointDao.findUnfinished(indexName);
+        logger.info("Resume index {} from {} unfinished partitions", indexName, partitions.size());
+        TaskManager.getInitPartitions().remove(indexName);
+        TaskManager.getInitPipelines().put(indexName, new InitPipeline());
+        TaskManager.getInitProgresses().put(indexName, new InitProgress());
+        estimateInit(indexConfig, currentRefreshTime, partitions, true);
+        if (!partitions.isEmpty()) {
+            initPartitions(indexName, indexConfig, currentRefreshTime, partitions);
         }
 
-        this.elasticsearchDao.processCompletableFutures(indexName, futures);
+        finishInit(indexName, currentRefreshTime, sw);
+    }
 
+    private void finishInit(String indexName, LocalDateTime currentRefreshTime, StopWatch sw) {
         this.elasticsearchDao.updateSettingsAfterInit(indexName);
         sw.stop();
 
         // reset after init script finished, or sync script will create document, index
         // settings will be changed, since sync is based on last refresh time.
         this.espipeTimerDao.save(indexName, currentRefreshTime);
+        saveInitWatermark(indexName, currentRefreshTime);
+        this.espipeCheckpointDao.delete(indexName);
         logger.info("Init index {} success", indexName);
         logger.info("Total time: {}s", sw.getTotalTimeSeconds());
     }
 
     /**
-     * Init one index with ids and values in a map.
+     * save the highest watermark of the rows before the init cutoff, sync reads the rows
+     * after it.
+     * @param indexName index name
+     * @param currentRefreshTime the init cutoff
+     */
+    private void saveInitWatermark(String indexName, LocalDateTime currentRefreshTime) {
+        IndexConfig indexConfig = this.indexConfigRegistry.getIndexConfig(indexName);
+        if (indexConfig.getWatermarkColumn() == null) {
+            return;
+        }
+        Long watermark = this.extractionDataSource.getJdbcTemplate(Workload.INIT).query(
+                String.format(MAX_WATERMARK_SQL, indexConfig.getWatermarkColumn(), indexConfig.getInitSql()),
+                (ps) -> bindCutoff(indexConfig, ps, currentRefreshTime), (rs) -> {
+                    rs.next();
+                    long max = rs.getLong(1);
+                    return rs.wasNull() ? null : max;
+                });
+        this.espipeTimerDao.saveWatermark(indexName, (watermark != null) ? watermark : Long.MIN_VALUE);
+        logger.info("Index {} syncs after watermark {}", indexName, watermark);
+    }
+
+    /**
+     * split the key space of the single id column into ranges, every range is read by
+     * its own connection and thread. The checkpoints of resume are kept per range, so an
+     * index is partitioned, paged and resumable only by a single numeric id column.
+     * @param indexConfig index config
+     * @param currentRefreshTime the cutoff shared by all partitions
+     * @return partitions, empty if the index should be initialized by one query
+     */
+    private List<InitPartition> createPartitions(IndexConfig indexConfig, LocalDateTime currentRefreshTime) {
+        List<InitPartition> partitions = new ArrayList<>();
+        String keyColumn = indexConfig.getIdColumns();
+        if (indexConfig.getInitPartitions() <= 1 && indexConfig.getInitPageSize() <= 0) {
+            return partitions;
+        }
+        if (keyColumn.contains(",")) {
+            logger.warn("Index {} has the id columns {}, it is initialized by one query and can not be resumed",
+                    indexConfig.getIndexName(), keyColumn);
+            return partitions;
+        }
+
+        long[] keyRange = this.extractionDataSource.getJdbcTemplate(Workload.INIT).query(
+                String.format(KEY_RANGE_SQL, keyColumn, keyColumn, indexConfig.getInitSql()),
+                (ps) -> bindCutoff(indexConfig, ps, currentRefreshTime), (rs) -> {
+                    rs.next();
+                    Object min = rs.getObject(1);
+                    return (min != null) ? new long[] { partitionKey(indexConfig, min),
+                        partitionKey(indexConfig, rs.getObject(2)) } : null;
+                });
+        if (keyRange == null) {
+            return partitions;
+        }
+
+        long span = keyRange[1] - keyRange[0] + 1;
+        int size = (int) Math.min(Math.max(indexConfig.getInitPartitions(), 1), span);
+        long step = (span + size - 1) / size;
+        for (int i = 0; i < size; i++) {
+            long lowerKey = keyRange[0] + i * step;
+            long upperKey = (i == size - 1) ? keyRange[1] : lowerKey + step - 1;
+            partitions.add(new InitPartition(indexConfig.getIndexName(), i, lowerKey, upperKey));
+        }
+        return partitions;
+    }
+
+    /**
+     * estimate the rows of init before it starts. none skips it, statistics runs
+     * estimate.sql once and splits the estimate by the key span of the partitions, count
+     * counts init.sql, one partition after another, which can take as long as a scan of
+     * the table. A resumed init is estimated by count only, because estimate.sql
+     * includes the finished ranges.
+     * @param indexConfig index config
+     * @param currentRefreshTime the init cutoff
+     * @param partitions partitions, empty if the index is initialized by one query
+     * @param resume true if the init is resumed
+     */
+    private void estimateInit(IndexConfig indexConfig, LocalDateTime currentRefreshTime,
+            List<InitPartition> partitions, boolean resume) {
+        final String indexName = indexConfig.getIndexName();
+        final InitProgress progress = TaskManager.getInitProgresses().get(indexName);
+        if ("none".equals(indexConfig.getInitEstimate()) || (resume && partitions.isEmpty())
+                || (resume && "statistics".equals(indexConfig.getInitEstimate()))) {
+            return;
+        }
+
+        final Map<Role, Timestamp> cutoff = Map.of(Role.CUTOFF, Timestamp.valueOf(currentRefreshTime));
+        final long start = System.currentTimeMillis();
+        if ("statistics".equals(indexConfig.getInitEstimate())) {
+            long estimatedRows = count(indexConfig.getEstimateSql(),
+                    (ps) -> indexConfig.getEstimateTemplate().bind(ps, 1, cutoff));
+            progress.setEstimatedRows(estimatedRows);
+            long span = 0;
+            for (InitPartition partition : partitions) {
+                span += partition.getUpperKey() - partition.getLowerKey() + 1;
+            }
+            for (InitPartition partition : partitions) {
+                double share = (double) (partition.getUpperKey() - partition.getLowerKey() + 1) / span;
+                partition.getProgress().setEstimatedRows(Math.round(estimatedRows * share));
+            }
+        }
+        else if (partitions.isEmpty()) {
+            progress.setEstimatedRows(
+                    count(String.format(COUNT_SQL, indexConfig.getInitSql()),
+                            (ps) -> indexConfig.getInitTemplate().bind(ps, 1, cutoff)));
+        }
+        else {
+            final String keyColumn = indexConfig.getIdColumns();
+            final String sql = String.format(COUNT_SQL,
+                    String.format(PARTITION_SQL, indexConfig.getInitSql(), keyColumn, keyColumn));
+            long estimatedRows = 0;
+            for (InitPartition partition : partitions) {
+                long rows = count(sql, (ps) -> {
+                    int index = indexConfig.getInitTemplate().bind(ps, 1, cutoff);
+                    ps.setLong(index, partition.getLowerKey() - 1);
+                    ps.setLong(index + 1, partition.getUpperKey());
+                });
+                partition.getProgress().setEstimatedRows(rows);
+                estimatedRows += rows;
+            }
+            progress.setEstimatedRows(estimatedRows);
+        }
+        logger.info("Index {} is estimated {} rows in {}ms", indexName, progress.getEstimatedRows(),
+                System.currentTimeMillis() - start);
+    }
+
+    private long count(String sql, PreparedStatementSetter pss) {
+        Long rows = this.extractionDataSource.getJdbcTemplate(Workload.INIT).query(sql, pss,
+                (rs) -> rs.next() ? rs.getLong(1) : null);
+        return (rows != null) ? rows : 0;
+    }
+
+    /**
+     * init all partitions in parallel and wait for them. The first failed partition
+     * cancels the others and fails the whole init, the checkpoints of the cancelled
+     * partitions are kept for resume.
+     * @param indexName index name
+     * @param indexConfig index config
+     * @param currentRefreshTime the cutoff shared by all partitions
+     * @param partitions partitions
+     */
+    private void initPartitions(String indexName, IndexConfig indexConfig, LocalDateTime currentRefreshTime,
+            List<InitPartition> partitions) {
+        TaskManager.getInitPartitions().put(indexName, partitions);
+        logger.info("Init index {} by {} partitions", indexName, partitions.size());
+
+        CompletionService<InitPartition> completionService = new ExecutorCompletionService<>(
+                this.partitionExecutor);
+        List<Future<InitPartition>> partitionFutures = new ArrayList<>(partitions.size());
+        for (InitPartition partition : partitions) {
+            partitionFutures.add(completionService.submit(() -> {
+                if (!partition.start()) {
+                    return partition;
+                }
+                partition.getProgress().start();
+                try {
+                    initPartition(indexName, indexConfig, currentRefreshTime, partition);
+                    partition.setStatus(InitPartition.Status.DONE);
+                }
+                catch (RuntimeException ex) {
+                    if (Thread.currentThread().isInterrupted()) {
+                        partition.setStatus(InitPartition.Status.CANCELLED);
+                    }
+                    else {
+                        partition.fail(ex.getMessage());
+                    }
+                    throw ex;
+                }
+                return partition;
+            }));
+        }
+
+        try {
+            for (int i = 0; i < partitionFutures.size(); i++) {
+                try {
+                    completionService.take().get();
+                }
+                catch (ExecutionException ex) {
+                    logger.error("Init index {} failed, {}, cancel the other partitions", indexName,
+                            ex.getCause().getMessage());
+                    cancelPartitions(partitions, partitionFutures);
+                    for (InitPartition partition : partitions) {
+                        partition.awaitStopped();
+                    }
+                    List<Integer> failedPartitions = partitions.stream()
+                            .filter((partition) -> partition.getStatus() == InitPartition.Status.FAILED)
+                            .map(InitPartition::getPartitionNo).collect(Collectors.toList());
+                    throw new EspipeException(
+                            String.format("Init index %s failed in partitions %s", indexName, failedPartitions));
+                }
+            }
+        }
+        catch (InterruptedException ex) {
+            cancelPartitions(partitions, partitionFutures);
+            Thread.currentThread().interrupt();
+            throw new EspipeException(String.format("Init index %s is interrupted", indexName));
+        }
+    }
+
+    private static void cancelPartitions(List<InitPartition> partitions, List<Future<InitPartition>> futures) {
+        futures.forEach((future) -> future.cancel(true));
+        partitions.forEach(InitPartition::cancel);
+    }
+
+    /**
+     * init one partition by keyset pages ordered by the id column, the checkpoint is
+     * saved after all bulk requests of a page are acknowledged. Without page size, the
+     * whole partition is one page.
+     * @param indexName index name
+     * @param indexConfig index config
+     * @param currentRefreshTime the cutoff shared by all partitions
+     * @param partition partition
+     */
+    private void initPartition(String indexName, IndexConfig indexConfig, LocalDateTime currentRefreshTime,
+            InitPartition partition) {
+        final String keyColumn = indexConfig.getIdColumns();
+        final int pageSize = Math.max(indexConfig.getInitPageSize(), 0);
+        final String sql = (pageSize > 0)
+                ? String.format(PAGE_SQL, indexConfig.getInitSql(), keyColumn, keyColumn, keyColumn)
+                : String.format(PARTITION_SQL, indexConfig.getInitSql(), keyColumn, keyColumn);
+        final Map<Role, Timestamp> cutoff = Map.of(Role.CUTOFF, Timestamp.valueOf(currentRefreshTime));
+
+        long lastKey = partition.getLowerKey() - 1;
+        while (lastKey < partition.getUpperKey()) {
+            final InitStage initStage = new InitStage(indexName, partition, true);
+            final long pageLastKey = lastKey;
+            int rows = initByQuery(indexName, sql, (ps) -> {
+                int index = indexConfig.getInitTemplate().bind(ps, 1, cutoff);
+                ps.setLong(index, pageLastKey);
+                ps.setLong(index + 1, partition.getUpperKey());
+            }, pageSize, initStage, null);
+
+            if (!initStage.isAcknowledged()) {
+                throw new EspipeException(String.format("Init index %s partition %d failed after key %d", indexName,
+                        partition.getPartitionNo(), lastKey));
+            }
+
+            lastKey = (pageSize > 0 && rows == pageSize) ? partition.getLastReadKey() : partition.getUpperKey();
+            this.espipeCheckpointDao.save(partition, lastKey);
+        }
+    }
+
+    /**
+     * read the init query and send documents per bulk size. The cursor thread hands every
+     * batch to the enrich stage and keeps reading, the enriched batch is encoded and sent
+     * by the enrich thread. When the enrich stage is full the cursor thread waits for a
+     * free slot, so at most the queue of batches is buffered. Merge joined batches are
+     * already extended by the cursor and skip the enrich stage. The bulk responses are
+     * processed as they arrive, and the cursor waits while the bulk requests in flight
+     * reach the bound of the index, so the heap holds a bounded number of batches for any
+     * table size.
+     * @param indexName index name
+     * @param sql init query
+     * @param pss binds the query arguments
+     * @param maxRows max rows of the query, 0 means no limit
+     * @param initStage enrich and bulk stage of the index
+     * @param extensionCursor merge joins extension fields, null to look them up per batch
+     * @return number of rows read
+     */
+    private int initByQuery(String indexName, String sql, PreparedStatementSetter pss, int maxRows,
+            InitStage initStage, ExtensionCursor extensionCursor) {
+        return scan(indexName, sql, pss, maxRows, List.of(initStage), initStage.partition, extensionCursor);
+    }
+
+    /**
+     * init the indices of one shared_scan group by one cursor, every row is fanned out to
+     * the stages of all indices. A stage has its own bound of batches in flight, so the
+     * cursor only waits for the index that is behind. The scan reads init.sql, the
+     * estimate and the fetch size of the first index, a failed index fails the scan of
+     * all indices of the group.
+     * @param indexNames indices of the shared scan
+     */
+    public void initShared(List<String> indexNames) {
+        if (!this.elasticsearchDao.isServerUp()) {
+            logger.error("Elasticsearch server is not accessible, please Check.");
+            return;
+        }
+
+        jdbcMetrics();
+
+        List<StopWatch> stopWatches = new ArrayList<>(indexNames.size());
+        for (String indexName : indexNames) {
+            prepareInit(indexName);
+            StopWatch sw = new StopWatch();
+            sw.start();
+            stopWatches.add(sw);
+        }
+
+        final IndexConfig indexConfig = this.indexConfigRegistry.getIndexConfig(indexNames.get(0));
+        final LocalDateTime currentRefreshTime = LocalDateTime.now(ZoneId.systemDefault());
+        estimateInit(indexConfig, currentRefreshTime, Collections.emptyList(), false);
+        final long estimatedRows = TaskManager.getInitProgresses().get(indexConfig.getIndexName()).getEstimatedRows();
+
+        List<InitStage> initStages = new ArrayList<>(indexNames.size());
+        for (String indexName : indexNames) {
+            TaskManager.getInitProgresses().get(indexName).setEstimatedRows(estimatedRows);
+            initStages.add(new InitStage(indexName, null, true));
+        }
+        logger.info("Init indices {} by one scan of init.sql", indexNames);
+
+        final Map<Role, Timestamp> cutoff = Map.of(Role.CUTOFF, Timestamp.valueOf(currentRefreshTime));
+        scan(indexConfig.getIndexName(), indexConfig.getInitSql(),
+                (ps) -> indexConfig.getInitTemplate().bind(ps, 1, cutoff), 0, initStages, null, null);
+
+        for (int i = 0; i < indexNames.size(); i++) {
+            finishInit(indexNames.get(i), currentRefreshTime, stopWatches.get(i));
+        }
+    }
+
+    /**
+     * read an init query by one cursor and hand every row to the stages, the first stage
+     * takes the row and the others take a copy.
+     * @param indexName index name of the fetch size
+     * @param sql init query
+     * @param pss binds the query arguments
+     * @param maxRows max rows of the query, 0 means no limit
+     * @param initStages stages of the indices
+     * @param partition partition to track progress, null if not partitioned
+     * @param extensionCursor merge joins extension fields, null to look them up per batch
+     * @return number of rows read
+     */
+    private int scan(String indexName, String sql, PreparedStatementSetter pss, int maxRows,
+            List<InitStage> initStages, InitPartition partition, ExtensionCursor extensionCursor) {
+        final IndexConfig indexConfig = this.indexConfigRegistry.getIndexConfig(indexName);
+        final String keyColumn = indexConfig.getIdColumns().toLowerCase();
+        final int[] rows = new int[1];
+        final FlattenRowMapper rowMapper = new FlattenRowMapper();
+        final FetchSizeTuner fetchSizeTuner = createFetchSizeTuner(indexName);
+        final long readStart = System.nanoTime();
+        query(Workload.INIT, sql, (ps) -> {
+            ps.setMaxRows(maxRows);
+            // some drivers reject a fetch size above max rows
+            ps.setFetchSize((maxRows > 0) ? Math.min(fetchSizeTuner.getFetchSize(), maxRows)
+                    : fetchSizeTuner.getFetchSize());
+            pss.setValues(ps);
+        }, (rs) -> {
+            fetchSizeTuner.beforeRow();
+            Map<String, Object> flattenMap = rowMapper.mapRow(rs, rows[0]++);
+            if (extensionCursor != null) {
+                extensionCursor.extend(flattenMap);
+            }
+            if (partition != null) {
+                partition.setLastReadKey(partitionKey(indexConfig, flattenMap.get(keyColumn)));
+            }
+            for (int i = initStages.size() - 1; i > 0; i--) {
+                initStages.get(i).add(copyRow(flattenMap));
+            }
+            initStages.get(0).add(flattenMap);
+            fetchSizeTuner.afterRow(rs, flattenMap);
+        });
+        final long readNanos = System.nanoTime() - readStart;
+        this.fetchSizes.put(indexName, fetchSizeTuner.getFetchSize());
+
+        // process the rest of data, like we have total 12038, the above will process
+        // 12000, the rest 38 will be processed here
+        for (InitStage initStage : initStages) {
+            initStage.pipeline.addRead(readNanos);
+            initStage.flush();
+        }
+        for (InitStage initStage : initStages) {
+            initStage.await();
+        }
+        return rows[0];
+    }
+
+    private static Map<String, Object> copyRow(Map<String, Object> flattenMap) {
+        return (flattenMap instanceof FlattenMap) ? ((FlattenMap) flattenMap).copy() : new HashMap<>(flattenMap);
+    }
+
+    /**
+     * the key of a partition and its checkpoint, the id column must be numeric.
+     * @param indexConfig index config
+     * @param key value of the id column
+     * @return key
+     */
+    private static long partitionKey(IndexConfig indexConfig, Object key) {
+        if (!(key instanceof Number)) {
+            throw new EspipeException(String.format(
+                    "Index %s is partitioned, paged or resumed by the id column %s, it must be numeric",
+                    indexConfig.getIndexName(), indexConfig.getIdColumns()));
+        }
+        return ((Number) key).longValue();
+    }
+
+    /**
+     * create a fetch size tuner of an init query, streaming result sets are not tuned.
+     * @param indexName index name
+     * @return fetch size tuner
+     */
+    private FetchSizeTuner createFetchSizeTuner(String indexName) {
+        final FetchProfile fetchProfile = this.fetchProfileRegistry.getFetchProfile(Workload.INIT);
+        final int fetchSize = this.fetchSizes.getOrDefault(indexName, fetchProfile.getFetchSize());
+        return new FetchSizeTuner(fetchSize, this.espipeJdbcProperties.getFetchBufferBytes(),
+                this.espipeJdbcProperties.getMaxFetchSize(),
+                fetchProfile.isStreaming() ? 0 : this.espipeJdbcProperties.getTuneRows());
+    }
+
+    /**
+     * Init one index with ids and values in a map, the rows replace their documents.
      * @param indexName index name
      * @param idAndValueMap id and value map
      */
@@ -168,7 +695,7 @@ public class JdbcDao {
 
         IndexConfig indexConfig = this.indexConfigRegistry.getIndexConfig(indexName);
         LocalDateTime currentRefreshTime = LocalDateTime.now(ZoneId.systemDefault());
-        List<CompletableFuture<BulkResponse>> futures = new ArrayList<>();
+        final FlattenRowMapper rowMapper = new FlattenRowMapper();
         List<Map<String, Object>> flattenMapList = new ArrayList<>(this.jdbcTemplate.getFetchSize());
 
         // prepare the sql for init one index
@@ -176,38 +703,31 @@ public class JdbcDao {
         sql.append(indexConfig.getInitSql());
         idAndValueMap.forEach((id, value) -> sql.append(" AND ").append(id).append(" = ?"));
 
-        this.jdbcTemplate.query((conn) -> {
-            final PreparedStatement ps = conn.prepareStatement(sql.toString());
-            int index = 1;
-            ps.setTimestamp(index, Timestamp.valueOf(currentRefreshTime));
+        query(Workload.FIX, sql.toString(), (ps) -> {
+            final int[] index = { bindCutoff(indexConfig, ps, currentRefreshTime) };
             idAndValueMap.forEach((id, value) -> {
                 try {
-                    ps.setLong(index + 1, Long.parseLong(value));
+                    ps.setLong(index[0]++, Long.parseLong(value));
                 }
                 catch (SQLException ex) {
                     throw new IllegalArgumentException(
                             String.format("value %s is incorrect, %s", value, ex.getMessage()));
                 }
             });
-            return ps;
-        }, (rs) -> {
-            Map<String, Object> flattenMap = createStandardFlattenMap(rs);
-            flattenMapList.add(flattenMap);
+        }, (rs) -> flattenMapList.add(rowMapper.mapRow(rs, flattenMapList.size())));
 
-            if (logger.isDebugEnabled()) {
-                logger.debug("index data size {}", flattenMapList.size());
-            }
-            extendFlattenMap(indexName, flattenMapList);
-            futures.add(this.elasticsearchDao.createDocument(indexName, flattenMapList));
-            flattenMapList.clear();
-        });
-
-        if (futures.size() == 0) {
+        if (flattenMapList.isEmpty()) {
             throw new IllegalArgumentException(String.format("Init one index %s error, id %s is not exist", indexName,
                     Arrays.toString(idAndValueMap.values().toArray())));
         }
         else {
-            this.elasticsearchDao.processCompletableFutures(indexName, futures);
+            if (logger.isDebugEnabled()) {
+                logger.debug("index data size {}", flattenMapList.size());
+            }
+            this.extensionDao.extend(Workload.FIX, indexName, flattenMapList);
+            BulkSender bulkSender = new BulkSender(indexName, this.elasticsearchDao::indexDocument);
+            bulkSender.addAll(flattenMapList);
+            bulkSender.finish();
 
             sw.stop();
 
@@ -218,7 +738,11 @@ public class JdbcDao {
     }
 
     /**
-     * sync data to index.
+     * sync data to index, by the outbox or the watermark column if the index has one,
+     * otherwise by the time window since the last refresh time. The deletes of the window
+     * are sent before the changed rows, so a row deleted and inserted again in the window
+     * stays indexed. The window moves on only when its deletes and its changed rows are
+     * acknowledged, a failed window is read again by the next sync.
      * @param indexName index name
      */
     public void sync(String indexName) {
@@ -234,52 +758,291 @@ public class JdbcDao {
             return;
         }
 
-        LocalDateTime currentRefreshTime = LocalDateTime.now(ZoneId.systemDefault());
+        // a replica may not have the rows of the last moments yet, they are read by the next window
+        LocalDateTime currentRefreshTime = LocalDateTime.now(ZoneId.systemDefault())
+                .minus(this.extractionDataSource.getSyncLagMillis(), ChronoUnit.MILLIS);
+        if (!currentRefreshTime.isAfter(lastRefreshTime)) {
+            return;
+        }
 
-        this.espipeTimerDao.save(indexName, currentRefreshTime);
+        // drop cached extension fields changed in the same window before rows are extended
+        this.extensionDao.invalidate(indexName, lastRefreshTime.minusSeconds(1), currentRefreshTime);
+
+        final IndexConfig indexConfig = this.indexConfigRegistry.getIndexConfig(indexName);
+        final LocalDateTime decreasedLastRefreshTime = lastRefreshTime.minusSeconds(1);
+        boolean synced = syncDeletes(indexName, decreasedLastRefreshTime, currentRefreshTime);
+        if (indexConfig.getOutboxTable() != null) {
+            syncByOutbox(indexConfig);
+        }
+        else if (indexConfig.getWatermarkColumn() != null) {
+            syncByWatermark(indexConfig);
+        }
+        else {
+            synced = syncByWindow(indexConfig, decreasedLastRefreshTime, currentRefreshTime) && synced;
+        }
 
-        final String syncSql = this.indexConfigRegistry.getIndexConfig(indexName).getSyncSql();
+        if (synced) {
+            this.espipeTimerDao.save(indexName, currentRefreshTime);
+        }
+        else {
+            logger.error("Sync index {} failed from {} to {}, it is retried by the next sync", indexName,
+                    decreasedLastRefreshTime, currentRefreshTime);
+        }
+    }
+
+    /**
+     * sync the rows changed in the window by sync.sql, they replace their documents.
+     * @param indexConfig index config
+     * @param from start of the window
+     * @param to end of the window
+     * @return true if the changed rows are acknowledged
+     */
+    private boolean syncByWindow(IndexConfig indexConfig, LocalDateTime from, LocalDateTime to) {
+        final String indexName = indexConfig.getIndexName();
+        final FlattenRowMapper rowMapper = new FlattenRowMapper();
         List<Map<String, Object>> flattenMapList = new ArrayList<>(this.jdbcTemplate.getFetchSize());
-        this.jdbcTemplate.query((conn) -> {
-            LocalDateTime decreasedLastRefreshTime = lastRefreshTime.minusSeconds(1);
-
-            final PreparedStatement ps = conn.prepareStatement(syncSql);
-            ParameterMetaData parameterMetaData = ps.getParameterMetaData();
-            int paramCount = parameterMetaData.getParameterCount();
-            // the param count is depend on the sql, it should be even and is a pair of
-            // start and end timestamp.
-            for (int i = 0; i < paramCount; i++) {
-                if (i % 2 == 0) {
-                    ps.setTimestamp(i + 1, Timestamp.valueOf(decreasedLastRefreshTime));
-                }
-                else {
-                    ps.setTimestamp(i + 1, Timestamp.valueOf(currentRefreshTime));
-                }
-            }
+        query(Workload.SYNC, indexConfig.getSyncSql(), (ps) -> {
+            indexConfig.getSyncTemplate().bind(ps, 1, window(from, to));
 
             if (logger.isDebugEnabled()) {
-                logger.debug("syncing data for index {} from {} to {}", indexName,
-                        Timestamp.valueOf(decreasedLastRefreshTime), Timestamp.valueOf(currentRefreshTime));
+                logger.debug("syncing data for index {} from {} to {}", indexName, Timestamp.valueOf(from),
+                        Timestamp.valueOf(to));
             }
-
-            return ps;
         }, (rs) -> {
-            Map<String, Object> flattenMap = createStandardFlattenMap(rs);
+            Map<String, Object> flattenMap = rowMapper.mapRow(rs, flattenMapList.size());
             flattenMapList.add(flattenMap);
         });
 
-        if (!flattenMapList.isEmpty()) {
+        if (flattenMapList.isEmpty()) {
+            return true;
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug("syncing data for index {} size {}", indexName, flattenMapList.size());
+        }
+        this.extensionDao.extend(Workload.SYNC, indexName, flattenMapList);
+        BulkSender bulkSender = new BulkSender(indexName, this.elasticsearchDao::indexDocument);
+        bulkSender.addAll(flattenMapList);
+        return bulkSender.finish();
+    }
+
+    /**
+     * sync the changes drained from the outbox in batches, the changed rows are re-read by
+     * init.sql keyed by the id column and indexed, deleted rows are deleted. The drained
+     * changes are deleted after all documents of the batch are acknowledged, a failed
+     * batch is drained again by the next sync.
+     * @param indexConfig index config
+     */
+    private void syncByOutbox(IndexConfig indexConfig) {
+        final String indexName = indexConfig.getIndexName();
+        final String idColumn = indexConfig.getIdColumns().toLowerCase();
+        if (idColumn.contains(",")) {
+            logger.error("Index {} syncs by outbox, it needs a single id column", indexName);
+            return;
+        }
+        final int batchSize = (indexConfig.getOutboxBatchSize() > 0) ? indexConfig.getOutboxBatchSize()
+                : this.espipeElasticsearchProperties.getBulkSize();
+
+        EspipeOutboxDao.OutboxBatch batch;
+        do {
+            batch = this.espipeOutboxDao.drain(indexConfig.getOutboxTable(), batchSize);
+            if (batch.isEmpty()) {
+                return;
+            }
+
+            List<Object> changedIds = new ArrayList<>();
+            List<Map<String, Object>> deletedIdMapList = new ArrayList<>();
+            for (Map.Entry<String, String> change : batch.getChanges().entrySet()) {
+                final String pk = change.getKey();
+                if (EspipeOutboxDao.DELETE_OP.equals(change.getValue())) {
+                    // the change time versions the delete of an externally versioned index
+                    Map<String, Object> idMap = new HashMap<>();
+                    idMap.put(idColumn, pk);
+                    if (indexConfig.isExternalVersion() && batch.getChangeDate(pk) != null) {
+                        idMap.put(indexConfig.getVersionColumns()[0], batch.getChangeDate(pk));
+                    }
+                    deletedIdMapList.add(idMap);
+                }
+                else {
+                    changedIds.add(pk);
+                }
+            }
+            List<Map<String, Object>> flattenMapList = readByIds(indexConfig, changedIds);
             if (logger.isDebugEnabled()) {
-                logger.debug("syncing data for index {} size {}", indexName, flattenMapList.size());
+                logger.debug("syncing {} outbox changes of index {}, {} rows and {} deletes", batch.size(),
+                        indexName, flattenMapList.size(), deletedIdMapList.size());
+            }
+
+            BulkSender indexSender = new BulkSender(indexName, this.elasticsearchDao::indexDocument);
+            if (!flattenMapList.isEmpty()) {
+                this.extensionDao.extend(Workload.SYNC, indexName, flattenMapList);
+                indexSender.addAll(flattenMapList);
             }
-            extendFlattenMap(indexName, flattenMapList);
-            CompletableFuture<BulkResponse> bulkResFuture = this.elasticsearchDao.createDocument(indexName,
-                    flattenMapList);
+            BulkSender deleteSender = new BulkSender(indexName, this.elasticsearchDao::deleteDocument);
+            deleteSender.addAll(deletedIdMapList);
+            boolean indexed = indexSender.finish();
+            if (!(deleteSender.finish() && indexed)) {
+                logger.error("Sync index {} by outbox failed, the changes are drained again by the next sync",
+                        indexName);
+                return;
+            }
+            this.espipeOutboxDao.delete(batch);
+        }
+        while (batch.size() == batchSize);
+    }
+
+    /**
+     * read the current rows of ids by init.sql in chunks, the cutoff of init.sql is now, a
+     * row changed later has its own change in the outbox.
+     * @param indexConfig index config
+     * @param ids ids of the single id column
+     * @return rows
+     */
+    private List<Map<String, Object>> readByIds(IndexConfig indexConfig, List<Object> ids) {
+        final FlattenRowMapper rowMapper = new FlattenRowMapper();
+        final LocalDateTime cutoff = LocalDateTime.now(ZoneId.systemDefault());
+        List<Map<String, Object>> flattenMapList = new ArrayList<>(ids.size());
+        for (List<Object> chunk : ExtensionDao.chunk(ids)) {
+            final String sql = String.format(KEYED_SQL, indexConfig.getInitSql(), indexConfig.getIdColumns(),
+                    String.join(",", Collections.nCopies(chunk.size(), "?")));
+            query(Workload.SYNC, sql, (ps) -> {
+                int index = bindCutoff(indexConfig, ps, cutoff);
+                for (Object id : chunk) {
+                    ps.setObject(index++, id);
+                }
+            }, (rs) -> flattenMapList.add(rowMapper.mapRow(rs, flattenMapList.size())));
+        }
+        return flattenMapList;
+    }
 
-            this.elasticsearchDao.processCompletableFuture(indexName, bulkResFuture);
+    /**
+     * sync the rows after the last watermark in pages ordered by the watermark column,
+     * the watermark is saved after every acknowledged page, so rows are not lost by the
+     * clocks of the app and the database. When transactions commit out of the order of
+     * their change ids, a row committed after a higher change id was synced would be
+     * skipped, so every sync reads again the trailing watermark overlap below the last
+     * watermark. The rows are sent as index requests, a re-read or changed row replaces
+     * its document, and the saved watermark never goes back.
+     * @param indexConfig index config
+     */
+    private void syncByWatermark(IndexConfig indexConfig) {
+        final String indexName = indexConfig.getIndexName();
+        Long lastWatermark = this.espipeTimerDao.findLastWatermark(indexName);
+        if (lastWatermark == null) {
+            logger.warn("LastWatermark is null, please init index {} manually.", indexName);
+            return;
+        }
 
+        final String watermarkColumn = indexConfig.getWatermarkColumn().toLowerCase();
+        final int pageSize = (indexConfig.getSyncPageSize() > 0) ? indexConfig.getSyncPageSize()
+                : this.espipeElasticsearchProperties.getBulkSize();
+        final String sql = String.format(WATERMARK_PAGE_SQL, indexConfig.getSyncSql(), watermarkColumn);
+        final FlattenRowMapper rowMapper = new FlattenRowMapper();
+        List<Map<String, Object>> flattenMapList = new ArrayList<>(pageSize);
+        long savedWatermark = lastWatermark;
+        long watermark = (lastWatermark > Long.MIN_VALUE + indexConfig.getWatermarkOverlap())
+                ? lastWatermark - indexConfig.getWatermarkOverlap() : lastWatermark;
+        do {
             flattenMapList.clear();
+            final long pageWatermark = watermark;
+            query(Workload.SYNC, sql, (ps) -> {
+                ps.setMaxRows(pageSize);
+                indexConfig.getSyncTemplate().bind(ps, 1, Map.of(Role.WATERMARK, pageWatermark));
+            }, (rs) -> flattenMapList.add(rowMapper.mapRow(rs, flattenMapList.size())));
+            if (flattenMapList.isEmpty()) {
+                return;
+            }
+
+            if (logger.isDebugEnabled()) {
+                logger.debug("syncing data for index {} after watermark {} size {}", indexName, pageWatermark,
+                        flattenMapList.size());
+            }
+            this.extensionDao.extend(Workload.SYNC, indexName, flattenMapList);
+            BulkSender bulkSender = new BulkSender(indexName, this.elasticsearchDao::indexDocument);
+            bulkSender.addAll(flattenMapList);
+            if (!bulkSender.finish()) {
+                logger.error("Sync index {} failed after watermark {}, it is retried by the next sync", indexName,
+                        pageWatermark);
+                return;
+            }
+            watermark = ((Number) flattenMapList.get(flattenMapList.size() - 1).get(watermarkColumn)).longValue();
+            if (watermark > savedWatermark) {
+                savedWatermark = watermark;
+                this.espipeTimerDao.saveWatermark(indexName, savedWatermark);
+            }
         }
+        while (flattenMapList.size() == pageSize);
+    }
+
+    /**
+     * delete the documents of the rows deleted in the sync window, delete.sql returns the
+     * id columns of the deleted rows and they are sent by the bulk sender of the index.
+     * @param indexName index name
+     * @param from start of the window
+     * @param to end of the window
+     * @return true if the deletes are acknowledged
+     */
+    private boolean syncDeletes(String indexName, LocalDateTime from, LocalDateTime to) {
+        final SqlTemplate deleteTemplate = this.indexConfigRegistry.getIndexConfig(indexName).getDeleteTemplate();
+        if (deleteTemplate == null) {
+            return true;
+        }
+
+        final FlattenRowMapper rowMapper = new FlattenRowMapper();
+        final BulkSender bulkSender = new BulkSender(indexName, this.elasticsearchDao::deleteDocument);
+        final int[] rows = new int[1];
+        query(Workload.SYNC, deleteTemplate.getSql(), (ps) -> deleteTemplate.bind(ps, 1, window(from, to)),
+                (rs) -> bulkSender.add(rowMapper.mapRow(rs, rows[0]++)));
+        if (rows[0] > 0) {
+            logger.debug("deleting {} documents of index {}", rows[0], indexName);
+        }
+        return bulkSender.finish();
+    }
+
+    /**
+     * the values of a sync window, sync.sql, delete.sql and extension_sync.sql take pairs
+     * of start and end timestamp.
+     * @param from start of the window
+     * @param to end of the window
+     * @return values by role
+     */
+    static Map<Role, Timestamp> window(LocalDateTime from, LocalDateTime to) {
+        return Map.of(Role.START, Timestamp.valueOf(from), Role.END, Timestamp.valueOf(to));
+    }
+
+    /**
+     * bind the placeholders of init.sql at the start of a statement to the cutoff.
+     * @param indexConfig index config
+     * @param ps prepared statement
+     * @param cutoff init cutoff
+     * @return index of the placeholder after init.sql
+     * @throws SQLException all sql exception
+     */
+    private static int bindCutoff(IndexConfig indexConfig, PreparedStatement ps, LocalDateTime cutoff)
+            throws SQLException {
+        return indexConfig.getInitTemplate().bind(ps, 1, Map.of(Role.CUTOFF, Timestamp.valueOf(cutoff)));
+    }
+
+    /**
+     * query the extraction data source by the fetch profile of the workload, the fetch size
+     * is applied after the statement settings of the jdbc template, the setter may override
+     * it.
+     * @param workload workload
+     * @param sql sql
+     * @param pss prepared statement setter
+     * @param rch row callback handler
+     */
+    private void query(Workload workload, String sql, PreparedStatementSetter pss, RowCallbackHandler rch) {
+        final FetchProfile fetchProfile = this.fetchProfileRegistry.getFetchProfile(workload);
+        this.extractionDataSource.getJdbcTemplate(workload)
+                .query((conn) -> fetchProfile.prepareStatement(conn, sql), (ps) -> {
+                    fetchProfile.applyFetchSize(ps);
+                    pss.setValues(ps);
+                }, (ResultSetExtractor<Object>) (rs) -> {
+                    while (rs.next()) {
+                        rch.processRow(rs);
+                    }
+                    return null;
+                });
     }
 
     /**
@@ -291,115 +1054,321 @@ public class JdbcDao {
         return this.jdbcTemplate.queryForObject("select count(*) from " + tableName, Long.class);
     }
 
+    @PreDestroy
+    public void destroy() {
+        AbstractThreadPoolFactory.shutdownNow(this.partitionExecutor);
+        AbstractThreadPoolFactory.shutdownNow(this.enrichExecutor);
+    }
+
     /**
-     * put stand fields in flattenMap.
-     * @param rs result set
-     * @return flatten map
-     * @throws SQLException all sql exception
+     * bulk stage of sync and fix, the rows are sent per batch size of the bulk controller
+     * and the caller waits while the bulk requests in flight of the index reach the bound,
+     * like the cursor of init does. The permit of a request is released when its response
+     * arrives.
      */
-    private Map<String, Object> createStandardFlattenMap(ResultSet rs) throws SQLException {
-        Map<String, Object> flattenMap = new HashMap<>();
+    private final class BulkSender {
+
+        private final String indexName;
+
+        private final BiFunction<String, List<Map<String, Object>>, CompletableFuture<BulkResponse>> request;
 
-        // prepare standard fields
-        ResultSetMetaData rsMetaData = rs.getMetaData();
-        int count = rsMetaData.getColumnCount();
-        for (int i = 1; i <= count; i++) {
-            flattenMap.put(rsMetaData.getColumnName(i).toLowerCase(), rs.getObject(i));
+        private final BulkController bulkController;
+
+        private final List<Map<String, Object>> pending = new ArrayList<>();
+
+        private final List<CompletableFuture<BulkResponse>> futures = new ArrayList<>();
+
+        /**
+         * create a sender.
+         * @param indexName index name
+         * @param request sends one batch, create, index or delete documents
+         */
+        private BulkSender(String indexName,
+                BiFunction<String, List<Map<String, Object>>, CompletableFuture<BulkResponse>> request) {
+            this.indexName = indexName;
+            this.request = request;
+            this.bulkController = JdbcDao.this.elasticsearchDao.getBulkController(indexName);
+        }
+
+        private void add(Map<String, Object> flattenMap) {
+            this.pending.add(flattenMap);
+            if (this.pending.size() >= this.bulkController.getBatchSize()) {
+                send();
+            }
+        }
+
+        private void addAll(List<Map<String, Object>> flattenMapList) {
+            flattenMapList.forEach(this::add);
+        }
+
+        /**
+         * send the rest of the rows and wait for all responses.
+         * @return true if all documents are acknowledged
+         */
+        private boolean finish() {
+            if (!this.pending.isEmpty()) {
+                send();
+            }
+            return this.futures.isEmpty()
+                    || JdbcDao.this.elasticsearchDao.processCompletableFutures(this.indexName, this.futures);
+        }
+
+        private void send() {
+            try {
+                this.bulkController.acquire();
+            }
+            catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new EspipeException(String.format("Sync index %s is interrupted", this.indexName));
+            }
+            final List<Map<String, Object>> batch = new ArrayList<>(this.pending);
+            this.pending.clear();
+            final CompletableFuture<BulkResponse> future;
+            try {
+                future = this.request.apply(this.indexName, batch);
+            }
+            catch (RuntimeException ex) {
+                this.bulkController.release();
+                throw ex;
+            }
+            this.futures.add(future.whenComplete((bulkRes, ex) -> this.bulkController.release()));
         }
 
-        return flattenMap;
     }
 
     /**
-     * put custom fields in flattenMap.
-     * @param indexName index name
-     * @param flattenMapList flatten Map List
+     * enrich and bulk stages of one init query, a failed enrich fails the query at the
+     * next batch or at the end. A bulk response is processed when it arrives and the
+     * batch is released. The batch size and the batches enriched or sent but not
+     * acknowledged are bounded by the bulk controller of the index.
      */
-    private void extendFlattenMap(String indexName, List<Map<String, Object>> flattenMapList) {
-        IndexConfig indexConfig = this.indexConfigRegistry.getIndexConfig(indexName);
-        String extensionColumn = indexConfig.getExtensionColumn();
-        String extensionSql = indexConfig.getExtensionSql();
+    private final class InitStage {
 
-        List<String> extensionIds = new ArrayList<>(100);
-        for (Map<String, Object> flattenMap : flattenMapList) {
-            if (extensionColumn != null && flattenMap.get(extensionColumn.toLowerCase()) != null) {
-                extensionIds.add(String.valueOf(flattenMap.get(extensionColumn.toLowerCase())));
-            }
-        }
+        private final String indexName;
 
-        if (!extensionIds.isEmpty()) {
-            extensionSql = extensionSql.replace("?", String.join(",", extensionIds));
-            if (FieldsMode.FLATTEN.toString().equals(this.espipeElasticsearchProperties.getFieldsMode())) {
+        private final InitPartition partition;
 
-                Map<String, Map<String, Object>> customIdToCustomFlattenMap = new HashMap<>();
+        private final boolean extend;
 
-                this.jdbcTemplate.query(extensionSql, (prs) -> {
-                    ResultSetMetaData prsMetaData = prs.getMetaData();
-                    int pcount = prsMetaData.getColumnCount();
-                    for (int i = 1; i <= pcount; i++) {
-                        Map<String, Object> flattenMap = customIdToCustomFlattenMap.getOrDefault(prs.getString(1),
-                                new HashMap<>());
-                        flattenMap.put(prs.getString(2).toLowerCase(), prs.getObject(3));
-                        customIdToCustomFlattenMap.put(prs.getString(1), flattenMap);
-                    }
-                });
+        private final InitPipeline pipeline;
 
-                for (Map<String, Object> flattenMap : flattenMapList) {
-                    if (extensionColumn != null && flattenMap.get(extensionColumn.toLowerCase()) != null) {
-                        final Map<String, Object> customFlattenMap = customIdToCustomFlattenMap
-                                .get(String.valueOf(flattenMap.get(extensionColumn.toLowerCase())));
-                        if (customFlattenMap != null) {
-                            flattenMap.putAll(customFlattenMap);
-                        }
-                    }
+        private final InitProgress progress;
+
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        private final List<Map<String, Object>> pending = new ArrayList<>();
+
+        private long pendingBytes;
+
+        private final BulkController bulkController;
+
+        private int batches;
+
+        private final AtomicBoolean acknowledged = new AtomicBoolean(true);
+
+        private final AtomicLong bulkRequests = new AtomicLong();
+
+        /**
+         * create a stage.
+         * @param indexName index name
+         * @param partition partition to track progress, null if not partitioned
+         * @param extend true to look up the extension fields per batch
+         */
+        private InitStage(String indexName, InitPartition partition, boolean extend) {
+            this.indexName = indexName;
+            this.partition = partition;
+            this.extend = extend;
+            this.bulkController = JdbcDao.this.elasticsearchDao.getBulkController(indexName);
+            this.pipeline = TaskManager.getInitPipelines().computeIfAbsent(indexName, (key) -> new InitPipeline());
+            this.progress = TaskManager.getInitProgresses().computeIfAbsent(indexName, (key) -> new InitProgress());
+        }
+
+        /**
+         * add a row, the rows are sent per batch size of the bulk controller or bulk bytes,
+         * whichever comes first.
+         * The bytes are estimated before the extension fields are added, the bulk request
+         * is cut again at bulk bytes when it is encoded.
+         * @param flattenMap row
+         */
+        private void add(Map<String, Object> flattenMap) {
+            this.pending.add(flattenMap);
+            final long bulkBytes = JdbcDao.this.espipeElasticsearchProperties.getBulkBytes();
+            if (bulkBytes > 0) {
+                this.pendingBytes += BulkRequestEncoder.estimateBytes(flattenMap);
+            }
+            if (this.pending.size() >= this.bulkController.getBatchSize()
+                    || (bulkBytes > 0 && this.pendingBytes >= bulkBytes)) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new EspipeException(String.format("Init index %s is interrupted", this.indexName));
                 }
+                send(this.pending);
             }
-            else if (FieldsMode.CUSTOM_IN_ONE.toString().equals(this.espipeElasticsearchProperties.getFieldsMode())) {
-                Map<Object, StringBuilder> customIdToSbMap = new HashMap<>();
-
-                this.jdbcTemplate.query(extensionSql, (prs) -> {
-                    ResultSetMetaData prsMetaData = prs.getMetaData();
-                    int pcount = prsMetaData.getColumnCount();
-                    for (int i = 1; i <= pcount; i++) {
-                        StringBuilder sb = customIdToSbMap.getOrDefault(prs.getString(1), new StringBuilder());
-                        sb.append(prs.getString(2).toLowerCase());
-                        sb.append(" ");
-                        sb.append(prs.getObject(3));
-                        sb.append(" ");
-                        customIdToSbMap.put(prs.getString(1), sb);
-                    }
-                });
+        }
 
-                for (Map<String, Object> flattenMap : flattenMapList) {
-                    if (extensionColumn != null && flattenMap.get(extensionColumn.toLowerCase()) != null) {
-                        final StringBuilder customSb = customIdToSbMap
-                                .get(String.valueOf(flattenMap.get(extensionColumn.toLowerCase())));
-                        if (customSb != null) {
-                            flattenMap.put("custom_fields", customSb.toString());
+        /**
+         * send the rest of the rows.
+         */
+        private void flush() {
+            if (!this.pending.isEmpty()) {
+                send(this.pending);
+            }
+        }
+
+        /**
+         * hand a batch to the enrich stage, the list is cleared for the next batch. The
+         * cursor waits here while the stage has too many batches in flight.
+         * @param flattenMapList batch
+         */
+        private void send(List<Map<String, Object>> flattenMapList) {
+            throwIfFailed();
+            if (!this.bulkController.tryAcquire()) {
+                long start = System.nanoTime();
+                try {
+                    this.bulkController.acquire();
+                }
+                catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new EspipeException(String.format("Init index %s is interrupted", this.indexName));
+                }
+                this.pipeline.addBackpressure(System.nanoTime() - start);
+            }
+            synchronized (this) {
+                this.batches++;
+            }
+            if (logger.isDebugEnabled()) {
+                logger.debug("index data size {}", flattenMapList.size());
+            }
+            final List<Map<String, Object>> batch = new ArrayList<>(flattenMapList);
+            flattenMapList.clear();
+            this.pendingBytes = 0;
+            if (this.partition != null) {
+                this.partition.addRowCount(batch.size());
+                this.partition.getProgress().addRead(batch.size());
+            }
+            this.progress.addRead(batch.size());
+
+            // a task rejected by the enrich stage fails the batch, the permit is released below
+            final long enrichWaitStart = System.nanoTime();
+            CompletableFuture<List<Map<String, Object>>> enriched = CompletableTask.supplyAsync(() -> {
+                long start = System.nanoTime();
+                if (this.extend) {
+                    JdbcDao.this.extensionDao.extend(Workload.INIT, this.indexName, batch);
+                }
+                this.pipeline.addEnrich(System.nanoTime() - start);
+                this.progress.addEnriched(batch.size());
+                if (this.partition != null) {
+                    this.partition.getProgress().addEnriched(batch.size());
+                }
+                return batch;
+            }, JdbcDao.this.enrichExecutor);
+            this.pipeline.addEnrichWait(System.nanoTime() - enrichWaitStart);
+            enriched.thenCompose((result) -> {
+                long start = System.nanoTime();
+                CompletableFuture<BulkResponse> bulkResFuture = JdbcDao.this.elasticsearchDao
+                        .createDocument(this.indexName, result, this::addSent);
+                this.pipeline.addBulk(System.nanoTime() - start);
+                this.bulkRequests.incrementAndGet();
+                return bulkResFuture;
+            }).whenComplete((bulkRes, ex) -> {
+                try {
+                    if (ex != null) {
+                        processFailure(enriched, ex);
+                    }
+                    else {
+                        addAcked(bulkRes);
+                        if (!JdbcDao.this.elasticsearchDao.processBulkResponse(bulkRes)) {
+                            this.acknowledged.set(false);
                         }
                     }
                 }
+                finally {
+                    this.bulkController.release();
+                    done();
+                }
+            });
+            throwIfFailed();
+        }
+
+        /**
+         * a failed enrich fails the query, a failed bulk request only fails the result.
+         * @param enriched enrich future of the batch
+         * @param ex failure
+         */
+        private void processFailure(CompletableFuture<List<Map<String, Object>>> enriched, Throwable ex) {
+            this.acknowledged.set(false);
+            Throwable cause = (ex instanceof CompletionException && ex.getCause() != null) ? ex.getCause() : ex;
+            if (enriched.isCompletedExceptionally()) {
+                this.failure.compareAndSet(null, cause);
+            }
+            else {
+                logger.error("Bulk request for index {} failed, {}", this.indexName, cause.getMessage());
             }
         }
 
-    }
+        private synchronized void done() {
+            this.batches--;
+            notifyAll();
+        }
 
-    enum FieldsMode {
+        private void addSent(long bytes) {
+            this.progress.addSent(bytes);
+            if (this.partition != null) {
+                this.partition.getProgress().addSent(bytes);
+            }
+        }
 
         /**
-         * Constant that indicates convert standard fields to a flatten map.
+         * count the documents acknowledged without an error.
+         * @param bulkResponse bulk response
          */
-        FLATTEN,
+        private void addAcked(BulkResponse bulkResponse) {
+            long acked = bulkResponse.items().stream().filter((item) -> item.error() == null).count();
+            this.progress.addAcked(acked);
+            if (this.partition != null) {
+                this.partition.getProgress().addAcked(acked);
+            }
+        }
 
         /**
-         * Constant that indicates aggregate standard and custom fields to a string.
+         * wait for the bulk responses of all batches.
          */
-        ALL_IN_ONE,
+        private void await() {
+            synchronized (this) {
+                try {
+                    while (this.batches > 0) {
+                        wait();
+                    }
+                }
+                catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new EspipeException(String.format("Init index %s is interrupted", this.indexName));
+                }
+            }
+            logger.info("Bulk requests (size: {}) for index {}", this.bulkRequests, this.indexName);
+            throwIfFailed();
+        }
 
         /**
-         * Constant that indicates aggregate custom fields to a string.
+         * all batches are acknowledged without failed items.
+         * @return true if acknowledged
          */
-        CUSTOM_IN_ONE
+        private boolean isAcknowledged() {
+            return this.acknowledged.get();
+        }
+
+        private void throwIfFailed() {
+            Throwable ex = this.failure.get();
+            if (ex instanceof CompletionException && ex.getCause() != null) {
+                ex = ex.getCause();
+            }
+            if (ex instanceof RuntimeException) {
+                throw (RuntimeException) ex;
+            }
+            if (ex != null) {
+                throw new EspipeException(
+                        String.format("Init index %s failed to enrich, %s", this.indexName, ex.getMessage()));
+            }
+        }
 
     }
 
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2021-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.nooshhub.metric;
+
+/**
+ * Cache metrics to help tracking the extension fields cache.
+ *
+ * @author Neal Shan
+ * @since 10/18/2026
+ */
+public class CacheMetric {
+
+    private long hits;
+
+    private long misses;
+
+    private double hitRate;
+
+    private long evictions;
+
+    private long invalidations;
+
+    private int size;
+
+    private long weightBytes;
+
+    private long maxWeightBytes;
+
+    public long getHits() {
+        return this.hits;
+    }
+
+    public void setHits(long hits) {
+        this.hits = hits;
+    }
+
+    public long getMisses() {
+        return this.misses;
+    }
+
+    public void setMisses(long misses) {
+        this.misses = misses;
+    }
+
+    public double getHitRate() {
+        return this.hitRate;
+    }
+
+    public void setHitRate(double hitRate) {
+        this.hitRate = hitRate;
+    }
+
+    public long getEvictions() {
+        return this.evictions;
+    }
+
+    public void setEvictions(long evictions) {
+        this.evictions = evictions;
+    }
+
+    public long getInvalidations() {
+        return this.invalidations;
+    }
+
+    public void setInvalidations(long invalidations) {
+        this.invalidations = invalidations;
+    }
+
+    public int getSize() {
+        return this.size;
+    }
+
+    public void setSize(int size) {
+        this.size = size;
+    }
+
+    public long getWeightBytes() {
+        return this.weightBytes;
+    }
+
+    public void setWeightBytes(long weightBytes) {
+        this.weightBytes = weightBytes;
+    }
+
+    public long getMaxWeightBytes() {
+        return this.maxWeightBytes;
+    }
+
+    public void setMaxWeightBytes(long maxWeightBytes) {
+        this.maxWeightBytes = maxWeightBytes;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheMetric{" + "hits=" + this.hits + ", misses=" + this.misses + ", hitRate=" + this.hitRate
+                + ", evictions=" + this.evictions + ", invalidations=" + this.invalidations + ", size=" + this.size
+                + ", weightBytes=" + this.weightBytes + ", maxWeightBytes=" + this.maxWeightBytes + '}';
+    }
+
+}
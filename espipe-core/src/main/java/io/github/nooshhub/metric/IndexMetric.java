@@ -16,6 +16,15 @@
 
 package io.github.nooshhub.metric;
 
+import java.util.List;
+
+import io.github.nooshhub.concurrent.BulkController;
+import io.github.nooshhub.concurrent.BulkRetries;
+import io.github.nooshhub.concurrent.InitPartition;
+import io.github.nooshhub.concurrent.InitPipeline;
+import io.github.nooshhub.concurrent.InitProgress;
+import io.github.nooshhub.concurrent.SyncTrigger;
+
 /**
  * Index Metric shows the status of init and sync tasks.
  *
@@ -30,6 +39,18 @@ public class IndexMetric {
 
     private Boolean isCancelled;
 
+    private List<InitPartition> partitions;
+
+    private InitPipeline pipeline;
+
+    private InitProgress progress;
+
+    private SyncTrigger syncTrigger;
+
+    private BulkController bulkController;
+
+    private BulkRetries bulkRetries;
+
     public String getIndexName() {
         return this.indexName;
     }
@@ -54,4 +75,52 @@ public class IndexMetric {
         this.isCancelled = cancelled;
     }
 
+    public List<InitPartition> getPartitions() {
+        return this.partitions;
+    }
+
+    public void setPartitions(List<InitPartition> partitions) {
+        this.partitions = partitions;
+    }
+
+    public InitPipeline getPipeline() {
+        return this.pipeline;
+    }
+
+    public void setPipeline(InitPipeline pipeline) {
+        this.pipeline = pipeline;
+    }
+
+    public InitProgress getProgress() {
+        return this.progress;
+    }
+
+    public void setProgress(InitProgress progress) {
+        this.progress = progress;
+    }
+
+    public SyncTrigger getSyncTrigger() {
+        return this.syncTrigger;
+    }
+
+    public void setSyncTrigger(SyncTrigger syncTrigger) {
+        this.syncTrigger = syncTrigger;
+    }
+
+    public BulkController getBulkController() {
+        return this.bulkController;
+    }
+
+    public void setBulkController(BulkController bulkController) {
+        this.bulkController = bulkController;
+    }
+
+    public BulkRetries getBulkRetries() {
+        return this.bulkRetries;
+    }
+
+    public void setBulkRetries(BulkRetries bulkRetries) {
+        this.bulkRetries = bulkRetries;
+    }
+
 }
@@ -16,6 +16,11 @@
 
 package io.github.nooshhub.metric;
 
+import java.util.List;
+import java.util.Map;
+
+import io.github.nooshhub.config.FetchProfile;
+
 /**
  * JDBC metrics to help tracking JDBC connection pool status.
  *
@@ -34,6 +39,18 @@ public class JdbcMetric {
 
     private int activeConnections = -1;
 
+    private List<FetchProfile> fetchProfiles;
+
+    /**
+     * tuned fetch size of init queries per index.
+     */
+    private Map<String, Integer> fetchSizes;
+
+    /**
+     * the primary pool and the replica pool if any.
+     */
+    private List<PoolMetric> pools;
+
     public int getFetchSize() {
         return this.fetchSize;
     }
@@ -74,11 +91,36 @@ public class JdbcMetric {
         this.activeConnections = activeConnections;
     }
 
+    public List<FetchProfile> getFetchProfiles() {
+        return this.fetchProfiles;
+    }
+
+    public void setFetchProfiles(List<FetchProfile> fetchProfiles) {
+        this.fetchProfiles = fetchProfiles;
+    }
+
+    public Map<String, Integer> getFetchSizes() {
+        return this.fetchSizes;
+    }
+
+    public void setFetchSizes(Map<String, Integer> fetchSizes) {
+        this.fetchSizes = fetchSizes;
+    }
+
+    public List<PoolMetric> getPools() {
+        return this.pools;
+    }
+
+    public void setPools(List<PoolMetric> pools) {
+        this.pools = pools;
+    }
+
     @Override
     public String toString() {
         return "JdbcMetric{" + "fetchSize=" + this.fetchSize + ", maxRows=" + this.maxRows + ", queryTimeout="
                 + this.queryTimeout + ", maxPoolSize=" + this.maxPoolSize + ", activeConnections="
-                + this.activeConnections + '}';
+                + this.activeConnections + ", fetchProfiles=" + this.fetchProfiles
+                + ", fetchSizes=" + this.fetchSizes + ", pools=" + this.pools + '}';
     }
 
 }
@@ -30,6 +30,8 @@ public class Metrics {
 
     private JdbcMetric jdbcMetric;
 
+    private CacheMetric cacheMetric;
+
     private String threadPoolMetric;
 
     public List<IndexMetric> getIndexMetrics() {
@@ -48,6 +50,14 @@ public class Metrics {
         this.jdbcMetric = jdbcMetric;
     }
 
+    public CacheMetric getCacheMetric() {
+        return this.cacheMetric;
+    }
+
+    public void setCacheMetric(CacheMetric cacheMetric) {
+        this.cacheMetric = cacheMetric;
+    }
+
     public String getThreadPoolMetric() {
         return this.threadPoolMetric;
     }
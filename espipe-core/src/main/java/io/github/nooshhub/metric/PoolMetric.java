@@ -0,0 +1,105 @@
+/*
+ * Copyright 2021-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.nooshhub.metric;
+
+/**
+ * Pool metrics to help tracking one JDBC connection pool.
+ *
+ * @author Neal Shan
+ * @since 10/18/2026
+ */
+public class PoolMetric {
+
+    private String poolName;
+
+    private boolean readOnly;
+
+    private int maxPoolSize = -1;
+
+    private int activeConnections = -1;
+
+    private int idleConnections = -1;
+
+    private int totalConnections = -1;
+
+    private int threadsAwaitingConnection = -1;
+
+    public String getPoolName() {
+        return this.poolName;
+    }
+
+    public void setPoolName(String poolName) {
+        this.poolName = poolName;
+    }
+
+    public boolean isReadOnly() {
+        return this.readOnly;
+    }
+
+    public void setReadOnly(boolean readOnly) {
+        this.readOnly = readOnly;
+    }
+
+    public int getMaxPoolSize() {
+        return this.maxPoolSize;
+    }
+
+    public void setMaxPoolSize(int maxPoolSize) {
+        this.maxPoolSize = maxPoolSize;
+    }
+
+    public int getActiveConnections() {
+        return this.activeConnections;
+    }
+
+    public void setActiveConnections(int activeConnections) {
+        this.activeConnections = activeConnections;
+    }
+
+    public int getIdleConnections() {
+        return this.idleConnections;
+    }
+
+    public void setIdleConnections(int idleConnections) {
+        this.idleConnections = idleConnections;
+    }
+
+    public int getTotalConnections() {
+        return this.totalConnections;
+    }
+
+    public void setTotalConnections(int totalConnections) {
+        this.totalConnections = totalConnections;
+    }
+
+    public int getThreadsAwaitingConnection() {
+        return this.threadsAwaitingConnection;
+    }
+
+    public void setThreadsAwaitingConnection(int threadsAwaitingConnection) {
+        this.threadsAwaitingConnection = threadsAwaitingConnection;
+    }
+
+    @Override
+    public String toString() {
+        return "PoolMetric{" + "poolName='" + this.poolName + '\'' + ", readOnly=" + this.readOnly
+                + ", maxPoolSize=" + this.maxPoolSize + ", activeConnections=" + this.activeConnections
+                + ", idleConnections=" + this.idleConnections + ", totalConnections=" + this.totalConnections
+                + ", threadsAwaitingConnection=" + this.threadsAwaitingConnection + '}';
+    }
+
+}
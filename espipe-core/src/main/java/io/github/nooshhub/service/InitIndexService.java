@@ -17,17 +17,22 @@
 package io.github.nooshhub.service;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.Future;
 import java.util.concurrent.ThreadPoolExecutor;
 
+import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
 
 import io.github.nooshhub.concurrent.AbstractThreadPoolFactory;
 import io.github.nooshhub.concurrent.InitTask;
 import io.github.nooshhub.concurrent.TaskManager;
+import io.github.nooshhub.config.EspipeBulkheadProperties;
 import io.github.nooshhub.config.IndexConfigRegistry;
+import io.github.nooshhub.dao.ExtensionCache;
 import io.github.nooshhub.dao.JdbcDao;
 import io.github.nooshhub.metric.IndexMetric;
 import io.github.nooshhub.metric.Metrics;
@@ -54,15 +59,56 @@ public class InitIndexService {
     @Autowired
     private JdbcDao jdbcDao;
 
-    private final ThreadPoolExecutor executorService = AbstractThreadPoolFactory.poolForInit();
+    @Autowired
+    private ExtensionCache extensionCache;
+
+    @Autowired
+    private EspipeBulkheadProperties espipeBulkheadProperties;
+
+    @Autowired
+    private SyncIndexService syncIndexService;
+
+    private ThreadPoolExecutor executorService;
 
+    private ThreadPoolExecutor fixExecutorService;
+
+    @PostConstruct
+    public void initPools() {
+        this.executorService = AbstractThreadPoolFactory.poolForInit(this.espipeBulkheadProperties.getInitThreads());
+        this.fixExecutorService = AbstractThreadPoolFactory.poolForFix(this.espipeBulkheadProperties.getFixThreads());
+    }
+
+    /**
+     * Init all indices, the indices that share init.sql are read by one scan.
+     * @return messages of process
+     */
     public List<String> init() {
         List<String> messages = new ArrayList<>();
-        this.indexConfigRegistry.getIndexConfigs().keySet().forEach((indexName) -> messages.add(this.init(indexName)));
+        Set<String> sharedIndexNames = new HashSet<>();
+        for (List<String> indexNames : this.indexConfigRegistry.getSharedScans()) {
+            messages.add(submitShared(indexNames));
+            sharedIndexNames.addAll(indexNames);
+        }
+        this.indexConfigRegistry.getIndexConfigs().keySet().stream()
+                .filter((indexName) -> !sharedIndexNames.contains(indexName))
+                .forEach((indexName) -> messages.add(this.init(indexName)));
         return messages;
     }
 
     public String init(String indexName) {
+        return submit(indexName, false);
+    }
+
+    /**
+     * Resume init of one index from its checkpoints, the index is not recreated.
+     * @param indexName index name
+     * @return message of process
+     */
+    public String resume(String indexName) {
+        return submit(indexName, true);
+    }
+
+    private String submit(String indexName, boolean resume) {
         Future future = TaskManager.getInitInProgress().get(indexName);
         if (future != null && !future.isDone()) {
             final String message = String.format("Index %s is in init progress, please stop it manually.", indexName);
@@ -71,27 +117,61 @@ public class InitIndexService {
         }
 
         StringBuilder sb = new StringBuilder();
-        if (TaskManager.getSyncInProgress().containsKey(indexName)) {
-            TaskManager.getSyncInProgress().get(indexName).cancel(true);
-            TaskManager.getSyncInProgress().remove(indexName);
+        stopSync(indexName, sb);
 
-            final String message = String.format("Remove index %s from sync in progress", indexName);
-            logger.info(message);
-            sb.append(message);
+        Future<?> newFuture = this.executorService.submit(new InitTask(this.jdbcDao, indexName, resume));
+        TaskManager.getInitInProgress().put(indexName, newFuture);
+
+        final String message = String.format(resume ? "Resume init index %s is in progress"
+                : "Init index %s is in progress", indexName);
+        logger.info(message);
+        sb.append(message);
+        return sb.toString();
+    }
+
+    /**
+     * Init the indices of a shared scan by one task, stopping any of them stops all.
+     * @param indexNames indices of the shared scan
+     * @return message of process
+     */
+    private String submitShared(List<String> indexNames) {
+        for (String indexName : indexNames) {
+            Future future = TaskManager.getInitInProgress().get(indexName);
+            if (future != null && !future.isDone()) {
+                final String message = String.format("Index %s is in init progress, please stop it manually.",
+                        indexName);
+                logger.info(message);
+                return message;
+            }
         }
 
-        Future<?> newFuture = this.executorService.submit(new InitTask(this.jdbcDao, indexName));
-        TaskManager.getInitInProgress().put(indexName, newFuture);
+        StringBuilder sb = new StringBuilder();
+        indexNames.forEach((indexName) -> stopSync(indexName, sb));
+
+        Future<?> newFuture = this.executorService.submit(new InitTask(this.jdbcDao, indexNames));
+        indexNames.forEach((indexName) -> TaskManager.getInitInProgress().put(indexName, newFuture));
 
-        final String message = String.format("Init index %s is in progress", indexName);
+        final String message = String.format("Init indices %s by one scan is in progress", indexNames);
         logger.info(message);
         sb.append(message);
         return sb.toString();
     }
 
+    /**
+     * stop the sync of an index before its init, the trigger is stopped with the polls, so
+     * a pending wake of a notification does not sync during the init.
+     * @param indexName index name
+     * @param sb message of process
+     */
+    private void stopSync(String indexName, StringBuilder sb) {
+        if (TaskManager.getSyncInProgress().containsKey(indexName)) {
+            sb.append(this.syncIndexService.stop(indexName));
+        }
+    }
+
     /**
      * Init one index item by ids and values in a map, not matter if there is a init or
-     * sync task in progress, just fire a init task.
+     * sync task in progress, just fire a init task on the fix threads.
      * @param indexName index name
      * @param idAndValueMap id and value map
      * @return message of process
@@ -99,7 +179,7 @@ public class InitIndexService {
     public String init(String indexName, Map<String, String> idAndValueMap) {
         StringBuilder sb = new StringBuilder();
 
-        this.executorService.execute(new InitTask(this.jdbcDao, indexName, idAndValueMap));
+        this.fixExecutorService.execute(new InitTask(this.jdbcDao, indexName, idAndValueMap));
 
         final String message = String.format("Init one index task %s is sent", indexName);
         logger.info(message);
@@ -111,17 +191,34 @@ public class InitIndexService {
     public String stop() {
         TaskManager.getInitInProgress().values().forEach((future) -> future.cancel(true));
         TaskManager.getInitInProgress().clear();
+        TaskManager.getInitPartitions().clear();
         final String message = "Shutdown all init";
         logger.info(message);
         return message;
     }
 
+    /**
+     * Stop init of one index, the indices of a shared scan are read by one task and are
+     * stopped together.
+     * @param indexName index name
+     * @return message of process
+     */
     public String stop(String indexName) {
         if (TaskManager.getInitInProgress().containsKey(indexName)) {
-            TaskManager.getInitInProgress().get(indexName).cancel(true);
-            TaskManager.getInitInProgress().remove(indexName);
-
-            final String message = String.format("Remove index %s from init in progress", indexName);
+            final Future future = TaskManager.getInitInProgress().get(indexName);
+            future.cancel(true);
+            List<String> indexNames = new ArrayList<>();
+            TaskManager.getInitInProgress().forEach((name, other) -> {
+                if (other == future) {
+                    indexNames.add(name);
+                }
+            });
+            indexNames.forEach((name) -> {
+                TaskManager.getInitInProgress().remove(name);
+                TaskManager.getInitPartitions().remove(name);
+            });
+
+            final String message = String.format("Remove indices %s from init in progress", indexNames);
             logger.info(message);
             return message;
         }
@@ -140,11 +237,17 @@ public class InitIndexService {
             indexMetric.setIndexName(indexName);
             indexMetric.setIsDone(future.isDone());
             indexMetric.setIsCancelled(future.isCancelled());
+            indexMetric.setPartitions(TaskManager.getInitPartitions().get(indexName));
+            indexMetric.setPipeline(TaskManager.getInitPipelines().get(indexName));
+            indexMetric.setProgress(TaskManager.getInitProgresses().get(indexName));
+            indexMetric.setBulkController(TaskManager.getBulkControllers().get(indexName));
+            indexMetric.setBulkRetries(TaskManager.getBulkRetries().get(indexName));
             indexMetrics.add(indexMetric);
         });
         metrics.setIndexMetrics(indexMetrics);
         metrics.setJdbcMetric(this.jdbcDao.jdbcMetrics());
-        metrics.setThreadPoolMetric(this.executorService.toString());
+        metrics.setCacheMetric(this.extensionCache.cacheMetric());
+        metrics.setThreadPoolMetric(this.executorService + ", fix " + this.fixExecutorService);
         return metrics;
     }
 
@@ -23,12 +23,17 @@ import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
+import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
 
 import io.github.nooshhub.concurrent.AbstractThreadPoolFactory;
 import io.github.nooshhub.concurrent.SyncTask;
+import io.github.nooshhub.concurrent.SyncTrigger;
 import io.github.nooshhub.concurrent.TaskManager;
+import io.github.nooshhub.config.EspipeBulkheadProperties;
+import io.github.nooshhub.config.EspipeSyncProperties;
 import io.github.nooshhub.config.IndexConfigRegistry;
+import io.github.nooshhub.dao.ExtensionCache;
 import io.github.nooshhub.dao.JdbcDao;
 import io.github.nooshhub.metric.IndexMetric;
 import io.github.nooshhub.metric.Metrics;
@@ -55,7 +60,21 @@ public class SyncIndexService {
     @Autowired
     private JdbcDao jdbcDao;
 
-    private final ScheduledThreadPoolExecutor executorService = AbstractThreadPoolFactory.poolForSync();
+    @Autowired
+    private ExtensionCache extensionCache;
+
+    @Autowired
+    private EspipeBulkheadProperties espipeBulkheadProperties;
+
+    @Autowired
+    private EspipeSyncProperties espipeSyncProperties;
+
+    private ScheduledThreadPoolExecutor executorService;
+
+    @PostConstruct
+    public void initPool() {
+        this.executorService = AbstractThreadPoolFactory.poolForSync(this.espipeBulkheadProperties.getSyncThreads());
+    }
 
     public List<String> sync() {
         List<String> messages = new ArrayList<>();
@@ -77,8 +96,11 @@ public class SyncIndexService {
             return message;
         }
 
-        ScheduledFuture newScheduledFuture = this.executorService
-                .scheduleWithFixedDelay(new SyncTask(this.jdbcDao, indexName), 1000, 5000, TimeUnit.MILLISECONDS);
+        SyncTrigger syncTrigger = TaskManager.getSyncTriggers().computeIfAbsent(indexName, (key) -> new SyncTrigger());
+        SyncTask syncTask = new SyncTask(this.jdbcDao, indexName, syncTrigger, false,
+                this.espipeSyncProperties.getNotifyTimeoutMillis());
+        ScheduledFuture newScheduledFuture = this.executorService.scheduleWithFixedDelay(syncTask, 1000,
+                this.espipeSyncProperties.getPollMillis(), TimeUnit.MILLISECONDS);
         TaskManager.getSyncInProgress().put(indexName, newScheduledFuture);
 
         final String message = String.format("Sync index %s is in progress", indexName);
@@ -86,10 +108,44 @@ public class SyncIndexService {
         return message;
     }
 
+    /**
+     * wake the sync of an index after a change, called by the notification sources, e.g.
+     * a database trigger or a listener of database notifications. The changes within the
+     * coalesce delay wake one sync.
+     * @param indexName index name
+     * @return true if the index is in sync progress
+     */
+    public boolean notifyChange(String indexName) {
+        SyncTrigger syncTrigger = TaskManager.getSyncTriggers().get(indexName);
+        if (syncTrigger == null || !TaskManager.getSyncInProgress().containsKey(indexName)) {
+            return false;
+        }
+        if (syncTrigger.notifyChange()) {
+            syncTrigger.setPendingWake(
+                    this.executorService.schedule(new SyncTask(this.jdbcDao, indexName, syncTrigger, true, 0),
+                            this.espipeSyncProperties.getCoalesceMillis(), TimeUnit.MILLISECONDS));
+        }
+        return true;
+    }
+
+    /**
+     * keep the polls of an index skipped while the notification source is alive but
+     * the index does not change.
+     * @param indexName index name
+     */
+    public void heartbeat(String indexName) {
+        SyncTrigger syncTrigger = TaskManager.getSyncTriggers().get(indexName);
+        if (syncTrigger != null) {
+            syncTrigger.heartbeat();
+        }
+    }
+
     @PreDestroy
     public String stop() {
         TaskManager.getSyncInProgress().values().forEach((future) -> future.cancel(true));
         TaskManager.getSyncInProgress().clear();
+        TaskManager.getSyncTriggers().values().forEach(SyncTrigger::stop);
+        TaskManager.getSyncTriggers().clear();
         final String message = "Shutdown all sync";
         logger.info(message);
         return message;
@@ -99,6 +155,10 @@ public class SyncIndexService {
         if (TaskManager.getSyncInProgress().containsKey(indexName)) {
             TaskManager.getSyncInProgress().get(indexName).cancel(true);
             TaskManager.getSyncInProgress().remove(indexName);
+            SyncTrigger syncTrigger = TaskManager.getSyncTriggers().remove(indexName);
+            if (syncTrigger != null) {
+                syncTrigger.stop();
+            }
 
             final String message = String.format("Remove index %s from sync in progress", indexName);
             logger.info(message);
@@ -119,10 +179,14 @@ public class SyncIndexService {
             indexMetric.setIndexName(indexName);
             indexMetric.setIsDone(future.isDone());
             indexMetric.setIsCancelled(future.isCancelled());
+            indexMetric.setSyncTrigger(TaskManager.getSyncTriggers().get(indexName));
+            indexMetric.setBulkController(TaskManager.getBulkControllers().get(indexName));
+            indexMetric.setBulkRetries(TaskManager.getBulkRetries().get(indexName));
             indexMetrics.add(indexMetric);
         });
         metrics.setIndexMetrics(indexMetrics);
         metrics.setJdbcMetric(this.jdbcDao.jdbcMetrics());
+        metrics.setCacheMetric(this.extensionCache.cacheMetric());
         metrics.setThreadPoolMetric(this.executorService.toString());
         return metrics;
     }
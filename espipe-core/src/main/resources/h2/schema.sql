@@ -27,8 +27,34 @@ create table nh_estimate (
     primary key(nh_estimate_id)
 );
 
+create table nh_project_delete (
+    nh_project_id number(18),
+    delete_date timestamp
+);
+
 create table espipe_timer (
     index_name varchar(255),
     last_refresh_time timestamp,
+    last_watermark bigint,
     primary key(index_name)
-)
+);
+
+create table espipe_checkpoint (
+    index_name varchar(255),
+    partition_no int,
+    last_key bigint,
+    upper_key bigint,
+    last_refresh_time timestamp,
+    primary key(index_name, partition_no)
+);
+
+create table espipe_outbox (
+    outbox_id identity,
+    table_name varchar(255),
+    pk varchar(255),
+    op char(1),
+    create_date timestamp,
+    primary key(outbox_id)
+);
+
+create index espipe_outbox_table on espipe_outbox (table_name, outbox_id)
\ No newline at end of file
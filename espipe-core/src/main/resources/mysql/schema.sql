@@ -0,0 +1,26 @@
+create table espipe_timer (
+    index_name varchar(255),
+    last_refresh_time timestamp(6) null,
+    last_watermark bigint,
+    primary key(index_name)
+);
+
+create table espipe_checkpoint (
+    index_name varchar(255),
+    partition_no int,
+    last_key bigint,
+    upper_key bigint,
+    last_refresh_time timestamp(6) null,
+    primary key(index_name, partition_no)
+);
+
+create table espipe_outbox (
+    outbox_id bigint auto_increment,
+    table_name varchar(255),
+    pk varchar(255),
+    op char(1),
+    create_date timestamp(6) null,
+    primary key(outbox_id)
+);
+
+create index espipe_outbox_table on espipe_outbox (table_name, outbox_id);
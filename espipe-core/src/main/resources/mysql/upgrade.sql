@@ -0,0 +1,28 @@
+-- upgrade an existing install to schema.sql, every statement can be run again
+
+create table if not exists espipe_checkpoint (
+    index_name varchar(255),
+    partition_no int,
+    last_key bigint,
+    upper_key bigint,
+    last_refresh_time timestamp(6) null,
+    primary key(index_name, partition_no)
+);
+
+-- mysql has no add column if not exists, the column is added only when information_schema misses it
+set @add_last_watermark = (select if(count(*) = 0, 'alter table espipe_timer add column last_watermark bigint',
+    'do 0') from information_schema.columns
+    where table_schema = database() and table_name = 'espipe_timer' and column_name = 'last_watermark');
+prepare add_last_watermark from @add_last_watermark;
+execute add_last_watermark;
+deallocate prepare add_last_watermark;
+
+create table if not exists espipe_outbox (
+    outbox_id bigint auto_increment,
+    table_name varchar(255),
+    pk varchar(255),
+    op char(1),
+    create_date timestamp(6) null,
+    primary key(outbox_id),
+    index espipe_outbox_table (table_name, outbox_id)
+);
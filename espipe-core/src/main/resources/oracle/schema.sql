@@ -0,0 +1,26 @@
+create table espipe_timer (
+    index_name varchar2(255),
+    last_refresh_time timestamp,
+    last_watermark number(19),
+    primary key(index_name)
+);
+
+create table espipe_checkpoint (
+    index_name varchar2(255),
+    partition_no number(10),
+    last_key number(19),
+    upper_key number(19),
+    last_refresh_time timestamp,
+    primary key(index_name, partition_no)
+);
+
+create table espipe_outbox (
+    outbox_id number(19) generated by default as identity,
+    table_name varchar2(255),
+    pk varchar2(255),
+    op char(1),
+    create_date timestamp,
+    primary key(outbox_id)
+);
+
+create index espipe_outbox_table on espipe_outbox (table_name, outbox_id);
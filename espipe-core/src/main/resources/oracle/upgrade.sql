@@ -0,0 +1,56 @@
+-- upgrade an existing install to schema.sql, every block can be run again, an object
+-- that exists already is skipped
+
+declare
+    name_used exception;
+    pragma exception_init(name_used, -955);
+begin
+    execute immediate 'create table espipe_checkpoint (
+        index_name varchar2(255),
+        partition_no number(10),
+        last_key number(19),
+        upper_key number(19),
+        last_refresh_time timestamp,
+        primary key(index_name, partition_no)
+    )';
+exception
+    when name_used then null;
+end;
+/
+
+declare
+    column_exists exception;
+    pragma exception_init(column_exists, -1430);
+begin
+    execute immediate 'alter table espipe_timer add (last_watermark number(19))';
+exception
+    when column_exists then null;
+end;
+/
+
+declare
+    name_used exception;
+    pragma exception_init(name_used, -955);
+begin
+    execute immediate 'create table espipe_outbox (
+        outbox_id number(19) generated by default as identity,
+        table_name varchar2(255),
+        pk varchar2(255),
+        op char(1),
+        create_date timestamp,
+        primary key(outbox_id)
+    )';
+exception
+    when name_used then null;
+end;
+/
+
+declare
+    name_used exception;
+    pragma exception_init(name_used, -955);
+begin
+    execute immediate 'create index espipe_outbox_table on espipe_outbox (table_name, outbox_id)';
+exception
+    when name_used then null;
+end;
+/
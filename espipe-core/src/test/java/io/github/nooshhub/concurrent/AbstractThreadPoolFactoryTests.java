@@ -0,0 +1,136 @@
+/*
+ * Copyright 2021-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.nooshhub.concurrent;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for {@link AbstractThreadPoolFactory}
+ *
+ * @author Neal Shan
+ * @since 10/18/2026
+ */
+public class AbstractThreadPoolFactoryTests {
+
+    @Test
+    public void fullEnrichStageBlocks() throws Exception {
+        final ThreadPoolExecutor pool = AbstractThreadPoolFactory.poolForEnrich(1);
+        final CountDownLatch gate = new CountDownLatch(1);
+        try {
+            // one task runs and one waits in the queue, the stage is full
+            CompletableTask.supplyAsync(() -> await(gate), pool);
+            CompletableTask.supplyAsync(() -> await(gate), pool);
+
+            final AtomicReference<CompletableFuture<String>> future = new AtomicReference<>();
+            Thread cursor = new Thread(() -> future
+                    .set(CompletableTask.supplyAsync(() -> Thread.currentThread().getName(), pool)));
+            cursor.start();
+            cursor.join(200);
+            assertThat(cursor.isAlive()).isTrue();
+
+            gate.countDown();
+            cursor.join(5000);
+            assertThat(cursor.isAlive()).isFalse();
+            // the task runs on the stage, never on the cursor thread
+            assertThat(future.get().get(5, TimeUnit.SECONDS)).startsWith("enrich-").isNotEqualTo(cursor.getName());
+        }
+        finally {
+            gate.countDown();
+            AbstractThreadPoolFactory.shutdownNow(pool);
+        }
+    }
+
+    @Test
+    public void shutdownNowCompletesQueuedTasks() throws Exception {
+        final ThreadPoolExecutor pool = AbstractThreadPoolFactory.poolForEnrich(1);
+        final CountDownLatch gate = new CountDownLatch(1);
+        CompletableFuture<String> running = CompletableTask.supplyAsync(() -> await(gate), pool);
+        CompletableFuture<String> queued = CompletableTask.supplyAsync(() -> "queued", pool);
+
+        // a cursor waiting for the full stage is rejected by the shutdown
+        final AtomicReference<CompletableFuture<String>> waiting = new AtomicReference<>();
+        Thread cursor = new Thread(() -> waiting.set(CompletableTask.supplyAsync(() -> "waiting", pool)));
+        cursor.start();
+        cursor.join(200);
+        assertThat(cursor.isAlive()).isTrue();
+
+        AbstractThreadPoolFactory.shutdownNow(pool);
+        cursor.join(5000);
+        assertThat(cursor.isAlive()).isFalse();
+
+        assertThatThrownBy(() -> queued.get(5, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(RejectedExecutionException.class);
+        assertThatThrownBy(() -> waiting.get().get(5, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(RejectedExecutionException.class);
+        // the running task is interrupted
+        assertThatThrownBy(() -> running.get(5, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class);
+
+        // a task after the shutdown is rejected at once
+        assertThat(CompletableTask.supplyAsync(() -> "late", pool)).isCompletedExceptionally();
+    }
+
+    @Test
+    public void shutdownNowCancelsQueuedFutures() throws Exception {
+        final ThreadPoolExecutor pool = AbstractThreadPoolFactory.poolForPartition(1);
+        final CountDownLatch gate = new CountDownLatch(1);
+        pool.submit(() -> await(gate));
+        Future<?> queued = pool.submit(() -> "queued");
+
+        AbstractThreadPoolFactory.shutdownNow(pool);
+        assertThat(queued.isCancelled()).isTrue();
+        assertThat(pool.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    public void bulkPoolRejectsDelayedTasksAfterShutdown() throws Exception {
+        final ThreadPoolExecutor pool = AbstractThreadPoolFactory.poolForBulk(1);
+        CompletableFuture<String> retry = CompletableTask.supplyAsync(() -> Thread.currentThread().getName(),
+                CompletableFuture.delayedExecutor(1, TimeUnit.MILLISECONDS, pool));
+        assertThat(retry.get(5, TimeUnit.SECONDS)).startsWith("bulk-");
+
+        // the delayed executor hands the task over after the shutdown, nobody waits forever
+        CompletableFuture<String> late = CompletableTask.supplyAsync(() -> "late",
+                CompletableFuture.delayedExecutor(50, TimeUnit.MILLISECONDS, pool));
+        AbstractThreadPoolFactory.shutdownNow(pool);
+        assertThatThrownBy(() -> late.get(5, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(RejectedExecutionException.class);
+    }
+
+    private static String await(CountDownLatch gate) {
+        try {
+            gate.await();
+            return "done";
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted", ex);
+        }
+    }
+
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2021-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.nooshhub.concurrent;
+
+import io.github.nooshhub.config.EspipeBulkProperties;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link BulkController}
+ *
+ * @author Neal Shan
+ * @since 10/18/2026
+ */
+public class BulkControllerTests {
+
+    @Test
+    public void additiveIncrease() {
+        BulkController controller = new BulkController(new EspipeBulkProperties(), 12000, 2);
+        controller.onResponse(100, false);
+        assertThat(controller.getBatchSize()).isEqualTo(13000);
+        assertThat(controller.getInFlightLimit()).isEqualTo(2);
+
+        // one more request in flight after a window of fast responses
+        controller.onResponse(100, false);
+        assertThat(controller.getInFlightLimit()).isEqualTo(3);
+
+        // between the target and the spike the decisions hold
+        controller.onResponse(3000, false);
+        assertThat(controller.getBatchSize()).isEqualTo(14000);
+        assertThat(controller.getInFlightLimit()).isEqualTo(3);
+
+        for (int i = 0; i < 200; i++) {
+            controller.onResponse(100, false);
+        }
+        assertThat(controller.getBatchSize()).isEqualTo(24000);
+        assertThat(controller.getInFlightLimit()).isEqualTo(16);
+    }
+
+    @Test
+    public void multiplicativeDecrease() {
+        BulkController controller = new BulkController(new EspipeBulkProperties(), 12000, 8);
+        controller.onResponse(100, true);
+        assertThat(controller.getBatchSize()).isEqualTo(6000);
+        assertThat(controller.getInFlightLimit()).isEqualTo(4);
+
+        // the responses of the requests sent before the decrease do not decrease again
+        controller.onResponse(10000, false);
+        assertThat(controller.getBatchSize()).isEqualTo(6000);
+        assertThat(controller.getRejections()).isEqualTo(1);
+        assertThat(controller.getSpikes()).isEqualTo(1);
+        assertThat(controller.getDecreases()).isEqualTo(1);
+    }
+
+    @Test
+    public void notAdaptive() {
+        EspipeBulkProperties properties = new EspipeBulkProperties();
+        properties.setAdaptive(false);
+        BulkController controller = new BulkController(properties, 12000, 4);
+        controller.onResponse(100, false);
+        controller.onResponse(100, true);
+        assertThat(controller.getBatchSize()).isEqualTo(12000);
+        assertThat(controller.getInFlightLimit()).isEqualTo(4);
+        assertThat(controller.getRejections()).isEqualTo(1);
+    }
+
+    @Test
+    public void inFlight() throws InterruptedException {
+        BulkController controller = new BulkController(new EspipeBulkProperties(), 12000, 1);
+        controller.acquire();
+        assertThat(controller.tryAcquire()).isFalse();
+
+        Thread waiting = new Thread(() -> {
+            try {
+                controller.acquire();
+            }
+            catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        waiting.start();
+        controller.release();
+        waiting.join(5000);
+        assertThat(waiting.isAlive()).isFalse();
+        assertThat(controller.getInFlight()).isEqualTo(1);
+    }
+
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2021-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.nooshhub.concurrent;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link InitProgress}
+ *
+ * @author Neal Shan
+ * @since 10/18/2026
+ */
+public class InitProgressTests {
+
+    @Test
+    public void notEstimated() {
+        InitProgress progress = new InitProgress();
+        progress.addAcked(10);
+        assertThat(progress.getPercent()).isEqualTo(-1);
+        assertThat(progress.getEtaSeconds()).isEqualTo(-1);
+    }
+
+    @Test
+    public void percentAndEta() throws InterruptedException {
+        InitProgress progress = new InitProgress();
+        progress.setEstimatedRows(1000);
+        assertThat(progress.getPercent()).isZero();
+        assertThat(progress.getEtaSeconds()).isEqualTo(-1);
+
+        Thread.sleep(50);
+        progress.addAcked(250);
+        assertThat(progress.getPercent()).isEqualTo(25);
+        assertThat(progress.getRowsPerSecond()).isPositive();
+        assertThat(progress.getEtaSeconds()).isNotNegative();
+
+        // more rows than estimated are done, not more than done
+        progress.addAcked(1000);
+        assertThat(progress.getPercent()).isEqualTo(100);
+        assertThat(progress.getEtaSeconds()).isZero();
+    }
+
+}
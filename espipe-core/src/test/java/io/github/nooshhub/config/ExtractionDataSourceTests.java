@@ -0,0 +1,190 @@
+/*
+ * Copyright 2021-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.nooshhub.config;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.github.nooshhub.concurrent.BulkController;
+import io.github.nooshhub.concurrent.TaskManager;
+import io.github.nooshhub.config.FetchProfile.Workload;
+import io.github.nooshhub.config.SqlTemplate.Role;
+import io.github.nooshhub.dao.ElasticsearchDao;
+import io.github.nooshhub.dao.EspipeTimerDao;
+import io.github.nooshhub.dao.JdbcDao;
+import io.github.nooshhub.exception.EspipeException;
+import io.github.nooshhub.support.StubElasticsearch;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for {@link ExtractionDataSource}
+ *
+ * @author Neal Shan
+ * @since 10/18/2026
+ */
+@SpringBootTest(properties = "spring.profiles.active:h2")
+public class ExtractionDataSourceTests {
+
+    private static final String INDEX_NAME = "nh_project";
+
+    @Autowired
+    private ExtractionDataSource extractionDataSource;
+
+    @Autowired
+    private EspipeBulkheadProperties espipeBulkheadProperties;
+
+    @Autowired
+    private EspipeJdbcProperties espipeJdbcProperties;
+
+    @Autowired
+    private IndexConfigRegistry indexConfigRegistry;
+
+    @Autowired
+    private JdbcDao jdbcDao;
+
+    @Autowired
+    private ElasticsearchDao elasticsearchDao;
+
+    @Autowired
+    private EspipeTimerDao espipeTimerDao;
+
+    @Test
+    public void syncAndFixDuringInit() throws Exception {
+        final IndexConfig indexConfig = this.indexConfigRegistry.getIndexConfig(INDEX_NAME);
+        final HikariDataSource initPool = (HikariDataSource) this.extractionDataSource.getJdbcTemplate(Workload.INIT)
+                .getDataSource();
+        final EspipeBulkProperties notAdaptive = new EspipeBulkProperties();
+        notAdaptive.setAdaptive(false);
+        final ExecutorService initThread = Executors.newSingleThreadExecutor();
+        try (StubElasticsearch stub = StubElasticsearch.start(this.elasticsearchDao)) {
+            // one row per bulk request and one request in flight, the cursor of init waits
+            // at the second row with its connection while the first bulk request is held
+            TaskManager.getBulkControllers().put(INDEX_NAME, new BulkController(notAdaptive, 1, 1));
+            stub.hold();
+            Future<?> init = initThread.submit(() -> this.jdbcDao.init(INDEX_NAME));
+            assertThat(stub.awaitBulks(1, 10000)).isTrue();
+
+            final LocalDateTime now = LocalDateTime.now(ZoneId.systemDefault());
+            final Map<Role, Timestamp> window = Map.of(Role.START, Timestamp.valueOf(now.minusMinutes(1)), Role.END,
+                    Timestamp.valueOf(now));
+            final Map<Role, Timestamp> cutoff = Map.of(Role.CUTOFF, Timestamp.valueOf(now));
+            final JdbcTemplate syncTemplate = this.extractionDataSource.getJdbcTemplate(Workload.SYNC);
+            final JdbcTemplate fixTemplate = this.extractionDataSource.getJdbcTemplate(Workload.FIX);
+            for (int i = 0; i < 20; i++) {
+                long start = System.nanoTime();
+                syncTemplate.query(indexConfig.getSyncSql(), (ps) -> indexConfig.getSyncTemplate().bind(ps, 1, window),
+                        (RowCallbackHandler) (rs) -> {
+                        });
+                assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(1000);
+
+                start = System.nanoTime();
+                fixTemplate.query(indexConfig.getInitSql() + " and nh_project_id = ?", (ps) -> {
+                    int index = indexConfig.getInitTemplate().bind(ps, 1, cutoff);
+                    ps.setLong(index, 1);
+                }, (RowCallbackHandler) (rs) -> {
+                });
+                assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(1000);
+            }
+
+            // init was holding its connections all along and never waited for one
+            assertThat(init.isDone()).isFalse();
+            assertThat(initPool.getHikariPoolMXBean().getActiveConnections()).isPositive();
+            assertThat(initPool.getHikariPoolMXBean().getThreadsAwaitingConnection()).isZero();
+
+            stub.releaseAll();
+            init.get(30, TimeUnit.SECONDS);
+            assertThat(stub.count(INDEX_NAME)).isEqualTo(this.jdbcDao.getTotalCount(INDEX_NAME));
+        }
+        finally {
+            initThread.shutdownNow();
+            TaskManager.getBulkControllers().remove(INDEX_NAME);
+            this.espipeTimerDao.delete(INDEX_NAME);
+        }
+    }
+
+    @Test
+    public void initDemand() {
+        final IndexConfig indexConfig = this.indexConfigRegistry.getIndexConfig(INDEX_NAME);
+        final HikariDataSource initPool = (HikariDataSource) this.extractionDataSource.getJdbcTemplate(Workload.INIT)
+                .getDataSource();
+        final EspipeBulkheadProperties bulkhead = this.espipeBulkheadProperties;
+        final int demand = bulkhead.getInitThreads() + this.extractionDataSource.getPartitionThreads()
+                + bulkhead.getEnrichThreads() + bulkhead.getExtensionThreads();
+        assertThat(this.extractionDataSource.initDemand()).isEqualTo(demand);
+        assertThat(initPool.getMaximumPoolSize()).isEqualTo(demand);
+
+        final String extensionStrategy = indexConfig.getExtensionStrategy();
+        final Integer initPoolSize = bulkhead.getInitPoolSize();
+        try {
+            // a merge join holds a second cursor per init thread
+            indexConfig.setExtensionStrategy("merge_join");
+            assertThat(this.extractionDataSource.initDemand()).isEqualTo(demand + bulkhead.getInitThreads());
+
+            bulkhead.setInitPoolSize(demand);
+            assertThatThrownBy(() -> ReflectionTestUtils.invokeMethod(this.extractionDataSource, "checkBulkheads"))
+                    .isInstanceOf(EspipeException.class);
+        }
+        finally {
+            indexConfig.setExtensionStrategy(extensionStrategy);
+            bulkhead.setInitPoolSize(initPoolSize);
+            ReflectionTestUtils.invokeMethod(this.extractionDataSource, "checkBulkheads");
+        }
+    }
+
+    @Test
+    public void syncOnPrimaryByDefault() {
+        final EspipeJdbcProperties jdbc = this.espipeJdbcProperties;
+        final String replicaUrl = jdbc.getReplicaUrl();
+        try {
+            assertThat(this.extractionDataSource.getSyncLagMillis()).isZero();
+
+            // a replica serves init and fix, sync stays on the primary
+            jdbc.setReplicaUrl("jdbc:h2:mem:replica");
+            assertThat(this.extractionDataSource.isReplica(Workload.INIT)).isTrue();
+            assertThat(this.extractionDataSource.isReplica(Workload.FIX)).isTrue();
+            assertThat(this.extractionDataSource.isReplica(Workload.SYNC)).isFalse();
+            assertThat(this.extractionDataSource.getSyncLagMillis()).isZero();
+
+            // sync on the replica allows the replica to lag
+            jdbc.setReplicaSync(true);
+            assertThat(this.extractionDataSource.isReplica(Workload.SYNC)).isTrue();
+            assertThat(this.extractionDataSource.getSyncLagMillis()).isEqualTo(jdbc.getReplicaLagMillis())
+                    .isPositive();
+        }
+        finally {
+            jdbc.setReplicaUrl(replicaUrl);
+            jdbc.setReplicaSync(false);
+        }
+    }
+
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2021-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.nooshhub.config;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import io.github.nooshhub.config.FetchProfile.Workload;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link FetchProfileRegistry} and {@link FetchProfile}
+ *
+ * @author Neal Shan
+ * @since 10/18/2026
+ */
+@SpringBootTest(properties = "spring.profiles.active:h2")
+public class FetchProfileRegistryTests {
+
+    @Autowired
+    private FetchProfileRegistry fetchProfileRegistry;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Test
+    public void vendorDefaults() {
+        // the h2 profile of the application context
+        assertThat(this.fetchProfileRegistry.getFetchProfile(Workload.INIT).getFetchSize()).isEqualTo(1000);
+
+        final EspipeJdbcProperties defaults = new EspipeJdbcProperties();
+        FetchProfileRegistry mysql = registry("mysql", defaults, -1);
+        assertThat(mysql.getFetchProfile(Workload.INIT).getFetchSize()).isEqualTo(Integer.MIN_VALUE);
+        assertThat(mysql.getFetchProfile(Workload.INIT).isStreaming()).isTrue();
+        assertThat(mysql.getFetchProfile(Workload.SYNC).getFetchSize()).isZero();
+        assertThat(mysql.getFetchProfile(Workload.SYNC).isStreaming()).isFalse();
+
+        for (String vendor : new String[] { "h2", "oracle" }) {
+            FetchProfileRegistry registry = registry(vendor, defaults, -1);
+            assertThat(registry.getFetchProfile(Workload.INIT).getFetchSize()).isEqualTo(1000);
+            assertThat(registry.getFetchProfile(Workload.INIT).isStreaming()).isFalse();
+        }
+
+        // an unknown vendor keeps the fetch size of the jdbc template
+        assertThat(registry("postgres", defaults, 50).getFetchProfile(Workload.INIT).getFetchSize()).isEqualTo(50);
+    }
+
+    @Test
+    public void overrides() {
+        final EspipeJdbcProperties properties = new EspipeJdbcProperties();
+        properties.setInitFetchSize(500);
+        properties.setSyncFetchSize(20);
+        properties.setReadOnly(false);
+        properties.setAutoCommit(true);
+
+        // a positive init fetch size on mysql is a cursor fetch, it needs useCursorFetch=true
+        FetchProfileRegistry mysql = registry("mysql", properties, -1);
+        assertThat(mysql.getFetchProfile(Workload.INIT).getFetchSize()).isEqualTo(500);
+        assertThat(mysql.getFetchProfile(Workload.INIT).isStreaming()).isFalse();
+        assertThat(mysql.getFetchProfile(Workload.SYNC).getFetchSize()).isEqualTo(20);
+        assertThat(mysql.getFetchProfile(Workload.FIX).getFetchSize()).isEqualTo(20);
+
+        // read only and auto commit apply to init, sync and fix keep the connection defaults
+        assertThat(mysql.getFetchProfile(Workload.INIT).isReadOnly()).isFalse();
+        assertThat(mysql.getFetchProfile(Workload.INIT).isAutoCommit()).isTrue();
+        FetchProfile initDefaults = registry("oracle", new EspipeJdbcProperties(), -1).getFetchProfile(Workload.INIT);
+        assertThat(initDefaults.isReadOnly()).isTrue();
+        assertThat(initDefaults.isAutoCommit()).isFalse();
+        for (Workload workload : new Workload[] { Workload.SYNC, Workload.FIX }) {
+            assertThat(mysql.getFetchProfile(workload).isReadOnly()).isFalse();
+            assertThat(mysql.getFetchProfile(workload).isAutoCommit()).isTrue();
+        }
+    }
+
+    @Test
+    public void prepareStatement() throws Exception {
+        final FetchProfile fetchProfile = new FetchProfile("h2", Workload.INIT, 1000, true, false);
+        try (Connection conn = this.dataSource.getConnection()) {
+            final Map<String, Object> settings = new HashMap<>();
+            settings.put("autoCommit", true);
+            settings.put("readOnly", false);
+            final Connection recording = recording(conn, settings);
+
+            try (PreparedStatement ps = fetchProfile.prepareStatement(recording, "select 1")) {
+                fetchProfile.applyFetchSize(ps);
+
+                // the connection takes the modes of the profile, the statement is forward and read only
+                assertThat(settings).containsEntry("autoCommit", false).containsEntry("readOnly", true);
+                assertThat(ps.getResultSetType()).isEqualTo(ResultSet.TYPE_FORWARD_ONLY);
+                assertThat(ps.getResultSetConcurrency()).isEqualTo(ResultSet.CONCUR_READ_ONLY);
+                assertThat(ps.getFetchSize()).isEqualTo(1000);
+            }
+        }
+    }
+
+    private FetchProfileRegistry registry(String profile, EspipeJdbcProperties properties, int fetchSize) {
+        final JdbcTemplate jdbcTemplate = new JdbcTemplate();
+        jdbcTemplate.setFetchSize(fetchSize);
+        FetchProfileRegistry registry = new FetchProfileRegistry();
+        ReflectionTestUtils.setField(registry, "profile", profile);
+        ReflectionTestUtils.setField(registry, "espipeJdbcProperties", properties);
+        ReflectionTestUtils.setField(registry, "jdbcTemplate", jdbcTemplate);
+        registry.init();
+        return registry;
+    }
+
+    /**
+     * a connection that keeps the auto commit and read only modes in a map and prepares
+     * statements by the real connection.
+     * @param conn real connection
+     * @param settings auto commit and read only modes
+     * @return recording connection
+     */
+    private static Connection recording(Connection conn, Map<String, Object> settings) {
+        return (Connection) Proxy.newProxyInstance(FetchProfileRegistryTests.class.getClassLoader(),
+                new Class<?>[] { Connection.class }, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getAutoCommit":
+                            return settings.get("autoCommit");
+                        case "setAutoCommit":
+                            settings.put("autoCommit", args[0]);
+                            return null;
+                        case "isReadOnly":
+                            return settings.get("readOnly");
+                        case "setReadOnly":
+                            settings.put("readOnly", args[0]);
+                            return null;
+                        default:
+                            return method.invoke(conn, args);
+                    }
+                });
+    }
+
+}
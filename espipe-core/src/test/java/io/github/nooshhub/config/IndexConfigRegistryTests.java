@@ -0,0 +1,150 @@
+/*
+ * Copyright 2021-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.nooshhub.config;
+
+import java.util.List;
+
+import io.github.nooshhub.concurrent.TaskManager;
+import io.github.nooshhub.dao.ElasticsearchDao;
+import io.github.nooshhub.dao.EspipeTimerDao;
+import io.github.nooshhub.dao.JdbcDao;
+import io.github.nooshhub.exception.EspipeException;
+import io.github.nooshhub.support.StubElasticsearch;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for {@link IndexConfigRegistry}
+ *
+ * @author Neal Shan
+ * @since 10/18/2026
+ */
+@SpringBootTest(properties = "spring.profiles.active:h2")
+public class IndexConfigRegistryTests {
+
+    private static final String PROJECT = "nh_project";
+
+    private static final String ESTIMATE = "nh_estimate";
+
+    @Autowired
+    private IndexConfigRegistry indexConfigRegistry;
+
+    @Autowired
+    private JdbcDao jdbcDao;
+
+    @Autowired
+    private ElasticsearchDao elasticsearchDao;
+
+    @Autowired
+    private EspipeTimerDao espipeTimerDao;
+
+    @Test
+    public void noSharedScanByDefault() {
+        assertThat(this.indexConfigRegistry.getIndexConfigs().values()).extracting(IndexConfig::getSharedScan)
+                .containsOnlyNulls();
+        assertThat(this.indexConfigRegistry.getSharedScans()).isEmpty();
+    }
+
+    @Test
+    public void sharedScanNeedsTheSameInitSql() {
+        final IndexConfig project = this.indexConfigRegistry.getIndexConfig(PROJECT);
+        final IndexConfig estimate = this.indexConfigRegistry.getIndexConfig(ESTIMATE);
+        try {
+            project.setSharedScan("projects");
+            estimate.setSharedScan("projects");
+            assertThatThrownBy(() -> findSharedScans()).isInstanceOf(EspipeException.class)
+                    .hasMessageContaining("has another init.sql");
+
+            // indices of other groups read alone
+            estimate.setSharedScan("estimates");
+            findSharedScans();
+            assertThat(this.indexConfigRegistry.getSharedScans()).isEmpty();
+        }
+        finally {
+            project.setSharedScan(null);
+            estimate.setSharedScan(null);
+            findSharedScans();
+        }
+    }
+
+    @Test
+    public void sharedScanIsNotPartitioned() {
+        final IndexConfig project = this.indexConfigRegistry.getIndexConfig(PROJECT);
+        final int initPartitions = project.getInitPartitions();
+        try {
+            project.setSharedScan("projects");
+            project.setInitPartitions(2);
+            assertThatThrownBy(() -> findSharedScans()).isInstanceOf(EspipeException.class)
+                    .hasMessageContaining("must not be partitioned");
+        }
+        finally {
+            project.setSharedScan(null);
+            project.setInitPartitions(initPartitions);
+            findSharedScans();
+        }
+    }
+
+    @Test
+    public void initShared() throws Exception {
+        final IndexConfig project = this.indexConfigRegistry.getIndexConfig(PROJECT);
+        final IndexConfig estimate = this.indexConfigRegistry.getIndexConfig(ESTIMATE);
+        final String initSql = estimate.getInitSql();
+        final SqlTemplate initTemplate = estimate.getInitTemplate();
+        final String idColumns = estimate.getIdColumns();
+        try (StubElasticsearch stub = StubElasticsearch.start(this.elasticsearchDao)) {
+            // the estimate index reads the projects too
+            estimate.setInitSql(project.getInitSql() + "\n");
+            estimate.setInitTemplate(project.getInitTemplate());
+            estimate.setIdColumns(project.getIdColumns());
+            project.setSharedScan("projects");
+            estimate.setSharedScan("projects");
+            findSharedScans();
+            assertThat(this.indexConfigRegistry.getSharedScans()).containsExactly(List.of(ESTIMATE, PROJECT));
+
+            this.jdbcDao.initShared(this.indexConfigRegistry.getSharedScans().get(0));
+            final long rows = this.jdbcDao.getTotalCount(PROJECT);
+            assertThat(rows).isPositive();
+            assertThat(stub.count(PROJECT)).isEqualTo(rows);
+            assertThat(stub.count(ESTIMATE)).isEqualTo(rows);
+            assertThat(this.espipeTimerDao.findLastRefreshTime(PROJECT)).isNotNull();
+            assertThat(this.espipeTimerDao.findLastRefreshTime(ESTIMATE)).isNotNull();
+        }
+        finally {
+            estimate.setInitSql(initSql);
+            estimate.setInitTemplate(initTemplate);
+            estimate.setIdColumns(idColumns);
+            project.setSharedScan(null);
+            estimate.setSharedScan(null);
+            findSharedScans();
+            for (String indexName : List.of(PROJECT, ESTIMATE)) {
+                TaskManager.getBulkControllers().remove(indexName);
+                this.espipeTimerDao.delete(indexName);
+            }
+        }
+    }
+
+    private void findSharedScans() {
+        ReflectionTestUtils.invokeMethod(this.indexConfigRegistry, "findSharedScans");
+    }
+
+}
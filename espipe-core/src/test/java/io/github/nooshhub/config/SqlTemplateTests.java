@@ -0,0 +1,70 @@
+/*
+ * Copyright 2021-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.nooshhub.config;
+
+import java.util.List;
+
+import io.github.nooshhub.config.SqlTemplate.Role;
+import io.github.nooshhub.exception.EspipeException;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for {@link SqlTemplate}
+ *
+ * @author Neal Shan
+ * @since 10/18/2026
+ */
+@SpringBootTest(properties = "spring.profiles.active:h2")
+public class SqlTemplateTests {
+
+    @Autowired
+    private IndexConfigRegistry indexConfigRegistry;
+
+    @Test
+    public void parse() {
+        SqlTemplate template = SqlTemplate.parse("sync.sql",
+                "select '?' as q, \"?\" from t -- ?\n where a > ? /* ? */ and a < ? or b > ? and b < ?", Role.START,
+                Role.END);
+        assertThat(template.getRoles()).isEqualTo(List.of(Role.START, Role.END, Role.START, Role.END));
+
+        assertThatThrownBy(() -> SqlTemplate.parse("sync.sql", "select * from t where a > ?", Role.START, Role.END))
+                .isInstanceOf(EspipeException.class);
+    }
+
+    @Test
+    public void expand() {
+        SqlTemplate template = SqlTemplate.parse("extension.sql", "select * from t where id in (?) and c = '?'",
+                Role.IDS);
+        assertThat(template.expand(3)).isEqualTo("select * from t where id in (?,?,?) and c = '?'");
+        assertThat(template.expand(3)).isSameAs(template.expand(3));
+    }
+
+    @Test
+    public void registry() {
+        IndexConfig indexConfig = this.indexConfigRegistry.getIndexConfig("nh_project");
+        assertThat(indexConfig.getInitTemplate().getRoles()).containsExactly(Role.CUTOFF);
+        assertThat(indexConfig.getSyncTemplate().getRoles()).containsExactly(Role.START, Role.END);
+        assertThat(indexConfig.getExtensionTemplate().getRoles()).containsExactly(Role.IDS);
+    }
+
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2021-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.nooshhub.dao;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import co.elastic.clients.elasticsearch.ElasticsearchAsyncClient;
+import co.elastic.clients.json.jackson.JacksonJsonpMapper;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link BulkRequestEncoder}
+ *
+ * @author Neal Shan
+ * @since 10/18/2026
+ */
+@SpringBootTest(properties = "spring.profiles.active:h2")
+public class BulkRequestEncoderTests {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ElasticsearchAsyncClient esAsyncClient;
+
+    @Test
+    public void ndjson() throws Exception {
+        ObjectMapper objectMapper = ((JacksonJsonpMapper) this.esAsyncClient._transport().jsonpMapper())
+                .objectMapper();
+        List<Map<String, Object>> flattenMapList = this.jdbcTemplate
+                .query("select * from nh_project order by nh_project_id", new FlattenRowMapper());
+        flattenMapList.get(0).put("custom_fields", "label_11 value 11 ");
+
+        BulkRequestEncoder encoder = new BulkRequestEncoder(objectMapper);
+        for (Map<String, Object> flattenMap : flattenMapList) {
+            encoder.create("nh_project", flattenMap.get("nh_project_id").toString(), flattenMap);
+        }
+        assertThat(encoder.getOperations()).isEqualTo(flattenMapList.size());
+
+        String body = new String(encoder.toByteArray(), StandardCharsets.UTF_8);
+        assertThat(body).endsWith("\n");
+        String[] lines = body.split("\n");
+        assertThat(lines).hasSize(flattenMapList.size() * 2);
+        for (int i = 0; i < flattenMapList.size(); i++) {
+            Map<String, Object> flattenMap = flattenMapList.get(i);
+            assertThat(objectMapper.readTree(lines[i * 2]).at("/create/_id").asText())
+                    .isEqualTo(flattenMap.get("nh_project_id").toString());
+            assertThat(objectMapper.readTree(lines[i * 2 + 1]))
+                    .isEqualTo(objectMapper.readTree(objectMapper.writeValueAsBytes(flattenMap)));
+        }
+
+        // the buffer is reset for the next bulk request
+        assertThat(encoder.getOperations()).isZero();
+        encoder.create("nh_project", "1", flattenMapList.get(0));
+        assertThat(new String(encoder.toByteArray(), StandardCharsets.UTF_8).split("\n")).hasSize(2);
+    }
+
+    @Test
+    public void delete() throws Exception {
+        ObjectMapper objectMapper = ((JacksonJsonpMapper) this.esAsyncClient._transport().jsonpMapper())
+                .objectMapper();
+        BulkRequestEncoder encoder = new BulkRequestEncoder(objectMapper);
+        encoder.delete("nh_project", "1");
+        encoder.create("nh_project", "2", Map.of("nh_project_id", 2));
+        encoder.delete("nh_project", "3-4");
+        assertThat(encoder.getOperations()).isEqualTo(3);
+
+        // a delete has no document line
+        String[] lines = new String(encoder.toByteArray(), StandardCharsets.UTF_8).split("\n");
+        assertThat(lines).hasSize(4);
+        assertThat(objectMapper.readTree(lines[0]).at("/delete/_id").asText()).isEqualTo("1");
+        assertThat(objectMapper.readTree(lines[1]).at("/create/_id").asText()).isEqualTo("2");
+        assertThat(objectMapper.readTree(lines[3]).at("/delete/_index").asText()).isEqualTo("nh_project");
+        assertThat(objectMapper.readTree(lines[3]).at("/delete/_id").asText()).isEqualTo("3-4");
+    }
+
+    @Test
+    public void bytes() {
+        ObjectMapper objectMapper = ((JacksonJsonpMapper) this.esAsyncClient._transport().jsonpMapper())
+                .objectMapper();
+        List<Map<String, Object>> flattenMapList = this.jdbcTemplate
+                .query("select * from nh_project order by nh_project_id", new FlattenRowMapper());
+
+        BulkRequestEncoder encoder = new BulkRequestEncoder(objectMapper);
+        assertThat(encoder.getBytes()).isZero();
+        long estimatedBytes = 0;
+        for (Map<String, Object> flattenMap : flattenMapList) {
+            encoder.create("nh_project", flattenMap.get("nh_project_id").toString(), flattenMap);
+            estimatedBytes += BulkRequestEncoder.estimateBytes(flattenMap);
+        }
+
+        // the size is counted before the body is copied out, the estimate is the same order
+        int bytes = encoder.getBytes();
+        assertThat(encoder.toByteArray()).hasSize(bytes + 1);
+        assertThat(estimatedBytes).isBetween(bytes / 2L, bytes * 2L);
+    }
+
+    @Test
+    public void externalVersion() throws Exception {
+        ObjectMapper objectMapper = ((JacksonJsonpMapper) this.esAsyncClient._transport().jsonpMapper())
+                .objectMapper();
+        Map<String, Object> flattenMap = this.jdbcTemplate
+                .query("select * from nh_project order by nh_project_id", new FlattenRowMapper()).get(0);
+
+        BulkRequestEncoder encoder = new BulkRequestEncoder(objectMapper);
+        encoder.index("nh_project", "1", flattenMap, 1000);
+        encoder.delete("nh_project", "2", 2000);
+        String[] lines = new String(encoder.toByteArray(), StandardCharsets.UTF_8).split("\n");
+        assertThat(lines).hasSize(3);
+        assertThat(objectMapper.readTree(lines[0]).at("/index/version").asLong()).isEqualTo(1000);
+        assertThat(objectMapper.readTree(lines[0]).at("/index/version_type").asText()).isEqualTo("external_gte");
+        assertThat(objectMapper.readTree(lines[2]).at("/delete/version").asLong()).isEqualTo(2000);
+        assertThat(objectMapper.readTree(lines[2]).at("/delete/version_type").asText()).isEqualTo("external_gte");
+    }
+
+}
@@ -0,0 +1,327 @@
+/*
+ * Copyright 2021-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.nooshhub.dao;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import co.elastic.clients.elasticsearch.core.BulkResponse;
+import co.elastic.clients.elasticsearch.core.bulk.BulkResponseItem;
+import io.github.nooshhub.concurrent.BulkRetries;
+import io.github.nooshhub.concurrent.TaskManager;
+import io.github.nooshhub.config.EspipeBulkProperties;
+import io.github.nooshhub.config.IndexConfig;
+import io.github.nooshhub.config.IndexConfigRegistry;
+import io.github.nooshhub.exception.EspipeException;
+import io.github.nooshhub.support.StubElasticsearch;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for {@link ElasticsearchDao}
+ *
+ * @author Neal Shan
+ * @since 10/18/2026
+ */
+@SpringBootTest(properties = "spring.profiles.active:h2")
+public class ElasticsearchDaoTests {
+
+    private static final String INDEX_NAME = "nh_project";
+
+    @Autowired
+    private ElasticsearchDao elasticsearchDao;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EspipeBulkProperties espipeBulkProperties;
+
+    @Autowired
+    private IndexConfigRegistry indexConfigRegistry;
+
+    @Test
+    public void failedBatchIsNotSentLater() throws Exception {
+        List<Map<String, Object>> rows = this.jdbcTemplate
+                .query("select * from nh_project order by nh_project_id", new FlattenRowMapper());
+        Map<String, Object> withoutId = new HashMap<>(rows.get(1));
+        withoutId.remove("nh_project_id");
+        try (StubElasticsearch stub = StubElasticsearch.start(this.elasticsearchDao)) {
+            // the first document is encoded before the second one fails
+            assertThatThrownBy(() -> this.elasticsearchDao.createDocument(INDEX_NAME, List.of(rows.get(0), withoutId)))
+                    .isInstanceOf(RuntimeException.class);
+            assertThat(stub.getBulks()).isEmpty();
+
+            // the next bulk request of the thread has only its own document
+            this.elasticsearchDao.createDocument(INDEX_NAME, rows.get(1)).get(10, TimeUnit.SECONDS);
+            assertThat(stub.getBulks()).hasSize(1);
+            assertThat(stub.getBulks().get(0)).extracting(StubElasticsearch.Operation::getId)
+                    .containsExactly(rows.get(1).get("nh_project_id").toString());
+        }
+        finally {
+            reset();
+        }
+    }
+
+    @Test
+    public void retryableItemsAreRetried() throws Exception {
+        try (StubElasticsearch stub = StubElasticsearch.start(this.elasticsearchDao)) {
+            fastRetries();
+            stub.failItem("102", 429, "es_rejected_execution_exception", 1);
+            stub.failItem("103", 400, "mapper_parsing_exception", 1);
+            stub.failItem("104", 503, "unavailable_shards_exception", 2);
+
+            BulkResponse bulkRes = this.elasticsearchDao.createDocument(INDEX_NAME, documents(101, 104))
+                    .get(10, TimeUnit.SECONDS);
+
+            // only the rejected items are resent, their responses replace the failed items in place
+            assertThat(stub.getBulks()).extracting((bulk) -> ids(bulk)).containsExactly(
+                    List.of("101", "102", "103", "104"), List.of("102", "104"), List.of("104"));
+            assertThat(bulkRes.items()).extracting(BulkResponseItem::id).containsExactly("101", "102", "103",
+                    "104");
+            assertThat(bulkRes.items()).extracting((item) -> (item.error() != null) ? item.error().type() : null)
+                    .containsExactly(null, null, "mapper_parsing_exception", null);
+            assertThat(bulkRes.errors()).isTrue();
+
+            // a document is counted once however many times it is resent
+            BulkRetries bulkRetries = this.elasticsearchDao.getBulkRetries(INDEX_NAME);
+            assertThat(bulkRetries.getRetried()).isEqualTo(2);
+            assertThat(bulkRetries.getRecovered()).isEqualTo(2);
+            assertThat(bulkRetries.getFailed()).isEqualTo(1);
+        }
+        finally {
+            reset();
+        }
+    }
+
+    @Test
+    public void retryBudget() throws Exception {
+        try (StubElasticsearch stub = StubElasticsearch.start(this.elasticsearchDao)) {
+            fastRetries();
+            final int maxRetries = this.espipeBulkProperties.getMaxRetries();
+            stub.failItem("101", 429, "es_rejected_execution_exception", maxRetries + 1);
+
+            BulkResponse bulkRes = this.elasticsearchDao.createDocument(INDEX_NAME, documents(101, 102))
+                    .get(10, TimeUnit.SECONDS);
+
+            // the first request and max retries, then the item fails for good
+            assertThat(stub.getBulks()).hasSize(maxRetries + 1);
+            assertThat(bulkRes.items().get(0).status()).isEqualTo(429);
+            assertThat(bulkRes.items().get(1).error()).isNull();
+
+            BulkRetries bulkRetries = this.elasticsearchDao.getBulkRetries(INDEX_NAME);
+            assertThat(bulkRetries.getRetried()).isEqualTo(1);
+            assertThat(bulkRetries.getRecovered()).isZero();
+            assertThat(bulkRetries.getFailed()).isEqualTo(1);
+        }
+        finally {
+            reset();
+        }
+    }
+
+    @Test
+    public void rejectedRequestIsRetried() throws Exception {
+        try (StubElasticsearch stub = StubElasticsearch.start(this.elasticsearchDao)) {
+            fastRetries();
+            stub.respondWith(429, 503);
+
+            BulkResponse bulkRes = this.elasticsearchDao.createDocument(INDEX_NAME, documents(101, 103))
+                    .get(10, TimeUnit.SECONDS);
+
+            assertThat(stub.getBulks()).hasSize(3);
+            assertThat(bulkRes.errors()).isFalse();
+            BulkRetries bulkRetries = this.elasticsearchDao.getBulkRetries(INDEX_NAME);
+            assertThat(bulkRetries.getRetried()).isEqualTo(3);
+            assertThat(bulkRetries.getRecovered()).isEqualTo(3);
+            assertThat(bulkRetries.getFailed()).isZero();
+        }
+        finally {
+            reset();
+        }
+    }
+
+    @Test
+    public void permanentRequestFailure() throws Exception {
+        try (StubElasticsearch stub = StubElasticsearch.start(this.elasticsearchDao)) {
+            fastRetries();
+            stub.respondWith(400);
+
+            assertThatThrownBy(() -> this.elasticsearchDao.createDocument(INDEX_NAME, documents(101, 102))
+                    .get(10, TimeUnit.SECONDS)).hasMessageContaining("400");
+
+            // a bad request is not retried
+            assertThat(stub.getBulks()).hasSize(1);
+            BulkRetries bulkRetries = this.elasticsearchDao.getBulkRetries(INDEX_NAME);
+            assertThat(bulkRetries.getRetried()).isZero();
+            assertThat(bulkRetries.getFailed()).isEqualTo(2);
+        }
+        finally {
+            reset();
+        }
+    }
+
+    @Test
+    public void tooLargeRequestIsSplit() throws Exception {
+        try (StubElasticsearch stub = StubElasticsearch.start(this.elasticsearchDao)) {
+            fastRetries();
+            stub.respondWith(413);
+            stub.failItem("102", 429, "es_rejected_execution_exception", 1);
+
+            List<String> senders = Collections.synchronizedList(new ArrayList<>());
+            BulkResponse bulkRes = this.elasticsearchDao.createDocument(INDEX_NAME, documents(101, 104),
+                    (bytes) -> senders.add(Thread.currentThread().getName())).get(10, TimeUnit.SECONDS);
+
+            // the halves and the retry are sent by the bulk pool, not by the common pool
+            assertThat(senders).hasSize(4);
+            assertThat(senders.get(0)).isEqualTo(Thread.currentThread().getName());
+            assertThat(senders.subList(1, senders.size())).allSatisfy((name) -> assertThat(name).startsWith("bulk-"));
+
+            // the halves are sent as their own requests and merged in the order of the documents
+            assertThat(stub.getBulks().get(0)).hasSize(4);
+            assertThat(stub.getBulks().subList(1, stub.getBulks().size())).extracting((bulk) -> ids(bulk))
+                    .containsExactlyInAnyOrder(List.of("101", "102"), List.of("103", "104"), List.of("102"));
+            assertThat(bulkRes.items()).extracting(BulkResponseItem::id).containsExactly("101", "102", "103",
+                    "104");
+            assertThat(bulkRes.errors()).isFalse();
+            assertThat(stub.count(INDEX_NAME)).isEqualTo(4);
+            assertThat(this.elasticsearchDao.getBulkRetries(INDEX_NAME).getRetried()).isEqualTo(1);
+        }
+        finally {
+            reset();
+        }
+    }
+
+    @Test
+    public void getVersion() {
+        Map<String, Object> flattenMap = this.jdbcTemplate
+                .query("select * from nh_project order by nh_project_id", new FlattenRowMapper()).get(0);
+        IndexConfig indexConfig = new IndexConfig();
+        indexConfig.setVersionColumns(new String[] { "mod_date", "create_date" });
+        Date modDate = (Date) flattenMap.get("mod_date");
+        Date createDate = (Date) flattenMap.get("create_date");
+        assertThat(ElasticsearchDao.getVersion(indexConfig, flattenMap))
+                .isEqualTo((modDate != null) ? modDate.getTime() : createDate.getTime());
+
+        // a row without any version is version 0
+        Map<String, Object> withoutVersion = new HashMap<>(flattenMap);
+        withoutVersion.put("mod_date", null);
+        withoutVersion.put("create_date", null);
+        assertThat(ElasticsearchDao.hasVersion(indexConfig, withoutVersion)).isFalse();
+        assertThat(ElasticsearchDao.getVersion(indexConfig, withoutVersion)).isZero();
+
+        // a version column that is not in the row is a config error
+        indexConfig.setVersionColumns(new String[] { "change_id" });
+        assertThatThrownBy(() -> ElasticsearchDao.getVersion(indexConfig, flattenMap))
+                .isInstanceOf(EspipeException.class);
+    }
+
+    @Test
+    public void externalVersion() throws Exception {
+        final IndexConfig indexConfig = this.indexConfigRegistry.getIndexConfig(INDEX_NAME);
+        final String writeMode = indexConfig.getWriteMode();
+        final String[] versionColumns = indexConfig.getVersionColumns();
+        try (StubElasticsearch stub = StubElasticsearch.start(this.elasticsearchDao)) {
+            indexConfig.setWriteMode("external");
+            indexConfig.setVersionColumns(new String[] { "mod_date" });
+            write(this.elasticsearchDao.createDocument(INDEX_NAME, List.of(versioned(1000L, "first"))));
+
+            // the same version is applied, like a change of the extension fields only
+            write(this.elasticsearchDao.indexDocument(INDEX_NAME, List.of(versioned(1000L, "same"))));
+            assertThat(stub.getDocument(INDEX_NAME, "101").get("name").asText()).isEqualTo("same");
+
+            // a lower version is a conflict, not a failure
+            write(this.elasticsearchDao.createDocument(INDEX_NAME, List.of(versioned(999L, "stale"))));
+            assertThat(stub.getDocument(INDEX_NAME, "101").get("name").asText()).isEqualTo("same");
+
+            // a versioned delete keeps a stale write from bringing the document back
+            write(this.elasticsearchDao.deleteDocument(INDEX_NAME, List.of(versioned(2000L, null))));
+            write(this.elasticsearchDao.createDocument(INDEX_NAME, List.of(versioned(1500L, "stale"))));
+            assertThat(stub.getDocument(INDEX_NAME, "101")).isNull();
+            write(this.elasticsearchDao.createDocument(INDEX_NAME, List.of(versioned(2500L, "again"))));
+            assertThat(stub.getDocument(INDEX_NAME, "101").get("name").asText()).isEqualTo("again");
+
+            // a delete without a version column is not versioned
+            write(this.elasticsearchDao.deleteDocument(INDEX_NAME, List.of(versioned(null, null))));
+            assertThat(stub.getDocument(INDEX_NAME, "101")).isNull();
+            assertThat(stub.getBulks()).extracting((bulk) -> bulk.get(0).getVersion()).containsExactly(1000L,
+                    1000L, 999L, 2000L, 1500L, 2500L, null);
+            assertThat(stub.getBulks().get(3).get(0).getVersionType()).isEqualTo("external_gte");
+        }
+        finally {
+            indexConfig.setWriteMode(writeMode);
+            indexConfig.setVersionColumns(versionColumns);
+            reset();
+        }
+    }
+
+    private void write(CompletableFuture<BulkResponse> future) throws Exception {
+        assertThat(this.elasticsearchDao.processBulkResponse(future.get(10, TimeUnit.SECONDS))).isTrue();
+    }
+
+    private static Map<String, Object> versioned(Long version, String name) {
+        Map<String, Object> document = new HashMap<>();
+        document.put("nh_project_id", 101L);
+        if (version != null) {
+            document.put("mod_date", version);
+        }
+        if (name != null) {
+            document.put("name", name);
+        }
+        return document;
+    }
+
+    private void fastRetries() {
+        this.espipeBulkProperties.setRetryBackoffMillis(1);
+        TaskManager.getBulkRetries().remove(INDEX_NAME);
+    }
+
+    private void reset() {
+        this.espipeBulkProperties.setRetryBackoffMillis(200);
+        TaskManager.getBulkControllers().remove(INDEX_NAME);
+        TaskManager.getBulkRetries().remove(INDEX_NAME);
+    }
+
+    private static List<Map<String, Object>> documents(long fromId, long toId) {
+        List<Map<String, Object>> documents = new ArrayList<>();
+        for (long id = fromId; id <= toId; id++) {
+            Map<String, Object> document = new HashMap<>();
+            document.put("nh_project_id", id);
+            document.put("name", "project " + id);
+            documents.add(document);
+        }
+        return documents;
+    }
+
+    private static List<String> ids(List<StubElasticsearch.Operation> bulk) {
+        List<String> ids = new ArrayList<>(bulk.size());
+        bulk.forEach((operation) -> ids.add(operation.getId()));
+        return ids;
+    }
+
+}
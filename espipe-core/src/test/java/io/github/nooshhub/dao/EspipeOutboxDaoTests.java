@@ -0,0 +1,86 @@
+/*
+ * Copyright 2021-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.nooshhub.dao;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.github.nooshhub.support.OutboxTrigger;
+import io.github.nooshhub.support.TestDataFixture;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link EspipeOutboxDao}
+ *
+ * @author Neal Shan
+ * @since 10/18/2026
+ */
+@SpringBootTest(properties = "spring.profiles.active:h2")
+public class EspipeOutboxDaoTests {
+
+    private static final String TABLE_NAME = "nh_project";
+
+    @Autowired
+    private EspipeOutboxDao espipeOutboxDao;
+
+    @Autowired
+    private TestDataFixture testDataFixture;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void drain() {
+        this.jdbcTemplate.execute(OutboxTrigger.createTriggerSql(TABLE_NAME));
+        final List<Long> createdIds = new ArrayList<>();
+        try {
+            this.testDataFixture.createProjects(10);
+            createdIds.addAll(this.jdbcTemplate.queryForList("select pk from espipe_outbox", Long.class));
+            Long updatedId = this.jdbcTemplate.queryForObject("select min(pk) from espipe_outbox", Long.class);
+            Long deletedId = this.jdbcTemplate.queryForObject("select max(pk) from espipe_outbox", Long.class);
+            this.jdbcTemplate.update("update nh_project set name = 'changed' where nh_project_id = ?", updatedId);
+            this.jdbcTemplate.update("update nh_project set name = 'changed again' where nh_project_id = ?",
+                    updatedId);
+            this.jdbcTemplate.update("delete from nh_project where nh_project_id = ?", deletedId);
+
+            // the changes of one pk are de-duplicated and the last operation wins
+            EspipeOutboxDao.OutboxBatch batch = this.espipeOutboxDao.drain(TABLE_NAME, 100);
+            assertThat(batch.size()).isEqualTo(13);
+            assertThat(batch.getChanges()).hasSize(10);
+            assertThat(batch.getChanges().get(String.valueOf(updatedId))).isEqualTo("U");
+            assertThat(batch.getChanges().get(String.valueOf(deletedId))).isEqualTo(EspipeOutboxDao.DELETE_OP);
+
+            // drained in batches, and deleted after they are acknowledged
+            assertThat(this.espipeOutboxDao.drain(TABLE_NAME, 5).size()).isEqualTo(5);
+            this.espipeOutboxDao.delete(batch);
+            assertThat(this.espipeOutboxDao.drain(TABLE_NAME, 100).isEmpty()).isTrue();
+        }
+        finally {
+            this.jdbcTemplate.execute(OutboxTrigger.dropTriggerSql(TABLE_NAME));
+            this.jdbcTemplate.update("delete from espipe_outbox");
+            // the shared database is left as it was for the other tests
+            createdIds.forEach((id) -> this.jdbcTemplate.update("delete from nh_project where nh_project_id = ?", id));
+        }
+    }
+
+}
@@ -0,0 +1,279 @@
+/*
+ * Copyright 2021-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.nooshhub.dao;
+
+import java.io.File;
+import java.sql.ResultSetMetaData;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import io.github.nooshhub.config.EspipeElasticsearchProperties;
+import io.github.nooshhub.config.FetchProfile.Workload;
+import io.github.nooshhub.config.IndexConfig;
+import io.github.nooshhub.config.IndexConfigRegistry;
+import io.github.nooshhub.metric.CacheMetric;
+import io.github.nooshhub.support.IOUtils;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link ExtensionDao}
+ *
+ * @author Neal Shan
+ * @since 10/18/2026
+ */
+@SpringBootTest(properties = "spring.profiles.active:h2")
+public class ExtensionDaoTests {
+
+    private static final String INDEX_NAME = "nh_project";
+
+    @Autowired
+    private ExtensionDao extensionDao;
+
+    @Autowired
+    private ExtensionCache extensionCache;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private IndexConfigRegistry indexConfigRegistry;
+
+    @Autowired
+    private EspipeElasticsearchProperties espipeElasticsearchProperties;
+
+    @Test
+    public void chunk() {
+        List<Object> ids = IntStream.rangeClosed(1, 530).boxed().collect(Collectors.toList());
+        List<List<Object>> chunks = ExtensionDao.chunk(ids);
+
+        assertThat(chunks).extracting(List::size).containsExactly(512, 128);
+        assertThat(chunks.get(1).subList(18, 128)).containsOnly(530);
+        assertThat(ExtensionDao.chunk(List.of(1))).containsExactly(List.of(1));
+    }
+
+    @Test
+    public void customInOne() {
+        sameAsInList("CUSTOM_IN_ONE", 600);
+    }
+
+    @Test
+    public void flatten() {
+        sameAsInList("FLATTEN", 600);
+    }
+
+    @Test
+    public void boundedExtensionPool() {
+        final ThreadPoolExecutor pool = (ThreadPoolExecutor) ReflectionTestUtils.getField(this.extensionDao,
+                "extensionExecutor");
+        final int threads = pool.getCorePoolSize();
+        assertThat(pool.getQueue().remainingCapacity()).isEqualTo(threads);
+
+        // more chunks than the threads and the queue of the pool, the caller waits for free slots
+        assertThat(ExtensionDao.chunk(new ArrayList<>(rows(4000)))).hasSizeGreaterThan(threads * 2 + 1);
+        sameAsInList("CUSTOM_IN_ONE", 4000);
+        assertThat(pool.getLargestPoolSize()).isEqualTo(threads);
+        assertThat(pool.getQueue()).isEmpty();
+    }
+
+    @Test
+    public void mergeJoin() {
+        for (String fieldsMode : new String[] { "CUSTOM_IN_ONE", "FLATTEN" }) {
+            String defaultFieldsMode = this.espipeElasticsearchProperties.getFieldsMode();
+            this.espipeElasticsearchProperties.setFieldsMode(fieldsMode);
+            try {
+                IndexConfig indexConfig = new IndexConfig();
+                indexConfig.setExtensionColumn("nh_project_id");
+                indexConfig.setExtensionStrategy("merge_join");
+                indexConfig.setExtensionAllSql(IOUtils.getContent(new File(System.getProperty("user.dir")).getParent()
+                        + "/espipe/h2/es/nh_project/sql/extension_all.sql"));
+                assertThat(this.extensionDao.isMergeJoin(indexConfig)).isTrue();
+
+                String sql = this.extensionDao.orderByExtension(indexConfig, "select * from nh_project");
+                List<Map<String, Object>> expected = this.jdbcTemplate.query(sql, new FlattenRowMapper());
+                this.extensionDao.extend(Workload.INIT, INDEX_NAME, expected);
+
+                List<Map<String, Object>> actual = new ArrayList<>();
+                this.extensionDao.mergeJoin(indexConfig, (extensionCursor) -> {
+                    FlattenRowMapper rowMapper = new FlattenRowMapper();
+                    this.jdbcTemplate.query(sql, (rs) -> {
+                        Map<String, Object> flattenMap = rowMapper.mapRow(rs, actual.size());
+                        extensionCursor.extend(flattenMap);
+                        actual.add(flattenMap);
+                    });
+                });
+
+                assertThat(actual).isEqualTo(expected);
+                assertThat(actual).anySatisfy((flattenMap) -> assertThat(flattenMap).hasSizeGreaterThan(5));
+            }
+            finally {
+                this.espipeElasticsearchProperties.setFieldsMode(defaultFieldsMode);
+                this.extensionDao.clearCache(INDEX_NAME);
+            }
+        }
+    }
+
+    @Test
+    public void cache() {
+        String defaultFieldsMode = this.espipeElasticsearchProperties.getFieldsMode();
+        this.espipeElasticsearchProperties.setFieldsMode("CUSTOM_IN_ONE");
+        try {
+            List<Map<String, Object>> expected = rows(600);
+            this.extensionDao.extend(Workload.INIT, INDEX_NAME, expected);
+            CacheMetric loaded = this.extensionCache.cacheMetric();
+
+            List<Map<String, Object>> actual = rows(600);
+            this.extensionDao.extend(Workload.INIT, INDEX_NAME, actual);
+            CacheMetric cached = this.extensionCache.cacheMetric();
+            assertThat(actual).isEqualTo(expected);
+            assertThat(cached.getHits() - loaded.getHits()).isEqualTo(600);
+            assertThat(cached.getSize()).isEqualTo(600);
+            assertThat(cached.getWeightBytes()).isPositive();
+
+            LocalDateTime now = LocalDateTime.now(ZoneId.systemDefault());
+            this.extensionDao.invalidate(INDEX_NAME, now.minusDays(1), now.plusDays(1));
+            CacheMetric invalidated = this.extensionCache.cacheMetric();
+            assertThat(invalidated.getInvalidations() - cached.getInvalidations()).isEqualTo(2);
+            assertThat(invalidated.getSize()).isEqualTo(598);
+        }
+        finally {
+            this.espipeElasticsearchProperties.setFieldsMode(defaultFieldsMode);
+            this.extensionDao.clearCache(INDEX_NAME);
+        }
+    }
+
+    @Test
+    public void staleLoadIsNotCached() {
+        try {
+            // a load started before an invalidation is dropped
+            final long generation = this.extensionCache.generation(INDEX_NAME);
+            this.extensionCache.invalidate(INDEX_NAME, List.of("1"));
+            this.extensionCache.put(INDEX_NAME, "1", "old", generation);
+            assertThat(this.extensionCache.get(INDEX_NAME, "1")).isNull();
+
+            this.extensionCache.put(INDEX_NAME, "1", "new", this.extensionCache.generation(INDEX_NAME));
+            assertThat(this.extensionCache.get(INDEX_NAME, "1")).isEqualTo("new");
+        }
+        finally {
+            this.extensionDao.clearCache(INDEX_NAME);
+        }
+    }
+
+    private void sameAsInList(String fieldsMode, long maxId) {
+        String defaultFieldsMode = this.espipeElasticsearchProperties.getFieldsMode();
+        this.espipeElasticsearchProperties.setFieldsMode(fieldsMode);
+        try {
+            List<Map<String, Object>> expected = rows(maxId);
+            extendByInList(expected, fieldsMode);
+            List<Map<String, Object>> actual = rows(maxId);
+            this.extensionDao.extend(Workload.INIT, INDEX_NAME, actual);
+
+            assertThat(actual).isEqualTo(expected);
+            assertThat(actual.get(0)).isNotEqualTo(rows(maxId).get(0));
+        }
+        finally {
+            this.espipeElasticsearchProperties.setFieldsMode(defaultFieldsMode);
+            this.extensionDao.clearCache(INDEX_NAME);
+        }
+    }
+
+    /**
+     * rows with duplicated and null ids, the ids with extension fields are in different
+     * chunks.
+     * @param maxId max id
+     * @return rows
+     */
+    private static List<Map<String, Object>> rows(long maxId) {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (long id : new long[] { 2, 2 }) {
+            rows.add(row(id));
+        }
+        for (long id = 3; id <= maxId; id++) {
+            rows.add(row(id));
+        }
+        rows.add(row(null));
+        rows.add(row(1L));
+        return rows;
+    }
+
+    private static Map<String, Object> row(Long id) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("nh_project_id", id);
+        row.put("name", "project " + id);
+        return row;
+    }
+
+    /**
+     * the extension by one statement with all ids in the IN list.
+     * @param flattenMapList flatten map list
+     * @param fieldsMode fields mode
+     */
+    private void extendByInList(List<Map<String, Object>> flattenMapList, String fieldsMode) {
+        List<String> extensionIds = new ArrayList<>();
+        for (Map<String, Object> flattenMap : flattenMapList) {
+            if (flattenMap.get("nh_project_id") != null) {
+                extensionIds.add(String.valueOf(flattenMap.get("nh_project_id")));
+            }
+        }
+        String extensionSql = this.indexConfigRegistry.getIndexConfig(INDEX_NAME).getExtensionSql().replace("?",
+                String.join(",", extensionIds));
+
+        Map<String, Object> customIdToCustom = new HashMap<>();
+        this.jdbcTemplate.query(extensionSql, (prs) -> {
+            ResultSetMetaData prsMetaData = prs.getMetaData();
+            for (int i = 1; i <= prsMetaData.getColumnCount(); i++) {
+                if ("FLATTEN".equals(fieldsMode)) {
+                    @SuppressWarnings("unchecked")
+                    Map<String, Object> custom = (Map<String, Object>) customIdToCustom
+                            .computeIfAbsent(prs.getString(1), (k) -> new HashMap<>());
+                    custom.put(prs.getString(2).toLowerCase(), prs.getObject(3));
+                }
+                else {
+                    StringBuilder sb = (StringBuilder) customIdToCustom.computeIfAbsent(prs.getString(1),
+                            (k) -> new StringBuilder());
+                    sb.append(prs.getString(2).toLowerCase()).append(" ").append(prs.getObject(3)).append(" ");
+                }
+            }
+        });
+
+        for (Map<String, Object> flattenMap : flattenMapList) {
+            Object custom = customIdToCustom.get(String.valueOf(flattenMap.get("nh_project_id")));
+            if (flattenMap.get("nh_project_id") != null && custom instanceof Map) {
+                @SuppressWarnings("unchecked")
+                Map<String, Object> customFlattenMap = (Map<String, Object>) custom;
+                flattenMap.putAll(customFlattenMap);
+            }
+            else if (flattenMap.get("nh_project_id") != null && custom != null) {
+                flattenMap.put("custom_fields", custom.toString());
+            }
+        }
+    }
+
+}
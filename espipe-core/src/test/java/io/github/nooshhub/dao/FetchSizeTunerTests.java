@@ -0,0 +1,136 @@
+/*
+ * Copyright 2021-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.nooshhub.dao;
+
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.function.IntToLongFunction;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link FetchSizeTuner}
+ *
+ * @author Neal Shan
+ * @since 10/18/2026
+ */
+@SpringBootTest(properties = "spring.profiles.active:h2")
+public class FetchSizeTunerTests {
+
+    private static final String SELECT = "select * from nh_project";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void boundedByFetchBuffer() {
+        FetchSizeTuner fetchSizeTuner = new FetchSizeTuner(1000, 1024, 10000, 2);
+        query(fetchSizeTuner);
+
+        assertThat(fetchSizeTuner.getFetchSize()).isGreaterThanOrEqualTo(1).isLessThan(1000);
+    }
+
+    @Test
+    public void boundedByMaxFetchSize() {
+        FetchSizeTuner fetchSizeTuner = new FetchSizeTuner(1000, Long.MAX_VALUE, 500, 2);
+        query(fetchSizeTuner);
+
+        assertThat(fetchSizeTuner.getFetchSize()).isEqualTo(500);
+    }
+
+    @Test
+    public void disabled() {
+        FetchSizeTuner fetchSizeTuner = new FetchSizeTuner(1000, 1024, 10000, 0);
+        query(fetchSizeTuner);
+
+        assertThat(fetchSizeTuner.getFetchSize()).isEqualTo(1000);
+    }
+
+    @Test
+    public void growsWhileTheRoundTripDominates() throws SQLException {
+        // every fetch costs one round trip, larger fetches wait less per row
+        final long[] clock = { 1 };
+        FetchSizeTuner fetchSizeTuner = new FetchSizeTuner(100, Long.MAX_VALUE, 800, 10000, () -> clock[0]);
+        fetch(fetchSizeTuner, clock, 5000, (fetchSize) -> 2_000_000L);
+
+        assertThat(fetchSizeTuner.getFetchSize()).isEqualTo(800);
+    }
+
+    @Test
+    public void shrinksWhenLargeFetchesAreSlow() throws SQLException {
+        // a fetch costs more per row the larger it is, like a driver buffering a large fetch
+        final long[] clock = { 1 };
+        FetchSizeTuner fetchSizeTuner = new FetchSizeTuner(400, Long.MAX_VALUE, 10000, 10000, () -> clock[0]);
+        fetch(fetchSizeTuner, clock, 10000, (fetchSize) -> fetchSize * fetchSize * 1000L);
+
+        // 800 is slower, then it halves down to the min fetch size
+        assertThat(fetchSizeTuner.getFetchSize()).isEqualTo(10);
+    }
+
+    /**
+     * read rows of a result set that waits at the start of every fetch, and every row
+     * takes one microsecond to process.
+     * @param fetchSizeTuner tuner
+     * @param clock clock of the tuner
+     * @param size number of rows
+     * @param fetchNanos wait of a fetch by its fetch size
+     * @throws SQLException all sql exception
+     */
+    private static void fetch(FetchSizeTuner fetchSizeTuner, long[] clock, int size, IntToLongFunction fetchNanos)
+            throws SQLException {
+        final int[] fetchSize = { fetchSizeTuner.getFetchSize() };
+        ResultSet rs = (ResultSet) Proxy.newProxyInstance(FetchSizeTunerTests.class.getClassLoader(),
+                new Class<?>[] { ResultSet.class }, (proxy, method, args) -> {
+                    if ("setFetchSize".equals(method.getName())) {
+                        fetchSize[0] = (int) args[0];
+                    }
+                    return null;
+                });
+        final Map<String, Object> row = Map.of("name", "project");
+        int rowsInFetch = fetchSize[0];
+        int fetchRows = fetchSize[0];
+        for (int i = 0; i < size; i++) {
+            if (rowsInFetch == fetchRows) {
+                fetchRows = fetchSize[0];
+                rowsInFetch = 0;
+                clock[0] += fetchNanos.applyAsLong(fetchRows);
+            }
+            rowsInFetch++;
+            fetchSizeTuner.beforeRow();
+            clock[0] += 1000;
+            fetchSizeTuner.afterRow(rs, row);
+        }
+    }
+
+    private void query(FetchSizeTuner fetchSizeTuner) {
+        FlattenRowMapper rowMapper = new FlattenRowMapper();
+        this.jdbcTemplate.query(SELECT, (rs) -> {
+            fetchSizeTuner.beforeRow();
+            Map<String, Object> flattenMap = rowMapper.mapRow(rs, 0);
+            fetchSizeTuner.afterRow(rs, flattenMap);
+        });
+    }
+
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2021-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.nooshhub.dao;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.text.SimpleDateFormat;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import co.elastic.clients.json.jackson.JacksonJsonpMapper;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.nooshhub.config.ElasticsearchConfiguration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Benchmark of the {@link FlattenRowMapper} against the getObject per column path on
+ * the H2 nh_project schema, with and without writing documents to json.
+ *
+ * @author Neal Shan
+ * @since 10/18/2026
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FlattenRowMapperBenchmark {
+
+    private static final int ROWS = 10000;
+
+    private static final String SELECT = "select * from nh_project";
+
+    private Connection connection;
+
+    private ObjectMapper objectMapper;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException, IOException {
+        this.connection = DriverManager.getConnection("jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1", "sa", "");
+        try (InputStream ins = getClass().getResourceAsStream("/h2/schema.sql");
+                Statement statement = this.connection.createStatement()) {
+            statement.execute(new String(ins.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        try (PreparedStatement ps = this.connection.prepareStatement("insert into nh_project values (?, ?, ?, ?, ?)")) {
+            for (int i = 1; i <= ROWS; i++) {
+                ps.setLong(1, i);
+                ps.setString(2, "project " + i);
+                ps.setString(3, "1,2,3");
+                ps.setTimestamp(4, new Timestamp(System.currentTimeMillis()));
+                ps.setTimestamp(5, (i % 2 == 0) ? new Timestamp(System.currentTimeMillis()) : null);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+
+        // same as the mapper of the elasticsearch client
+        JacksonJsonpMapper mapper = new JacksonJsonpMapper();
+        mapper.objectMapper().setDateFormat(new SimpleDateFormat(ElasticsearchConfiguration.DATE_FORMAT));
+        this.objectMapper = mapper.objectMapper();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        this.connection.close();
+    }
+
+    @Benchmark
+    public void getObject(Blackhole blackhole) throws SQLException {
+        try (Statement statement = this.connection.createStatement(); ResultSet rs = statement.executeQuery(SELECT)) {
+            while (rs.next()) {
+                blackhole.consume(getObjectFlattenMap(rs));
+            }
+        }
+    }
+
+    @Benchmark
+    public void columnReader(Blackhole blackhole) throws SQLException {
+        FlattenRowMapper rowMapper = new FlattenRowMapper();
+        try (Statement statement = this.connection.createStatement(); ResultSet rs = statement.executeQuery(SELECT)) {
+            int rowNum = 0;
+            while (rs.next()) {
+                blackhole.consume(rowMapper.mapRow(rs, rowNum++));
+            }
+        }
+    }
+
+    @Benchmark
+    public void getObjectToJson(Blackhole blackhole) throws SQLException, IOException {
+        try (Statement statement = this.connection.createStatement(); ResultSet rs = statement.executeQuery(SELECT)) {
+            while (rs.next()) {
+                blackhole.consume(this.objectMapper.writeValueAsBytes(getObjectFlattenMap(rs)));
+            }
+        }
+    }
+
+    @Benchmark
+    public void columnReaderToJson(Blackhole blackhole) throws SQLException, IOException {
+        FlattenRowMapper rowMapper = new FlattenRowMapper();
+        try (Statement statement = this.connection.createStatement(); ResultSet rs = statement.executeQuery(SELECT)) {
+            int rowNum = 0;
+            while (rs.next()) {
+                blackhole.consume(this.objectMapper.writeValueAsBytes(rowMapper.mapRow(rs, rowNum++)));
+            }
+        }
+    }
+
+    /**
+     * the flatten map before column readers, metadata and getObject for every column.
+     * @param rs result set
+     * @return flatten map
+     * @throws SQLException all sql exception
+     */
+    private static Map<String, Object> getObjectFlattenMap(ResultSet rs) throws SQLException {
+        Map<String, Object> flattenMap = new HashMap<>();
+        ResultSetMetaData rsMetaData = rs.getMetaData();
+        int count = rsMetaData.getColumnCount();
+        for (int i = 1; i <= count; i++) {
+            flattenMap.put(rsMetaData.getColumnName(i).toLowerCase(), rs.getObject(i));
+        }
+        return flattenMap;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(FlattenRowMapperBenchmark.class.getSimpleName()).build()).run();
+    }
+
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2021-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.nooshhub.dao;
+
+import java.math.BigDecimal;
+import java.sql.ResultSetMetaData;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.json.jackson.JacksonJsonpMapper;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link FlattenRowMapper}
+ *
+ * @author Neal Shan
+ * @since 10/18/2026
+ */
+@SpringBootTest(properties = "spring.profiles.active:h2")
+public class FlattenRowMapperTests {
+
+    private static final String SELECT = "select * from nh_project order by nh_project_id";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ElasticsearchClient esClient;
+
+    @Test
+    public void sameDocumentAsGetObject() throws Exception {
+        List<Map<String, Object>> expected = new ArrayList<>();
+        this.jdbcTemplate.query(SELECT, (rs) -> {
+            Map<String, Object> flattenMap = new HashMap<>();
+            ResultSetMetaData rsMetaData = rs.getMetaData();
+            for (int i = 1; i <= rsMetaData.getColumnCount(); i++) {
+                flattenMap.put(rsMetaData.getColumnName(i).toLowerCase(), rs.getObject(i));
+            }
+            expected.add(flattenMap);
+        });
+        List<Map<String, Object>> actual = this.jdbcTemplate.query(SELECT, new FlattenRowMapper());
+
+        ObjectMapper objectMapper = ((JacksonJsonpMapper) this.esClient._transport().jsonpMapper()).objectMapper();
+        assertThat(actual).hasSameSizeAs(expected).isNotEmpty();
+        for (int i = 0; i < expected.size(); i++) {
+            assertThat(actual.get(i)).isEqualTo(expected.get(i));
+            assertThat(objectMapper.readTree(objectMapper.writeValueAsBytes(actual.get(i))))
+                    .isEqualTo(objectMapper.readTree(objectMapper.writeValueAsBytes(expected.get(i))));
+        }
+    }
+
+    @Test
+    public void columnReaders() {
+        assertThat(ColumnReader.of(Types.INTEGER, 10, 0, false)).isEqualTo(ColumnReader.LONG);
+        assertThat(ColumnReader.of(Types.BIGINT, 19, 0, true)).isEqualTo(ColumnReader.LONG);
+        assertThat(ColumnReader.of(Types.DECIMAL, 18, 0, true)).isEqualTo(ColumnReader.LONG);
+
+        // values that may not fit in a long are read by getObject
+        assertThat(ColumnReader.of(Types.BIGINT, 20, 0, false)).isEqualTo(ColumnReader.OBJECT);
+        assertThat(ColumnReader.of(Types.DECIMAL, 19, 0, true)).isEqualTo(ColumnReader.OBJECT);
+        assertThat(ColumnReader.of(Types.NUMERIC, 20, 0, false)).isEqualTo(ColumnReader.OBJECT);
+        assertThat(ColumnReader.of(Types.NUMERIC, 0, 0, true)).isEqualTo(ColumnReader.OBJECT);
+        assertThat(ColumnReader.of(Types.NUMERIC, 10, 2, true)).isEqualTo(ColumnReader.OBJECT);
+    }
+
+    @Test
+    public void wideNumbers() {
+        Map<String, Object> flattenMap = this.jdbcTemplate.query("select cast(9223372036854775807 as bigint) as "
+                + "max_long, cast(9999999999999999999 as numeric(19, 0)) as wide from dual", new FlattenRowMapper())
+                .get(0);
+
+        assertThat(flattenMap.get("max_long")).isEqualTo(Long.MAX_VALUE);
+        assertThat(flattenMap.get("wide")).isEqualTo(new BigDecimal("9999999999999999999"));
+    }
+
+    @Test
+    public void customFields() {
+        Map<String, Object> flattenMap = this.jdbcTemplate.query(SELECT, new FlattenRowMapper()).get(0);
+        flattenMap.put("custom_fields", "label_11 value 11 ");
+        flattenMap.put("name", "renamed");
+
+        assertThat(flattenMap.get("custom_fields")).isEqualTo("label_11 value 11 ");
+        assertThat(flattenMap.get("name")).isEqualTo("renamed");
+        assertThat(flattenMap).containsKeys("nh_project_id", "user_ids", "custom_fields");
+    }
+
+    @Test
+    public void duplicatedColumnKeepsTheLast() {
+        Map<String, Object> flattenMap = this.jdbcTemplate.query("select p.name, e.name from nh_project p "
+                + "join nh_estimate e on e.nh_estimate_id = p.nh_project_id where p.nh_project_id = 1",
+                new FlattenRowMapper()).get(0);
+
+        assertThat(flattenMap).hasSize(1).containsEntry("name", "estimate 1");
+    }
+
+    @Test
+    public void copy() {
+        FlattenMap flattenMap = (FlattenMap) this.jdbcTemplate.query(SELECT, new FlattenRowMapper()).get(0);
+        flattenMap.put("custom_fields", "shared");
+
+        // a shared scan extends every copy for its own index
+        FlattenMap copy = flattenMap.copy();
+        copy.put("custom_fields", "copied");
+        copy.put("name", "renamed");
+        assertThat(flattenMap.get("custom_fields")).isEqualTo("shared");
+        assertThat(flattenMap.get("name")).isNotEqualTo("renamed");
+        assertThat(copy.get("nh_project_id")).isEqualTo(flattenMap.get("nh_project_id"));
+    }
+
+}
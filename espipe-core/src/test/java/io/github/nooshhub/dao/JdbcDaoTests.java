@@ -16,15 +16,43 @@
 
 package io.github.nooshhub.dao;
 
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import io.github.nooshhub.concurrent.AbstractThreadPoolFactory;
+import io.github.nooshhub.concurrent.BulkController;
+import io.github.nooshhub.concurrent.InitPartition;
+import io.github.nooshhub.concurrent.TaskManager;
+import io.github.nooshhub.config.EspipeBulkProperties;
+import io.github.nooshhub.config.EspipeJdbcProperties;
+import io.github.nooshhub.config.IndexConfig;
 import io.github.nooshhub.config.IndexConfigRegistry;
+import io.github.nooshhub.config.SqlTemplate;
+import io.github.nooshhub.config.SqlTemplate.Role;
+import io.github.nooshhub.exception.EspipeException;
+import io.github.nooshhub.metric.JdbcMetric;
+import io.github.nooshhub.support.StubElasticsearch;
 import io.github.nooshhub.support.TestDataFixture;
 import org.junit.jupiter.api.Test;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 /**
  * Unit tests for {@link JdbcDao}
@@ -35,6 +63,8 @@ import static org.assertj.core.api.Assertions.assertThat;
 @SpringBootTest(properties = "spring.profiles.active:h2")
 public class JdbcDaoTests {
 
+    private static final String INDEX_NAME = "nh_project";
+
     @Autowired
     private IndexConfigRegistry indexConfigRegistry;
 
@@ -47,9 +77,29 @@ public class JdbcDaoTests {
     @Autowired
     protected ElasticsearchDao elasticsearchDao;
 
+    @Autowired
+    private EspipeTimerDao espipeTimerDao;
+
+    @Autowired
+    private EspipeCheckpointDao espipeCheckpointDao;
+
+    @Autowired
+    private EspipeJdbcProperties espipeJdbcProperties;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     @Value("${spring.profiles.active:h2}")
     private String profile;
 
+    @Test
+    public void jdbcMetrics() {
+        // the primary pool and the pools of init, sync and fix
+        JdbcMetric metric = this.jdbcDao.jdbcMetrics();
+        assertThat(metric.getPools()).hasSize(4);
+        assertThat(metric.getPools().get(0).getMaxPoolSize()).isEqualTo(metric.getMaxPoolSize());
+    }
+
     @Test
     public void init() {
         this.indexConfigRegistry.getIndexConfigs().keySet().forEach((indexName) -> this.jdbcDao.init(indexName));
@@ -82,4 +132,364 @@ public class JdbcDaoTests {
         });
     }
 
+    @Test
+    public void enrichStageShutDown() throws Exception {
+        final Object enrichExecutor = ReflectionTestUtils.getField(this.jdbcDao, "enrichExecutor");
+        final ThreadPoolExecutor shutDown = AbstractThreadPoolFactory.poolForEnrich(1);
+        AbstractThreadPoolFactory.shutdownNow(shutDown);
+        try (StubElasticsearch stub = StubElasticsearch.start(this.elasticsearchDao)) {
+            ReflectionTestUtils.setField(this.jdbcDao, "enrichExecutor", shutDown);
+            assertThatThrownBy(() -> this.jdbcDao.init(INDEX_NAME)).isInstanceOf(RejectedExecutionException.class);
+
+            // the rejected batch gave its permit back, a later init of the index is not blocked
+            assertThat(this.elasticsearchDao.getBulkController(INDEX_NAME).getInFlight()).isZero();
+            assertThat(stub.getBulks()).isEmpty();
+        }
+        finally {
+            ReflectionTestUtils.setField(this.jdbcDao, "enrichExecutor", enrichExecutor);
+            TaskManager.getBulkControllers().remove(INDEX_NAME);
+            this.espipeTimerDao.delete(INDEX_NAME);
+        }
+    }
+
+    @Test
+    public void failedPartitionCancelsOthers() throws Exception {
+        final IndexConfig indexConfig = this.indexConfigRegistry.getIndexConfig(INDEX_NAME);
+        final int initPartitions = indexConfig.getInitPartitions();
+        final int initPageSize = indexConfig.getInitPageSize();
+        final EspipeBulkProperties notAdaptive = new EspipeBulkProperties();
+        notAdaptive.setAdaptive(false);
+        final ExecutorService initThread = Executors.newSingleThreadExecutor();
+        final Object partitionExecutor = ReflectionTestUtils.getField(this.jdbcDao, "partitionExecutor");
+        final ThreadPoolExecutor partitionPool = AbstractThreadPoolFactory.poolForPartition(2);
+        try (StubElasticsearch stub = StubElasticsearch.start(this.elasticsearchDao)) {
+            // one row per page, every partition waits for the bulk response of its first row
+            ReflectionTestUtils.setField(this.jdbcDao, "partitionExecutor", partitionPool);
+            indexConfig.setInitPartitions(2);
+            indexConfig.setInitPageSize(1);
+            TaskManager.getBulkControllers().put(INDEX_NAME, new BulkController(notAdaptive, 1, 2));
+            stub.hold();
+            stub.failItem("1", 400, "mapper_parsing_exception", 1);
+            Future<?> init = initThread.submit(() -> this.jdbcDao.init(INDEX_NAME));
+            assertThat(stub.awaitBulks(2, 10000)).isTrue();
+
+            // the first partition fails while the second one still waits for its response
+            stub.releaseDocument("1");
+            assertThatThrownBy(() -> init.get(10, TimeUnit.SECONDS)).hasCauseInstanceOf(EspipeException.class)
+                    .hasMessageContaining("partitions [0]");
+
+            List<InitPartition> partitions = TaskManager.getInitPartitions().get(INDEX_NAME);
+            assertThat(partitions).extracting(InitPartition::getStatus)
+                    .containsExactly(InitPartition.Status.FAILED, InitPartition.Status.CANCELLED);
+            assertThat(stub.getBulks()).hasSize(2);
+        }
+        finally {
+            initThread.shutdownNow();
+            ReflectionTestUtils.setField(this.jdbcDao, "partitionExecutor", partitionExecutor);
+            AbstractThreadPoolFactory.shutdownNow(partitionPool);
+            indexConfig.setInitPartitions(initPartitions);
+            indexConfig.setInitPageSize(initPageSize);
+            TaskManager.getBulkControllers().remove(INDEX_NAME);
+            TaskManager.getInitPartitions().remove(INDEX_NAME);
+            this.espipeTimerDao.delete(INDEX_NAME);
+        }
+    }
+
+    @Test
+    public void replicaSyncWindowLags() throws Exception {
+        final EspipeJdbcProperties jdbc = this.espipeJdbcProperties;
+        final String replicaUrl = jdbc.getReplicaUrl();
+        try (StubElasticsearch stub = StubElasticsearch.start(this.elasticsearchDao)) {
+            stub.createIndex(INDEX_NAME);
+            jdbc.setReplicaUrl("jdbc:h2:mem:replica");
+            jdbc.setReplicaSync(true);
+            jdbc.setReplicaLagMillis(60000);
+
+            // the window ends a minute ago, a window that ended later is not read again
+            final LocalDateTime lastRefreshTime = LocalDateTime.now(ZoneId.systemDefault()).minusSeconds(30)
+                    .truncatedTo(ChronoUnit.SECONDS);
+            this.espipeTimerDao.save(INDEX_NAME, lastRefreshTime);
+            this.jdbcDao.sync(INDEX_NAME);
+            assertThat(this.espipeTimerDao.findLastRefreshTime(INDEX_NAME)).isEqualTo(lastRefreshTime);
+
+            final LocalDateTime before = LocalDateTime.now(ZoneId.systemDefault()).minusMinutes(1);
+            this.espipeTimerDao.save(INDEX_NAME, before.minusMinutes(1));
+            this.jdbcDao.sync(INDEX_NAME);
+            final LocalDateTime after = LocalDateTime.now(ZoneId.systemDefault()).minusMinutes(1);
+            // the timer is saved in microseconds
+            assertThat(this.espipeTimerDao.findLastRefreshTime(INDEX_NAME)).isBetween(before.minusSeconds(1),
+                    after.plusSeconds(1));
+        }
+        finally {
+            jdbc.setReplicaUrl(replicaUrl);
+            jdbc.setReplicaSync(false);
+            jdbc.setReplicaLagMillis(5000);
+            TaskManager.getBulkControllers().remove(INDEX_NAME);
+            this.espipeTimerDao.delete(INDEX_NAME);
+        }
+    }
+
+    @Test
+    public void deleteAndInsertAgainInOneWindow() throws Exception {
+        final LocalDateTime now = LocalDateTime.now(ZoneId.systemDefault());
+        try (StubElasticsearch stub = StubElasticsearch.start(this.elasticsearchDao)) {
+            this.jdbcTemplate.update("insert into nh_project values (?, ?, ?, ?, ?)", 8, "project 8", "1,2",
+                    Timestamp.valueOf(now.minusMinutes(2)), null);
+            this.espipeTimerDao.save(INDEX_NAME, now.minusMinutes(1));
+            this.elasticsearchDao.createDocument(INDEX_NAME,
+                    this.jdbcTemplate.query("select * from nh_project where nh_project_id = 8", new FlattenRowMapper()))
+                    .get(10, TimeUnit.SECONDS);
+
+            // the row is deleted and inserted again after the last sync
+            this.jdbcTemplate.update("insert into nh_project_delete values (?, ?)", 8,
+                    Timestamp.valueOf(now.minusSeconds(20)));
+            this.jdbcTemplate.update("update nh_project set mod_date = ? where nh_project_id = 8",
+                    Timestamp.valueOf(now.minusSeconds(10)));
+            this.jdbcDao.sync(INDEX_NAME);
+
+            assertThat(stub.getDocument(INDEX_NAME, "8")).isNotNull();
+            assertThat(this.espipeTimerDao.findLastRefreshTime(INDEX_NAME)).isAfter(now);
+        }
+        finally {
+            this.jdbcTemplate.update("delete from nh_project where nh_project_id = 8");
+            this.jdbcTemplate.update("delete from nh_project_delete where nh_project_id = 8");
+            TaskManager.getBulkControllers().remove(INDEX_NAME);
+            this.espipeTimerDao.delete(INDEX_NAME);
+        }
+    }
+
+    @Test
+    public void updatedRowReplacesItsDocument() throws Exception {
+        final LocalDateTime now = LocalDateTime.now(ZoneId.systemDefault());
+        try (StubElasticsearch stub = StubElasticsearch.start(this.elasticsearchDao)) {
+            this.jdbcTemplate.update("insert into nh_project values (?, ?, ?, ?, ?)", 9, "project 9", "1,2",
+                    Timestamp.valueOf(now.minusMinutes(2)), null);
+            this.espipeTimerDao.save(INDEX_NAME, now.minusMinutes(1));
+            this.elasticsearchDao.createDocument(INDEX_NAME,
+                    this.jdbcTemplate.query("select * from nh_project where nh_project_id = 9", new FlattenRowMapper()))
+                    .get(10, TimeUnit.SECONDS);
+
+            // the row is updated after the last sync, window sync replaces the document
+            this.jdbcTemplate.update("update nh_project set name = ?, mod_date = ? where nh_project_id = 9",
+                    "project 9 renamed", Timestamp.valueOf(now.minusSeconds(10)));
+            this.jdbcDao.sync(INDEX_NAME);
+            assertThat(stub.getDocument(INDEX_NAME, "9").get("name").asText()).isEqualTo("project 9 renamed");
+
+            // fix by id replaces it as well
+            this.jdbcTemplate.update("update nh_project set name = ? where nh_project_id = 9", "project 9 fixed");
+            this.jdbcDao.init(INDEX_NAME, Map.of("nh_project_id", "9"));
+            assertThat(stub.getDocument(INDEX_NAME, "9").get("name").asText()).isEqualTo("project 9 fixed");
+            assertThat(stub.getBulks().subList(1, stub.getBulks().size())).flatExtracting((bulk) -> bulk)
+                    .filteredOn((operation) -> "9".equals(operation.getId()))
+                    .extracting(StubElasticsearch.Operation::getAction).containsExactly("index", "index");
+        }
+        finally {
+            this.jdbcTemplate.update("delete from nh_project where nh_project_id = 9");
+            TaskManager.getBulkControllers().remove(INDEX_NAME);
+            this.espipeTimerDao.delete(INDEX_NAME);
+        }
+    }
+
+    @Test
+    public void failedDeleteKeepsWindow() throws Exception {
+        final LocalDateTime lastRefreshTime = LocalDateTime.now(ZoneId.systemDefault()).minusMinutes(1)
+                .truncatedTo(ChronoUnit.SECONDS);
+        try (StubElasticsearch stub = StubElasticsearch.start(this.elasticsearchDao)) {
+            stub.createIndex(INDEX_NAME);
+            this.jdbcTemplate.update("insert into nh_project_delete values (?, ?)", 9,
+                    Timestamp.valueOf(lastRefreshTime.plusSeconds(30)));
+            this.espipeTimerDao.save(INDEX_NAME, lastRefreshTime);
+
+            // a failed delete is read again by the next sync
+            stub.failItem("9", 500, "exception", 1);
+            this.jdbcDao.sync(INDEX_NAME);
+            assertThat(this.espipeTimerDao.findLastRefreshTime(INDEX_NAME)).isEqualTo(lastRefreshTime);
+
+            this.jdbcDao.sync(INDEX_NAME);
+            assertThat(this.espipeTimerDao.findLastRefreshTime(INDEX_NAME)).isAfter(lastRefreshTime);
+            assertThat(stub.getBulks()).filteredOn((bulk) -> "delete".equals(bulk.get(0).getAction()))
+                    .extracting((bulk) -> bulk.get(0).getId()).containsExactly("9", "9");
+        }
+        finally {
+            this.jdbcTemplate.update("delete from nh_project_delete where nh_project_id = 9");
+            TaskManager.getBulkControllers().remove(INDEX_NAME);
+            this.espipeTimerDao.delete(INDEX_NAME);
+        }
+    }
+
+    @Test
+    public void watermarkOverlapReadsLateCommits() throws Exception {
+        final IndexConfig indexConfig = this.indexConfigRegistry.getIndexConfig(INDEX_NAME);
+        final String syncSql = indexConfig.getSyncSql();
+        final SqlTemplate syncTemplate = indexConfig.getSyncTemplate();
+        final String watermarkSql = "select * from nh_project where nh_project_id > ?";
+        try (StubElasticsearch stub = StubElasticsearch.start(this.elasticsearchDao)) {
+            stub.createIndex(INDEX_NAME);
+            indexConfig.setWatermarkColumn("nh_project_id");
+            indexConfig.setSyncSql(watermarkSql);
+            indexConfig.setSyncTemplate(SqlTemplate.parse("sync.sql", watermarkSql, Role.WATERMARK));
+            this.espipeTimerDao.save(INDEX_NAME, LocalDateTime.now(ZoneId.systemDefault()));
+
+            // row 7 commits after the watermark passed it, without an overlap it is skipped
+            this.jdbcTemplate.update("insert into nh_project values (?, ?, ?, ?, ?)", 7, "project 7", "1,2",
+                    null, null);
+            assertThat(indexConfig.getWatermarkOverlap()).isZero();
+            this.espipeTimerDao.saveWatermark(INDEX_NAME, 57);
+            this.jdbcDao.sync(INDEX_NAME);
+            assertThat(stub.getDocument(INDEX_NAME, "7")).isNull();
+
+            // the overlap reads it again, the watermark does not go back
+            indexConfig.setWatermarkOverlap(100);
+            this.jdbcDao.sync(INDEX_NAME);
+            assertThat(stub.getDocument(INDEX_NAME, "7")).isNotNull();
+            assertThat(this.espipeTimerDao.findLastWatermark(INDEX_NAME)).isGreaterThanOrEqualTo(57);
+
+            // a re-read row replaces its document instead of conflicting with it
+            this.jdbcTemplate.update("update nh_project set name = ? where nh_project_id = 7", "project 7 renamed");
+            this.jdbcDao.sync(INDEX_NAME);
+            assertThat(stub.getDocument(INDEX_NAME, "7").get("name").asText()).isEqualTo("project 7 renamed");
+            assertThat(stub.getBulks()).flatExtracting((bulk) -> bulk).extracting(StubElasticsearch.Operation::getAction)
+                    .containsOnly("index");
+        }
+        finally {
+            indexConfig.setWatermarkColumn(null);
+            indexConfig.setWatermarkOverlap(0);
+            indexConfig.setSyncSql(syncSql);
+            indexConfig.setSyncTemplate(syncTemplate);
+            this.jdbcTemplate.update("delete from nh_project where nh_project_id = 7");
+            TaskManager.getBulkControllers().remove(INDEX_NAME);
+            this.espipeTimerDao.delete(INDEX_NAME);
+        }
+    }
+
+    @Test
+    public void initEstimate() throws Exception {
+        final IndexConfig indexConfig = this.indexConfigRegistry.getIndexConfig(INDEX_NAME);
+        try (StubElasticsearch stub = StubElasticsearch.start(this.elasticsearchDao)) {
+            // no estimate.sql, init is not estimated by default
+            assertThat(indexConfig.getInitEstimate()).isEqualTo("none");
+            this.jdbcDao.init(INDEX_NAME);
+            assertThat(TaskManager.getInitProgresses().get(INDEX_NAME).getEstimatedRows()).isNegative();
+
+            indexConfig.setInitEstimate("count");
+            this.jdbcDao.init(INDEX_NAME);
+            assertThat(TaskManager.getInitProgresses().get(INDEX_NAME).getEstimatedRows())
+                    .isEqualTo(stub.count(INDEX_NAME));
+        }
+        finally {
+            indexConfig.setInitEstimate("none");
+            TaskManager.getBulkControllers().remove(INDEX_NAME);
+            this.espipeTimerDao.delete(INDEX_NAME);
+        }
+    }
+
+    @Test
+    public void syncWaitsForTheInFlightBound() throws Exception {
+        final EspipeBulkProperties notAdaptive = new EspipeBulkProperties();
+        notAdaptive.setAdaptive(false);
+        final BulkController bulkController = new BulkController(notAdaptive, 1, 1);
+        final ExecutorService syncThread = Executors.newSingleThreadExecutor();
+        try (StubElasticsearch stub = StubElasticsearch.start(this.elasticsearchDao)) {
+            stub.createIndex(INDEX_NAME);
+            TaskManager.getBulkControllers().put(INDEX_NAME, bulkController);
+            this.espipeTimerDao.save(INDEX_NAME, LocalDateTime.now(ZoneId.systemDefault()).minusHours(1));
+            stub.hold();
+            Future<?> sync = syncThread.submit(() -> this.jdbcDao.sync(INDEX_NAME));
+
+            // one row per request and one request in flight, the next row waits for the response
+            assertThat(stub.awaitBulks(1, 10000)).isTrue();
+            assertThat(stub.awaitBulks(2, 200)).isFalse();
+            stub.releaseOne();
+            assertThat(stub.awaitBulks(2, 10000)).isTrue();
+            stub.releaseAll();
+            sync.get(10, TimeUnit.SECONDS);
+
+            assertThat(stub.getBulks()).allSatisfy((bulk) -> assertThat(bulk).hasSize(1));
+            assertThat(stub.count(INDEX_NAME)).isGreaterThanOrEqualTo(2);
+            assertThat(bulkController.getInFlight()).isZero();
+        }
+        finally {
+            syncThread.shutdownNow();
+            TaskManager.getBulkControllers().remove(INDEX_NAME);
+            this.espipeTimerDao.delete(INDEX_NAME);
+        }
+    }
+
+    @Test
+    public void initWaitsForTheInFlightBound() throws Exception {
+        final EspipeBulkProperties notAdaptive = new EspipeBulkProperties();
+        notAdaptive.setAdaptive(false);
+        final BulkController bulkController = new BulkController(notAdaptive, 1, 2);
+        final ExecutorService initThread = Executors.newSingleThreadExecutor();
+        try (StubElasticsearch stub = StubElasticsearch.start(this.elasticsearchDao)) {
+            for (int id = 3; id <= 5; id++) {
+                this.jdbcTemplate.update("insert into nh_project values (?, ?, ?, ?, ?)", id, "project " + id, "1,2",
+                        Timestamp.valueOf(LocalDateTime.now(ZoneId.systemDefault()).minusMinutes(1)), null);
+            }
+            TaskManager.getBulkControllers().put(INDEX_NAME, bulkController);
+            stub.hold();
+            Future<?> init = initThread.submit(() -> this.jdbcDao.init(INDEX_NAME));
+
+            // one row per request and two requests in flight, the cursor waits for a response
+            assertThat(stub.awaitBulks(2, 10000)).isTrue();
+            assertThat(stub.awaitBulks(3, 200)).isFalse();
+            assertThat(bulkController.getInFlight()).isEqualTo(2);
+            assertThat(TaskManager.getInitProgresses().get(INDEX_NAME).getRowsRead()).isEqualTo(2);
+
+            // the first response is processed while the second one is still held
+            stub.releaseDocument(stub.getBulks().get(0).get(0).getId());
+            assertThat(stub.awaitBulks(3, 10000)).isTrue();
+            assertThat(TaskManager.getInitProgresses().get(INDEX_NAME).getDocsAcked()).isEqualTo(1);
+            assertThat(init.isDone()).isFalse();
+
+            stub.releaseAll();
+            init.get(10, TimeUnit.SECONDS);
+            assertThat(stub.count(INDEX_NAME)).isEqualTo(this.jdbcDao.getTotalCount(INDEX_NAME));
+            assertThat(bulkController.getInFlight()).isZero();
+        }
+        finally {
+            initThread.shutdownNow();
+            this.jdbcTemplate.update("delete from nh_project where nh_project_id between 3 and 5");
+            TaskManager.getBulkControllers().remove(INDEX_NAME);
+            this.espipeTimerDao.delete(INDEX_NAME);
+        }
+    }
+
+    @Test
+    public void resumeFromCheckpoint() throws Exception {
+        final IndexConfig indexConfig = this.indexConfigRegistry.getIndexConfig(INDEX_NAME);
+        final int initPageSize = indexConfig.getInitPageSize();
+        try (StubElasticsearch stub = StubElasticsearch.start(this.elasticsearchDao)) {
+            for (int id = 3; id <= 5; id++) {
+                this.jdbcTemplate.update("insert into nh_project values (?, ?, ?, ?, ?)", id, "project " + id, "1,2",
+                        Timestamp.valueOf(LocalDateTime.now(ZoneId.systemDefault()).minusMinutes(1)), null);
+            }
+            // one row per page, the page of row 3 fails and stops the init
+            indexConfig.setInitPageSize(1);
+            stub.failItem("3", 400, "mapper_parsing_exception", 1);
+            assertThatThrownBy(() -> this.jdbcDao.init(INDEX_NAME)).isInstanceOf(EspipeException.class);
+            assertThat(this.espipeCheckpointDao.findUnfinished(INDEX_NAME)).extracting(InitPartition::getLowerKey)
+                    .containsExactly(3L);
+            assertThat(this.espipeTimerDao.findLastRefreshTime(INDEX_NAME)).isNull();
+
+            // resume reads the rows after the checkpoint only
+            final int bulks = stub.getBulks().size();
+            this.jdbcDao.resumeInit(INDEX_NAME);
+            assertThat(stub.getBulks().subList(bulks, stub.getBulks().size()))
+                    .flatExtracting((bulk) -> bulk).extracting(StubElasticsearch.Operation::getId)
+                    .allSatisfy((id) -> assertThat(Long.parseLong(id)).isGreaterThanOrEqualTo(3));
+            assertThat(stub.count(INDEX_NAME)).isEqualTo(this.jdbcDao.getTotalCount(INDEX_NAME));
+            assertThat(this.espipeCheckpointDao.findUnfinished(INDEX_NAME)).isEmpty();
+            assertThat(this.espipeTimerDao.findLastRefreshTime(INDEX_NAME)).isNotNull();
+        }
+        finally {
+            indexConfig.setInitPageSize(initPageSize);
+            this.jdbcTemplate.update("delete from nh_project where nh_project_id between 3 and 5");
+            this.espipeCheckpointDao.delete(INDEX_NAME);
+            TaskManager.getBulkControllers().remove(INDEX_NAME);
+            TaskManager.getInitPartitions().remove(INDEX_NAME);
+            this.espipeTimerDao.delete(INDEX_NAME);
+        }
+    }
+
 }
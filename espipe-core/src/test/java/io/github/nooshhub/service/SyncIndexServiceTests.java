@@ -0,0 +1,214 @@
+/*
+ * Copyright 2021-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.nooshhub.service;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import io.github.nooshhub.concurrent.SyncTrigger;
+import io.github.nooshhub.concurrent.TaskManager;
+import io.github.nooshhub.config.EspipeSyncProperties;
+import io.github.nooshhub.dao.ElasticsearchDao;
+import io.github.nooshhub.dao.EspipeTimerDao;
+import io.github.nooshhub.support.NotifyTrigger;
+import io.github.nooshhub.support.StubElasticsearch;
+import io.github.nooshhub.support.TestDataFixture;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link SyncIndexService}
+ *
+ * @author Neal Shan
+ * @since 10/18/2026
+ */
+@SpringBootTest(properties = "spring.profiles.active:h2")
+public class SyncIndexServiceTests {
+
+    private static final String INDEX_NAME = "nh_project";
+
+    @Autowired
+    private SyncIndexService syncIndexService;
+
+    @Autowired
+    private EspipeSyncProperties espipeSyncProperties;
+
+    @Autowired
+    private TestDataFixture testDataFixture;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private InitIndexService initIndexService;
+
+    @Autowired
+    private ElasticsearchDao elasticsearchDao;
+
+    @Autowired
+    private EspipeTimerDao espipeTimerDao;
+
+    @Test
+    public void notifyChange() throws InterruptedException {
+        assertThat(this.syncIndexService.notifyChange(INDEX_NAME)).isFalse();
+
+        final EspipeSyncProperties defaults = new EspipeSyncProperties();
+        this.espipeSyncProperties.setPollMillis(100);
+        this.espipeSyncProperties.setCoalesceMillis(200);
+        this.espipeSyncProperties.setNotifyTimeoutMillis(1000);
+        this.syncIndexService.sync(INDEX_NAME);
+        NotifyTrigger.setListener(this.syncIndexService::notifyChange);
+        this.jdbcTemplate.execute(NotifyTrigger.createTriggerSql(INDEX_NAME));
+        try {
+            final SyncTrigger syncTrigger = TaskManager.getSyncTriggers().get(INDEX_NAME);
+            waitFor(() -> syncTrigger.getPolls() > 0);
+
+            // a burst of changes wakes one sync, and the polls are skipped while notified
+            this.testDataFixture.createProjects(10);
+            waitFor(() -> syncTrigger.getWakes() > 0);
+            assertThat(syncTrigger.getNotifications()).isEqualTo(10);
+            assertThat(syncTrigger.getWakes()).isEqualTo(1);
+            long polls = syncTrigger.getPolls();
+            long skippedPolls = syncTrigger.getSkippedPolls();
+            waitFor(() -> syncTrigger.getSkippedPolls() > skippedPolls + 1);
+            assertThat(syncTrigger.getPolls()).isEqualTo(polls);
+
+            // polls resume when the notifications stop
+            waitFor(() -> syncTrigger.getPolls() > polls);
+        }
+        finally {
+            this.jdbcTemplate.execute(NotifyTrigger.dropTriggerSql(INDEX_NAME));
+            NotifyTrigger.setListener((tableName) -> {
+            });
+            this.syncIndexService.stop(INDEX_NAME);
+            this.espipeSyncProperties.setPollMillis(defaults.getPollMillis());
+            this.espipeSyncProperties.setCoalesceMillis(defaults.getCoalesceMillis());
+            this.espipeSyncProperties.setNotifyTimeoutMillis(defaults.getNotifyTimeoutMillis());
+        }
+    }
+
+    @Test
+    public void stopCancelsWakes() {
+        final EspipeSyncProperties defaults = new EspipeSyncProperties();
+        final ScheduledThreadPoolExecutor executor = (ScheduledThreadPoolExecutor) ReflectionTestUtils
+                .getField(this.syncIndexService, "executorService");
+        final int queued = executor.getQueue().size();
+        this.espipeSyncProperties.setPollMillis(60000);
+        this.espipeSyncProperties.setCoalesceMillis(60000);
+        try {
+            this.syncIndexService.sync(INDEX_NAME);
+            final SyncTrigger syncTrigger = TaskManager.getSyncTriggers().get(INDEX_NAME);
+            assertThat(this.syncIndexService.notifyChange(INDEX_NAME)).isTrue();
+
+            // the poll and the wake leave the queue, and a late notification wakes nothing
+            this.syncIndexService.stop(INDEX_NAME);
+            assertThat(executor.getQueue()).hasSize(queued);
+            assertThat(syncTrigger.notifyChange()).isFalse();
+            assertThat(this.syncIndexService.notifyChange(INDEX_NAME)).isFalse();
+            assertThat(syncTrigger.getWakes()).isZero();
+        }
+        finally {
+            this.syncIndexService.stop(INDEX_NAME);
+            this.espipeSyncProperties.setPollMillis(defaults.getPollMillis());
+            this.espipeSyncProperties.setCoalesceMillis(defaults.getCoalesceMillis());
+        }
+    }
+
+    @Test
+    public void initStopsTheWakes() throws Exception {
+        final EspipeSyncProperties defaults = new EspipeSyncProperties();
+        this.espipeSyncProperties.setPollMillis(60000);
+        this.espipeSyncProperties.setCoalesceMillis(200);
+        try (StubElasticsearch stub = StubElasticsearch.start(this.elasticsearchDao)) {
+            this.syncIndexService.sync(INDEX_NAME);
+            final SyncTrigger syncTrigger = TaskManager.getSyncTriggers().get(INDEX_NAME);
+            assertThat(this.syncIndexService.notifyChange(INDEX_NAME)).isTrue();
+
+            // the init stops the sync before the wake is due, the wake never syncs
+            this.initIndexService.init(INDEX_NAME);
+            assertThat(TaskManager.getSyncInProgress()).doesNotContainKey(INDEX_NAME);
+            assertThat(TaskManager.getSyncTriggers()).doesNotContainKey(INDEX_NAME);
+            TaskManager.getInitInProgress().get(INDEX_NAME).get(30, TimeUnit.SECONDS);
+            Thread.sleep(500);
+            assertThat(syncTrigger.getWakes()).isZero();
+            assertThat(syncTrigger.getPolls()).isZero();
+            assertThat(this.syncIndexService.notifyChange(INDEX_NAME)).isFalse();
+        }
+        finally {
+            this.syncIndexService.stop(INDEX_NAME);
+            TaskManager.getInitInProgress().remove(INDEX_NAME);
+            TaskManager.getBulkControllers().remove(INDEX_NAME);
+            this.espipeTimerDao.delete(INDEX_NAME);
+            this.espipeSyncProperties.setPollMillis(defaults.getPollMillis());
+            this.espipeSyncProperties.setCoalesceMillis(defaults.getCoalesceMillis());
+        }
+    }
+
+    @Test
+    public void wakeDoesNotWaitForRunningSync() throws InterruptedException {
+        final SyncTrigger syncTrigger = new SyncTrigger();
+        final CountDownLatch running = new CountDownLatch(1);
+        final CountDownLatch gate = new CountDownLatch(1);
+        final AtomicInteger syncs = new AtomicInteger();
+        Thread poll = new Thread(() -> syncTrigger.poll(() -> {
+            syncs.incrementAndGet();
+            running.countDown();
+            await(gate);
+        }, 0));
+        poll.start();
+        try {
+            assertThat(running.await(5, TimeUnit.SECONDS)).isTrue();
+
+            // the wake returns at once and the running poll syncs once more
+            syncTrigger.wake(syncs::incrementAndGet);
+            assertThat(syncs.get()).isEqualTo(1);
+        }
+        finally {
+            gate.countDown();
+        }
+        poll.join(5000);
+        assertThat(poll.isAlive()).isFalse();
+        assertThat(syncs.get()).isEqualTo(2);
+    }
+
+    private static void await(CountDownLatch gate) {
+        try {
+            gate.await();
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(condition.getAsBoolean()).isTrue();
+    }
+
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2021-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.nooshhub.support;
+
+import java.sql.Connection;
+import java.util.function.Consumer;
+
+import org.h2.api.Trigger;
+
+/**
+ * H2 trigger notifies the listener with the table name of every changed row, like a
+ * database notification.
+ *
+ * @author Neal Shan
+ * @since 10/18/2026
+ */
+public class NotifyTrigger implements Trigger {
+
+    private static volatile Consumer<String> listener = (tableName) -> {
+    };
+
+    private String tableName;
+
+    public static void setListener(Consumer<String> listener) {
+        NotifyTrigger.listener = listener;
+    }
+
+    /**
+     * create the trigger of a table.
+     * @param tableName table name
+     * @return sql
+     */
+    public static String createTriggerSql(String tableName) {
+        return String.format("create trigger if not exists %s_notify after insert, update, delete on %s "
+                + "for each row call \"%s\"", tableName, tableName, NotifyTrigger.class.getName());
+    }
+
+    /**
+     * drop the trigger of a table.
+     * @param tableName table name
+     * @return sql
+     */
+    public static String dropTriggerSql(String tableName) {
+        return String.format("drop trigger if exists %s_notify", tableName);
+    }
+
+    @Override
+    public void init(Connection conn, String schemaName, String triggerName, String tableName, boolean before,
+            int type) {
+        this.tableName = tableName.toLowerCase();
+    }
+
+    @Override
+    public void fire(Connection conn, Object[] oldRow, Object[] newRow) {
+        listener.accept(this.tableName);
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public void remove() {
+    }
+
+}
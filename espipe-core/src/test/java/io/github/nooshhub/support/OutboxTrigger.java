@@ -0,0 +1,88 @@
+/*
+ * Copyright 2021-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.nooshhub.support;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+import org.h2.api.Trigger;
+
+/**
+ * H2 trigger writes the changes of a table into espipe_outbox, the first column of the
+ * table is the primary key.
+ *
+ * @author Neal Shan
+ * @since 10/18/2026
+ */
+public class OutboxTrigger implements Trigger {
+
+    private static final String INSERT = "insert into espipe_outbox (table_name, pk, op, create_date) values (?, ?, ?, current_timestamp)";
+
+    private String tableName;
+
+    /**
+     * create the trigger of a table.
+     * @param tableName table name
+     * @return sql
+     */
+    public static String createTriggerSql(String tableName) {
+        return String.format("create trigger if not exists %s_outbox after insert, update, delete on %s "
+                + "for each row call \"%s\"", tableName, tableName, OutboxTrigger.class.getName());
+    }
+
+    /**
+     * drop the trigger of a table.
+     * @param tableName table name
+     * @return sql
+     */
+    public static String dropTriggerSql(String tableName) {
+        return String.format("drop trigger if exists %s_outbox", tableName);
+    }
+
+    @Override
+    public void init(Connection conn, String schemaName, String triggerName, String tableName, boolean before,
+            int type) {
+        this.tableName = tableName.toLowerCase();
+    }
+
+    @Override
+    public void fire(Connection conn, Object[] oldRow, Object[] newRow) throws SQLException {
+        final String op;
+        if (newRow == null) {
+            op = "D";
+        }
+        else {
+            op = (oldRow != null) ? "U" : "I";
+        }
+        try (PreparedStatement ps = conn.prepareStatement(INSERT)) {
+            ps.setString(1, this.tableName);
+            ps.setString(2, String.valueOf(((newRow != null) ? newRow : oldRow)[0]));
+            ps.setString(3, op);
+            ps.executeUpdate();
+        }
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public void remove() {
+    }
+
+}
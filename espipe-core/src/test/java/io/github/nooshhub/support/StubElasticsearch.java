@@ -0,0 +1,502 @@
+/*
+ * Copyright 2021-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.nooshhub.support;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import co.elastic.clients.elasticsearch.ElasticsearchAsyncClient;
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.json.jackson.JacksonJsonpMapper;
+import co.elastic.clients.transport.rest_client.RestClientTransport;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.github.nooshhub.config.ElasticsearchConfiguration;
+import io.github.nooshhub.dao.ElasticsearchDao;
+import org.apache.http.HttpHost;
+import org.elasticsearch.client.RestClient;
+
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * A stub of the elasticsearch endpoints espipe calls, installed into the
+ * {@link ElasticsearchDao} of a test and removed by {@link #close()}. The documents are
+ * kept per index with their external versions and the tombstones of versioned deletes,
+ * so the write modes behave as on a cluster. Bulk requests can be held, answered with an
+ * error status, and single documents can be failed with an item error.
+ *
+ * @author Neal Shan
+ * @since 10/18/2026
+ */
+public final class StubElasticsearch implements AutoCloseable {
+
+    private static final String[] CLIENT_FIELDS = { "esClient", "esAsyncClient", "restClient", "jsonpMapper" };
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final HttpServer server;
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    private final RestClient restClient;
+
+    private final ElasticsearchDao elasticsearchDao;
+
+    private final Map<String, Object> originalFields = new ConcurrentHashMap<>();
+
+    private final Map<String, Map<String, Document>> indices = new ConcurrentHashMap<>();
+
+    private final List<List<Operation>> bulks = new CopyOnWriteArrayList<>();
+
+    private final Deque<Integer> statuses = new ConcurrentLinkedDeque<>();
+
+    private final Map<String, Deque<String[]>> itemFailures = new ConcurrentHashMap<>();
+
+    private final Set<String> releasedDocuments = new HashSet<>();
+
+    private final AtomicInteger exchanges = new AtomicInteger();
+
+    private boolean held;
+
+    private int releases;
+
+    private StubElasticsearch(ElasticsearchDao elasticsearchDao) throws IOException {
+        this.elasticsearchDao = elasticsearchDao;
+        this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        this.server.setExecutor(this.executor);
+        this.server.createContext("/", this::handle);
+        this.server.start();
+
+        this.restClient = RestClient.builder(new HttpHost("localhost", this.server.getAddress().getPort(), "http"))
+                .build();
+        final JacksonJsonpMapper mapper = new JacksonJsonpMapper();
+        mapper.objectMapper().setDateFormat(new SimpleDateFormat(ElasticsearchConfiguration.DATE_FORMAT));
+        RestClientTransport transport = new RestClientTransport(this.restClient, mapper);
+        for (String field : CLIENT_FIELDS) {
+            this.originalFields.put(field, ReflectionTestUtils.getField(elasticsearchDao, field));
+        }
+        ReflectionTestUtils.setField(elasticsearchDao, "esClient", new ElasticsearchClient(transport));
+        ReflectionTestUtils.setField(elasticsearchDao, "esAsyncClient", new ElasticsearchAsyncClient(transport));
+        ReflectionTestUtils.setField(elasticsearchDao, "restClient", this.restClient);
+        ReflectionTestUtils.setField(elasticsearchDao, "jsonpMapper", mapper);
+    }
+
+    /**
+     * start a stub and point the elasticsearch dao to it.
+     * @param elasticsearchDao elasticsearch dao of the test context
+     * @return stub
+     * @throws IOException if the stub can not listen
+     */
+    public static StubElasticsearch start(ElasticsearchDao elasticsearchDao) throws IOException {
+        return new StubElasticsearch(elasticsearchDao);
+    }
+
+    /**
+     * create an empty index, as init does.
+     * @param indexName index name
+     */
+    public void createIndex(String indexName) {
+        this.indices.put(indexName, new ConcurrentHashMap<>());
+    }
+
+    /**
+     * hold the responses of the bulk requests until they are released.
+     */
+    public synchronized void hold() {
+        this.held = true;
+        this.releases = 0;
+    }
+
+    /**
+     * answer one held bulk request, the requests are answered in any order.
+     */
+    public synchronized void releaseOne() {
+        this.releases++;
+        notifyAll();
+    }
+
+    /**
+     * answer the held bulk requests of a document, now and later.
+     * @param documentId document id
+     */
+    public synchronized void releaseDocument(String documentId) {
+        this.releasedDocuments.add(documentId);
+        notifyAll();
+    }
+
+    /**
+     * answer the held bulk requests and stop holding.
+     */
+    public synchronized void releaseAll() {
+        this.held = false;
+        notifyAll();
+    }
+
+    /**
+     * answer the next bulk requests with error statuses instead of their items.
+     * @param statuses http statuses, one per bulk request
+     */
+    public void respondWith(Integer... statuses) {
+        Collections.addAll(this.statuses, statuses);
+    }
+
+    /**
+     * fail the next operations of a document with an item error.
+     * @param documentId document id
+     * @param status item status
+     * @param errorType error type of the item
+     * @param times number of operations to fail
+     */
+    public void failItem(String documentId, int status, String errorType, int times) {
+        Deque<String[]> failures = this.itemFailures.computeIfAbsent(documentId,
+                (key) -> new ConcurrentLinkedDeque<>());
+        for (int i = 0; i < times; i++) {
+            failures.add(new String[] { String.valueOf(status), errorType });
+        }
+    }
+
+    /**
+     * wait until a number of bulk requests are received.
+     * @param count bulk requests
+     * @param timeoutMillis timeout
+     * @return true if received in time
+     * @throws InterruptedException if interrupted
+     */
+    public boolean awaitBulks(int count, long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (this.bulks.size() < count) {
+            if (System.currentTimeMillis() > deadline) {
+                return false;
+            }
+            Thread.sleep(5);
+        }
+        return true;
+    }
+
+    /**
+     * operations of every bulk request received, in the order of arrival.
+     * @return bulk requests
+     */
+    public List<List<Operation>> getBulks() {
+        return this.bulks;
+    }
+
+    /**
+     * source of an indexed document.
+     * @param indexName index name
+     * @param documentId document id
+     * @return source, null if the document is not indexed
+     */
+    public JsonNode getDocument(String indexName, String documentId) {
+        Document document = documents(indexName).get(documentId);
+        return (document != null && !document.deleted) ? document.source : null;
+    }
+
+    /**
+     * number of indexed documents.
+     * @param indexName index name
+     * @return count
+     */
+    public long count(String indexName) {
+        return documents(indexName).values().stream().filter((document) -> !document.deleted).count();
+    }
+
+    private Map<String, Document> documents(String indexName) {
+        return this.indices.computeIfAbsent(indexName, (key) -> new ConcurrentHashMap<>());
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        this.exchanges.incrementAndGet();
+        try (InputStream in = exchange.getRequestBody()) {
+            final byte[] body = in.readAllBytes();
+            final String method = exchange.getRequestMethod();
+            final String[] path = exchange.getRequestURI().getPath().substring(1).split("/");
+            if (path[0].isEmpty()) {
+                respond(exchange, 200, "{\"cluster_name\":\"stub\"}");
+            }
+            else if ("_bulk".equals(path[0])) {
+                bulk(exchange, body);
+            }
+            else if (path.length == 1 && "HEAD".equals(method)) {
+                respond(exchange, this.indices.containsKey(path[0]) ? 200 : 404, "{}");
+            }
+            else if (path.length == 1 && "DELETE".equals(method)) {
+                this.indices.remove(path[0]);
+                respond(exchange, 200, "{\"acknowledged\":true}");
+            }
+            else if (path.length == 1) {
+                createIndex(path[0]);
+                respond(exchange, 200, String.format(
+                        "{\"acknowledged\":true,\"shards_acknowledged\":true,\"index\":\"%s\"}", path[0]));
+            }
+            else if ("_count".equals(path[1])) {
+                respond(exchange, 200, String.format("{\"count\":%d,%s}", count(path[0]), shards()));
+            }
+            else if ("_refresh".equals(path[1])) {
+                respond(exchange, 200, String.format("{%s}", shards()));
+            }
+            else {
+                respond(exchange, 200, "{\"acknowledged\":true}");
+            }
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            respond(exchange, 500, "{}");
+        }
+        finally {
+            this.exchanges.decrementAndGet();
+        }
+    }
+
+    private void bulk(HttpExchange exchange, byte[] body) throws IOException, InterruptedException {
+        List<Operation> operations = new ArrayList<>();
+        String[] lines = new String(body, StandardCharsets.UTF_8).split("\n");
+        for (int i = 0; i < lines.length; i++) {
+            Map.Entry<String, JsonNode> action = this.objectMapper.readTree(lines[i]).fields().next();
+            Operation operation = new Operation();
+            operation.action = action.getKey();
+            operation.index = action.getValue().get("_index").asText();
+            operation.id = action.getValue().get("_id").asText();
+            operation.version = action.getValue().has("version") ? action.getValue().get("version").asLong() : null;
+            operation.versionType = action.getValue().has("version_type")
+                    ? action.getValue().get("version_type").asText() : null;
+            if (!"delete".equals(operation.action)) {
+                operation.source = this.objectMapper.readTree(lines[++i]);
+            }
+            operations.add(operation);
+        }
+        this.bulks.add(operations);
+        await(operations);
+
+        Integer status = this.statuses.poll();
+        if (status != null) {
+            respond(exchange, status, String.format("{\"error\":{\"type\":\"stub_exception\",\"reason\":\"status %d\"},"
+                    + "\"status\":%d}", status, status));
+            return;
+        }
+
+        ObjectNode response = this.objectMapper.createObjectNode();
+        ArrayNode items = this.objectMapper.createArrayNode();
+        boolean errors = false;
+        for (Operation operation : operations) {
+            ObjectNode item = apply(operation);
+            errors = errors || item.has("error");
+            items.addObject().set(operation.action, item);
+        }
+        response.put("took", 1);
+        response.put("errors", errors);
+        response.set("items", items);
+        respond(exchange, 200, this.objectMapper.writeValueAsString(response));
+    }
+
+    private synchronized void await(List<Operation> operations) throws InterruptedException {
+        while (this.held && this.releases == 0 && !isReleased(operations)) {
+            wait();
+        }
+        if (this.held && !isReleased(operations)) {
+            this.releases--;
+        }
+    }
+
+    private boolean isReleased(List<Operation> operations) {
+        return operations.stream().anyMatch((operation) -> this.releasedDocuments.contains(operation.id));
+    }
+
+    /**
+     * apply an operation as elasticsearch does, a create of an existing document and an
+     * external version not above the version of the document or its tombstone conflict,
+     * an external_gte version conflicts only below it.
+     * @param operation operation
+     * @return item of the response
+     */
+    private synchronized ObjectNode apply(Operation operation) {
+        ObjectNode item = this.objectMapper.createObjectNode();
+        item.put("_index", operation.index);
+        item.put("_id", operation.id);
+
+        Deque<String[]> failures = this.itemFailures.get(operation.id);
+        String[] failure = (failures != null) ? failures.poll() : null;
+        if (failure != null) {
+            return error(item, Integer.parseInt(failure[0]), failure[1]);
+        }
+
+        Map<String, Document> documents = documents(operation.index);
+        Document document = documents.get(operation.id);
+        boolean exists = document != null && !document.deleted;
+        if ("create".equals(operation.action) && exists) {
+            return error(item, 409, "version_conflict_engine_exception");
+        }
+        if (operation.version != null && document != null && ("external_gte".equals(operation.versionType)
+                ? operation.version < document.version : operation.version <= document.version)) {
+            return error(item, 409, "version_conflict_engine_exception");
+        }
+        if ("delete".equals(operation.action)) {
+            if (operation.version != null) {
+                Document tombstone = new Document();
+                tombstone.version = operation.version;
+                tombstone.deleted = true;
+                documents.put(operation.id, tombstone);
+            }
+            else {
+                documents.remove(operation.id);
+            }
+            item.put("result", exists ? "deleted" : "not_found");
+            item.put("status", exists ? 200 : 404);
+            return item;
+        }
+
+        Document indexed = new Document();
+        indexed.version = (operation.version != null) ? operation.version : 1;
+        indexed.source = operation.source;
+        documents.put(operation.id, indexed);
+        item.put("result", exists ? "updated" : "created");
+        item.put("status", exists ? 200 : 201);
+        return item;
+    }
+
+    private static ObjectNode error(ObjectNode item, int status, String errorType) {
+        item.put("status", status);
+        item.putObject("error").put("type", errorType).put("reason", "stub " + errorType);
+        return item;
+    }
+
+    private static String shards() {
+        return "\"_shards\":{\"total\":1,\"successful\":1,\"failed\":0}";
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.getResponseHeaders().add("X-Elastic-Product", "Elasticsearch");
+        if ("HEAD".equals(exchange.getRequestMethod())) {
+            exchange.sendResponseHeaders(status, -1);
+            exchange.close();
+            return;
+        }
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * restore the clients of the elasticsearch dao and stop the stub.
+     * @throws IOException if the rest client fails to close
+     */
+    @Override
+    public void close() throws IOException {
+        this.originalFields.forEach((field, value) -> ReflectionTestUtils.setField(this.elasticsearchDao, field,
+                value));
+        // the held requests are answered before the client closes, or they fail and are retried by a later test
+        releaseAll();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (this.exchanges.get() > 0 && System.currentTimeMillis() < deadline) {
+            try {
+                Thread.sleep(5);
+            }
+            catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        this.restClient.close();
+        this.server.stop(0);
+        this.executor.shutdownNow();
+        try {
+            this.executor.awaitTermination(5, TimeUnit.SECONDS);
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * an operation of a bulk request.
+     */
+    public static final class Operation {
+
+        private String action;
+
+        private String index;
+
+        private String id;
+
+        private Long version;
+
+        private String versionType;
+
+        private JsonNode source;
+
+        public String getAction() {
+            return this.action;
+        }
+
+        public String getIndex() {
+            return this.index;
+        }
+
+        public String getId() {
+            return this.id;
+        }
+
+        public Long getVersion() {
+            return this.version;
+        }
+
+        public String getVersionType() {
+            return this.versionType;
+        }
+
+        public JsonNode getSource() {
+            return this.source;
+        }
+
+    }
+
+    private static final class Document {
+
+        private long version;
+
+        private boolean deleted;
+
+        private JsonNode source;
+
+    }
+
+}
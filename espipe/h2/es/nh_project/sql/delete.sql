@@ -0,0 +1 @@
+select nh_project_id from nh_project_delete where delete_date > ? and delete_date < ?
\ No newline at end of file
@@ -0,0 +1 @@
+SELECT nh_project_id, attribute_key, attribute_value FROM nh_property_attribute
\ No newline at end of file
@@ -0,0 +1 @@
+SELECT nh_project_id FROM nh_property_attribute WHERE coalesce(mod_date, create_date) > ? and coalesce(mod_date, create_date) < ?
\ No newline at end of file
@@ -0,0 +1 @@
+select num_rows from user_tables where table_name = 'PM_PROJECT'